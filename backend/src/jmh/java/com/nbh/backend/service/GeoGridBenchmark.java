@@ -0,0 +1,97 @@
+package com.nbh.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounding-box candidate collection through {@link GeoGrid} against the linear scan it replaced.
+ * Points are spread over India with a dense cluster, like the listings of a search snapshot.
+ *
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoGridBenchmark {
+
+    @Param({ "10000", "100000" })
+    private int points;
+
+    // Half-width of the box in degrees: a city viewport and a state viewport
+    @Param({ "0.25", "2.5" })
+    private double boxDegrees;
+
+    private double[] latitude;
+    private double[] longitude;
+    private GeoGrid grid;
+    private long[] bits;
+    private double minLat;
+    private double maxLat;
+    private double minLng;
+    private double maxLng;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        latitude = new double[points];
+        longitude = new double[points];
+        for (int i = 0; i < points; i++) {
+            if (i % 4 == 0) {
+                // Hill-station cluster around Darjeeling
+                latitude[i] = 27.0 + random.nextGaussian() * 0.3;
+                longitude[i] = 88.3 + random.nextGaussian() * 0.3;
+            } else {
+                latitude[i] = 8.0 + random.nextDouble() * 27.0;
+                longitude[i] = 68.0 + random.nextDouble() * 29.0;
+            }
+        }
+        grid = new GeoGrid(latitude, longitude, 0.05);
+        bits = new long[(points + 63) >>> 6];
+        minLat = 27.0 - boxDegrees;
+        maxLat = 27.0 + boxDegrees;
+        minLng = 88.3 - boxDegrees;
+        maxLng = 88.3 + boxDegrees;
+    }
+
+    @Benchmark
+    public long[] gridCollect() {
+        Arrays.fill(bits, 0L);
+        grid.collect(minLat, maxLat, minLng, maxLng, bits);
+        return bits;
+    }
+
+    @Benchmark
+    public long[] linearScan() {
+        Arrays.fill(bits, 0L);
+        for (int slot = 0; slot < points; slot++) {
+            double lat = latitude[slot];
+            double lng = longitude[slot];
+            if (lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng) {
+                bits[slot >>> 6] |= 1L << slot;
+            }
+        }
+        return bits;
+    }
+
+    @Benchmark
+    public GeoGrid build() {
+        return new GeoGrid(latitude, longitude, 0.05);
+    }
+}
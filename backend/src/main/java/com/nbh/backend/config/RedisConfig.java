@@ -121,7 +121,6 @@ public class RedisConfig {
             CaffeineCacheManager caffeineManager = new CaffeineCacheManager(
                     "states",
                     "destinations",
-                    "homestaysSearch",
                     "destination-by-slug",
                     "destinations-by-state",
                     "state-by-slug",
@@ -154,7 +153,6 @@ public class RedisConfig {
 
         Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
         cacheConfigs.put("homestay", defaultConfig.entryTtl(Duration.ofHours(24)));
-        cacheConfigs.put("homestaysSearch", defaultConfig.entryTtl(Duration.ofHours(2)));
         cacheConfigs.put("postsList", defaultConfig.entryTtl(Duration.ofMinutes(5)));
         cacheConfigs.put("postDetail", defaultConfig.entryTtl(Duration.ofHours(1)));
         cacheConfigs.put("homestayQA", defaultConfig.entryTtl(Duration.ofHours(12)));
@@ -36,6 +36,7 @@ public class SecurityConfig {
                                                                 "/api/users/**",
                                                                 "/api/destinations/**", "/api/destinations",
                                                                 "/api/states/**", "/api/states",
+                                                                "/api/search/**",
                                                                 "/api/diagnostics",
                                                                 "/api/reviews/homestay/**", "/v3/api-docs/**",
                                                                 "/swagger-ui/**", "/swagger-ui.html")
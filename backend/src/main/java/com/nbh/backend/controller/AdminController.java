@@ -2,16 +2,20 @@ package com.nbh.backend.controller;
 
 import com.nbh.backend.repository.HomestayRepository;
 import com.nbh.backend.repository.PostRepository;
-import com.nbh.backend.repository.UserRepository;
 import com.nbh.backend.model.Homestay;
+import com.nbh.backend.service.AggregateCountService;
+import com.nbh.backend.service.HomestaySearchEngine;
 import com.nbh.backend.service.TimelineService;
+import com.nbh.backend.service.TrendingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.springframework.cache.annotation.CacheEvict;
@@ -25,8 +29,10 @@ public class AdminController {
 
     private final HomestayRepository homestayRepository;
     private final PostRepository postRepository;
-    private final UserRepository userRepository;
     private final TimelineService timelineService;
+    private final TrendingService trendingService;
+    private final AggregateCountService aggregateCountService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @GetMapping("/hello")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -38,20 +44,25 @@ public class AdminController {
     @GetMapping("/stats")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Map<String, Object>> getStats() {
-        long totalUsers = userRepository.count();
-        long totalPosts = postRepository.count();
-        long totalHomestays = homestayRepository.count();
-        long pendingHomestays = homestayRepository.countByStatus(Homestay.Status.PENDING);
-        long approvedHomestays = homestayRepository.countByStatus(Homestay.Status.APPROVED);
-        long featuredHomestays = homestayRepository.countByFeaturedTrue();
+        // Maintained counters: one primary-key lookup instead of six COUNT(*) scans. Like the
+        // repository counts they replace (the entities' @SQLRestriction), they skip soft-deleted rows.
+        String pending = AggregateCountService.homestayStatusKey(Homestay.Status.PENDING);
+        String approved = AggregateCountService.homestayStatusKey(Homestay.Status.APPROVED);
+        Map<String, Long> counts = aggregateCountService.get(List.of(
+                AggregateCountService.USERS,
+                AggregateCountService.POSTS,
+                AggregateCountService.HOMESTAYS,
+                pending,
+                approved,
+                AggregateCountService.HOMESTAYS_FEATURED));
 
         return ResponseEntity.ok(Map.of(
-                "totalUsers", totalUsers,
-                "totalPosts", totalPosts,
-                "totalHomestays", totalHomestays,
-                "pendingHomestays", pendingHomestays,
-                "approvedHomestays", approvedHomestays,
-                "featuredHomestays", featuredHomestays));
+                "totalUsers", counts.get(AggregateCountService.USERS),
+                "totalPosts", counts.get(AggregateCountService.POSTS),
+                "totalHomestays", counts.get(AggregateCountService.HOMESTAYS),
+                "pendingHomestays", counts.get(pending),
+                "approvedHomestays", counts.get(approved),
+                "featuredHomestays", counts.get(AggregateCountService.HOMESTAYS_FEATURED)));
     }
 
     /** Admin-only force-delete any post (for moderation) */
@@ -66,22 +77,22 @@ public class AdminController {
             return ResponseEntity.notFound().build();
         }
         postRepository.deleteById(id);
+        timelineService.deletePostFromTimeline(id);
+        trendingService.onPostDeleted(id);
         return ResponseEntity.ok().build();
     }
 
     /** Toggle featured status on a homestay */
     @PutMapping("/homestays/{id}/feature")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    @Caching(evict = {
-            @CacheEvict(value = "homestay", key = "#p0"),
-            @CacheEvict(value = "homestaysSearch", allEntries = true)
-    })
+    @CacheEvict(value = "homestay", key = "#p0")
     public ResponseEntity<Map<String, Object>> toggleFeatured(@PathVariable("id") UUID id) {
         Homestay homestay = homestayRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Homestay not found"));
         boolean newState = !Boolean.TRUE.equals(homestay.getFeatured());
         homestay.setFeatured(newState);
         homestayRepository.save(homestay);
+        eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(id));
         return ResponseEntity.ok(Map.of("id", id, "featured", newState));
     }
 
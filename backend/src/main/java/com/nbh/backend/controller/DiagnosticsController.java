@@ -1,6 +1,14 @@
 package com.nbh.backend.controller;
 
+import com.nbh.backend.service.FeedCacheService;
+import com.nbh.backend.service.FeedPrefetcher;
+import com.nbh.backend.service.HomestaySearchCache;
+import com.nbh.backend.service.HomestaySearchEngine;
 import com.nbh.backend.service.InfrastructureDetailsService;
+import com.nbh.backend.service.SearchSuggestIndex;
+import com.nbh.backend.service.TimelineMaintenanceService;
+import com.nbh.backend.service.TrendingHistoryService;
+import com.nbh.backend.service.ViewDeduplicator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,6 +29,14 @@ import java.util.Map;
 public class DiagnosticsController {
 
     private final InfrastructureDetailsService detailsService;
+    private final FeedCacheService feedCacheService;
+    private final FeedPrefetcher feedPrefetcher;
+    private final TimelineMaintenanceService timelineMaintenanceService;
+    private final ViewDeduplicator viewDeduplicator;
+    private final TrendingHistoryService trendingHistoryService;
+    private final HomestaySearchEngine homestaySearchEngine;
+    private final HomestaySearchCache homestaySearchCache;
+    private final SearchSuggestIndex searchSuggestIndex;
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> runDiagnostics() {
@@ -31,6 +47,62 @@ public class DiagnosticsController {
         return ResponseEntity.ok(report);
     }
 
+    /** Feed cache hit/miss figures, per scope/tag generation */
+    @GetMapping("/feed-cache")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> feedCacheStats() {
+        return ResponseEntity.ok(feedCacheService.getStats());
+    }
+
+    /** Next-page prefetch counters and hit ratio */
+    @GetMapping("/feed-prefetch")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> feedPrefetchStats() {
+        return ResponseEntity.ok(feedPrefetcher.getStats());
+    }
+
+    /** Timeline size, lag and last maintenance run */
+    @GetMapping("/timeline")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> timelineStats() {
+        return ResponseEntity.ok(timelineMaintenanceService.getStats());
+    }
+
+    /** View de-duplication memory, fill and suppression rate */
+    @GetMapping("/view-dedup")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> viewDedupStats() {
+        return ResponseEntity.ok(viewDeduplicator.getStats());
+    }
+
+    /** Last trending history partition and rollup run */
+    @GetMapping("/trending-history")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> trendingHistoryStats() {
+        return ResponseEntity.ok(trendingHistoryService.getStats());
+    }
+
+    /** In-memory homestay search engine size and search latency */
+    @GetMapping("/homestay-search-engine")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> homestaySearchEngineStats() {
+        return ResponseEntity.ok(homestaySearchEngine.getStats());
+    }
+
+    /** Homestay search result cache: hit rate and targeted evictions */
+    @GetMapping("/homestay-search-cache")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> homestaySearchCacheStats() {
+        return ResponseEntity.ok(homestaySearchCache.getStats());
+    }
+
+    /** Typeahead index size and lookup latency */
+    @GetMapping("/search-suggest")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> searchSuggestStats() {
+        return ResponseEntity.ok(searchSuggestIndex.getStats());
+    }
+
     @DeleteMapping("/cache")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Map<String, String>> clearCache() {
@@ -62,6 +62,51 @@ public class HomestayController {
                 page);
     }
 
+    /**
+     * Cursor mode of /search, selected by the presence of {@code cursor} (empty for the first page).
+     * {@code total} is one of none, exact, capped or estimate.
+     */
+    @GetMapping(value = "/search", params = "cursor")
+    public HomestayDto.SearchSlice searchByCursor(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "tag", required = false) String tag,
+            @RequestParam(value = "stateSlug", required = false) String stateSlug,
+            @RequestParam(value = "isFeatured", required = false) Boolean isFeatured,
+            @RequestParam(value = "minLat", required = false) Double minLat,
+            @RequestParam(value = "maxLat", required = false) Double maxLat,
+            @RequestParam(value = "minLng", required = false) Double minLng,
+            @RequestParam(value = "maxLng", required = false) Double maxLng,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "total", required = false) String total) {
+        return homestayService.searchHomestaysAfter(q, tag, stateSlug, isFeatured, minLat, maxLat, minLng, maxLng,
+                cursor, size, HomestayDto.SearchTotal.from(total));
+    }
+
+    /**
+     * Map markers for the viewport; single listings carry their id, clusters only a count.
+     */
+    @GetMapping("/map/clusters")
+    public List<HomestayDto.MapCluster> mapClusters(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "tag", required = false) String tag,
+            @RequestParam(value = "stateSlug", required = false) String stateSlug,
+            @RequestParam(value = "isFeatured", required = false) Boolean isFeatured,
+            @RequestParam(value = "minLat") Double minLat,
+            @RequestParam(value = "maxLat") Double maxLat,
+            @RequestParam(value = "minLng") Double minLng,
+            @RequestParam(value = "maxLng") Double maxLng,
+            @RequestParam(value = "zoom") int zoom) {
+        return homestayService.getMapClusters(q, tag, stateSlug, isFeatured, minLat, maxLat, minLng, maxLng, zoom);
+    }
+
+    @GetMapping("/{id}/nearby")
+    public List<HomestayDto.Response> nearby(@PathVariable("id") UUID id,
+            @RequestParam(value = "radiusKm", defaultValue = "25") double radiusKm,
+            @RequestParam(value = "limit", defaultValue = "6") int limit) {
+        return homestayService.getNearbyHomestays(id, radiusKm, limit);
+    }
+
     @GetMapping("/{id}")
     public org.springframework.http.ResponseEntity<HomestayDto.Response> getHomestay(@PathVariable("id") UUID id) {
         try {
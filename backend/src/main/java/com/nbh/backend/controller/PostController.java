@@ -2,12 +2,14 @@ package com.nbh.backend.controller;
 
 import com.nbh.backend.dto.PostDto;
 import com.nbh.backend.dto.PostFeedDto;
+import com.nbh.backend.dto.TrendingHistoryDto;
 import com.nbh.backend.model.HelpfulVote;
 import com.nbh.backend.model.Post;
 import com.nbh.backend.repository.HelpfulVoteRepository;
 import com.nbh.backend.repository.PostRepository;
 import com.nbh.backend.service.FeedService;
 import com.nbh.backend.service.PostService;
+import com.nbh.backend.service.TrendingHistoryService;
 import com.nbh.backend.service.UserService;
 import com.nbh.backend.service.XpService;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +21,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import com.nbh.backend.model.User;
@@ -26,7 +29,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
@@ -42,6 +47,7 @@ public class PostController {
     private final PostRepository postRepository;
     private final UserService userService;
     private final ApplicationEventPublisher eventPublisher;
+    private final TrendingHistoryService trendingHistoryService;
 
     /**
      * Legacy pageable endpoint - unchanged for backward compatibility.
@@ -51,7 +57,7 @@ public class PostController {
     public ResponseEntity<Page<PostDto.Response>> getAllPosts(
             @RequestParam(name = "tag", required = false) String tag,
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(postService.getAllPosts(tag, pageable));
+        return ResponseEntity.ok(postService.applyLiveCounters(postService.getAllPosts(tag, pageable)));
     }
 
     /**
@@ -71,27 +77,59 @@ public class PostController {
             @RequestParam(name = "cursor", required = false) String cursor,
             @RequestParam(name = "limit", required = false) Integer limit,
             @RequestParam(name = "layout", required = false, defaultValue = "true") boolean layout,
+            @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
             Authentication authentication) {
         UUID userId = null;
         if (authentication != null && authentication.isAuthenticated()) {
-            String email = authentication.getName();
-            // Get user ID from email for like status
-            userId = postService.getUserIdByEmail(email);
+            if (authentication.getPrincipal() instanceof User user) {
+                // JWT filter already loaded the user; no lookup needed
+                userId = user.getId();
+            } else {
+                // Get user ID from email for like status
+                userId = postService.getUserIdByEmail(authentication.getName());
+            }
         }
-        
+
+        CacheControl cacheControl = CacheControl.maxAge(10, java.util.concurrent.TimeUnit.SECONDS).cachePrivate();
+
+        // Revalidation against a known page stamp: no DB work, no body
+        String knownETag = feedService.getFeedETag(tag, scope, cursor, limit, userId, layout).orElse(null);
+        if (knownETag != null && etagMatches(ifNoneMatch, knownETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .eTag(knownETag)
+                    .build();
+        }
+
         PostFeedDto.FeedResponse response = feedService.getFeed(tag, scope, cursor, limit, userId, layout);
-        
-        // Generate ETag from response hash
-        String etag = generateFeedETag(response);
-        
+
+        // Stamp of the page just built; falls back to a response hash when the cache is disabled
+        String etag = feedService.getFeedETag(tag, scope, cursor, limit, userId, layout)
+                .orElseGet(() -> generateFeedETag(response));
+
         // HTTP cache headers: private (user-specific), max-age=10s
         return ResponseEntity.ok()
-                .cacheControl(CacheControl.maxAge(10, java.util.concurrent.TimeUnit.SECONDS)
-                        .cachePrivate())
+                .cacheControl(cacheControl)
                 .eTag(etag)
                 .body(response);
     }
-    
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Generate ETag for feed response.
      * Uses SHA-256 for deterministic and collision-resistant hash.
@@ -136,16 +174,21 @@ public class PostController {
         return ResponseEntity.ok(resp);
     }
 
+    /**
+     * Post search by location and text, for queries of three characters or more; pass {@code nextCursor}
+     * back as {@code cursor} for the next page.
+     */
     @GetMapping("/search")
-    public ResponseEntity<Page<PostDto.Response>> searchPosts(
+    public ResponseEntity<PostDto.SearchSlice> searchPosts(
             @RequestParam(name = "q", required = false, defaultValue = "") String query,
-            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(postService.searchPosts(query, pageable));
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(postService.applyLiveCounters(postService.searchPosts(query, cursor, limit)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PostDto.Response> getPostById(@PathVariable("id") UUID id) {
-        return postService.getPostById(id)
+    public ResponseEntity<PostDto.Response> getPostById(@PathVariable("id") UUID id, HttpServletRequest request) {
+        return postService.getPostById(id, request)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -163,6 +206,25 @@ public class PostController {
         return ResponseEntity.ok(feedService.getFeed(null, "trending", cursor, limit, userId, layout));
     }
 
+    /**
+     * Trending score trajectory of a post, defaulting to the last 7 days.
+     * Older points come back as hourly or daily aggregates.
+     */
+    @GetMapping("/{id}/trending-history")
+    public ResponseEntity<TrendingHistoryDto> getTrendingHistory(
+            @PathVariable("id") UUID id,
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant resolvedTo = to != null ? to : Instant.now();
+        Instant resolvedFrom = from != null ? from : resolvedTo.minus(Duration.ofDays(7));
+        if (!resolvedFrom.isBefore(resolvedTo)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        return ResponseEntity.ok(trendingHistoryService.getTrajectory(id, resolvedFrom, resolvedTo));
+    }
+
     @PostMapping(consumes = org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<PostDto.Response> createPost(
@@ -178,7 +240,7 @@ public class PostController {
     public ResponseEntity<Page<PostDto.Response>> getMyPosts(
             Authentication authentication,
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ResponseEntity.ok(postService.getPostsByUser(authentication.getName(), pageable));
+        return ResponseEntity.ok(postService.applyLiveCounters(postService.getPostsByUser(authentication.getName(), pageable)));
     }
 
     @PutMapping(value = "/{id}", consumes = org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE)
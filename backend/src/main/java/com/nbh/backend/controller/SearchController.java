@@ -0,0 +1,31 @@
+package com.nbh.backend.controller;
+
+import com.nbh.backend.dto.SuggestionDto;
+import com.nbh.backend.service.SearchSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchSuggestIndex searchSuggestIndex;
+
+    /** Typeahead over homestays, destinations, states and post tags; served from memory */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDto>> suggest(
+            @RequestParam(name = "q", required = false) String query,
+            @RequestParam(name = "limit", defaultValue = "8") int limit) {
+        return ResponseEntity
+                .ok()
+                .cacheControl(CacheControl.empty()
+                        .cachePublic()
+                        .sMaxAge(60, java.util.concurrent.TimeUnit.SECONDS))
+                .body(searchSuggestIndex.suggest(query, limit));
+    }
+}
@@ -11,6 +11,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 import java.util.List;
 import java.util.Map;
@@ -203,4 +204,73 @@ public class HomestayDto {
         private String name;
         private String locationName;
     }
+
+    /**
+     * Total requested with a cursor search: none, exact, counted up to a cap, or the planner's estimate.
+     */
+    public enum SearchTotal {
+        NONE,
+        EXACT,
+        CAPPED,
+        ESTIMATE;
+
+        public static SearchTotal from(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return NONE;
+            }
+        }
+    }
+
+    /**
+     * Position after the last card of a cursor search page (encoded as Base64 JSON).
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SearchCursor {
+        private boolean featured;
+        private int demand;
+        private int popular;
+        private double rank;
+        private double rating;
+        private LocalDateTime createdAt;
+        private UUID id;
+    }
+
+    /**
+     * Cursor search page. {@code totalElements} is only set when a total was requested;
+     * {@code totalCapped} means there are more matches than {@code totalElements}.
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SearchSlice {
+        private List<Response> content;
+        private String nextCursor;
+        private boolean hasMore;
+        private Long totalElements;
+        private SearchTotal totalMode;
+        private boolean totalCapped;
+    }
+
+    /**
+     * Map marker: a single listing ({@code homestayId} set) or a cluster of {@code count} listings at their centroid.
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class MapCluster {
+        private double latitude;
+        private double longitude;
+        private int count;
+        private UUID homestayId;
+    }
 }
@@ -14,4 +14,6 @@ public class MediaDto {
     private UUID id;
     private String url;
     private String fileId;
+    private Integer width;
+    private Integer height;
 }
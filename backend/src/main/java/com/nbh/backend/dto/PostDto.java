@@ -78,4 +78,29 @@ public class PostDto {
         private int loveCount;
         private boolean isLiked;
     }
+
+    /**
+     * Position in post search order: search score, created_at and id, all descending. {@code asOf} is
+     * the instant the search aged posts from, reused by every later page.
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SearchCursor {
+        private double score;
+        private Instant createdAt;
+        private UUID id;
+        private Instant asOf;
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SearchSlice {
+        private List<Response> content;
+        private String nextCursor;
+        private boolean hasMore;
+    }
 }
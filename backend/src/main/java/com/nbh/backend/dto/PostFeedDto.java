@@ -16,7 +16,7 @@ import java.util.UUID;
  * and batch queries instead of entity collection access.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class PostFeedDto {
@@ -140,7 +140,7 @@ public class PostFeedDto {
      * Includes optional blocks for backend-driven layout.
      */
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
     public static class FeedResponse {
@@ -49,4 +49,6 @@ public class SearchCardDto {
     private Boolean hostVerified;
 
     private String coverImageUrl;
+    private Integer coverImageWidth;
+    private Integer coverImageHeight;
 }
@@ -0,0 +1,17 @@
+package com.nbh.backend.dto;
+
+/**
+ * One typeahead suggestion. {@code value} is the homestay id, the destination or state slug,
+ * or the tag itself, depending on {@code type}.
+ */
+public record SuggestionDto(
+        Type type,
+        String label,
+        String subtitle,
+        String value
+) {
+
+    public enum Type {
+        HOMESTAY, DESTINATION, STATE, TAG
+    }
+}
@@ -0,0 +1,42 @@
+package com.nbh.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Trending score trajectory of a post.
+ * Recent points are raw snapshots; older ones are hourly, then daily, aggregates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingHistoryDto {
+
+    private UUID postId;
+    private Instant from;
+    private Instant to;
+    private List<Point> points;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        /** Snapshot time, or start of the bucket */
+        private Instant at;
+        /** Snapshot score, or average over the bucket */
+        private double score;
+        private double minScore;
+        private double maxScore;
+        private int samples;
+        /** "raw", "hour" or "day" */
+        private String resolution;
+    }
+}
@@ -0,0 +1,27 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.AggregateCountService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.aggregate-count-reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class AggregateCountReconcileJob {
+
+    private final AggregateCountService aggregateCountService;
+
+    @Scheduled(initialDelayString = "${counters.aggregates.reconcile-initial-delay-ms:120000}",
+            fixedDelayString = "${counters.aggregates.reconcile-interval-ms:900000}")
+    public void reconcileAggregateCounts() {
+        try {
+            aggregateCountService.reconcile();
+        } catch (Exception e) {
+            log.error("Aggregate count reconcile failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.HomestaySearchEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.homestay-search-engine.enabled", havingValue = "true", matchIfMissing = true)
+public class HomestaySearchEngineJob {
+
+    private final HomestaySearchEngine homestaySearchEngine;
+
+    // Picks up view/inquiry buckets, ratings, seeders and writes made on other instances
+    @Scheduled(initialDelayString = "${search.homestay-engine.rebuild-interval-ms:300000}",
+            fixedDelayString = "${search.homestay-engine.rebuild-interval-ms:300000}")
+    public void rebuildHomestaySearchEngine() {
+        try {
+            homestaySearchEngine.rebuild();
+        } catch (Exception e) {
+            log.error("Homestay search engine rebuild failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.HotTimelineWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.hot-timeline-window.enabled", havingValue = "true", matchIfMissing = true)
+public class HotTimelineWindowJob {
+
+    private final HotTimelineWindow hotTimelineWindow;
+
+    // Picks up rows written by other instances and bulk statements that bypass TimelineService
+    @Scheduled(initialDelayString = "${feed.hot-window.resync-interval-ms:60000}",
+            fixedDelayString = "${feed.hot-window.resync-interval-ms:60000}")
+    public void resync() {
+        hotTimelineWindow.rebuild();
+    }
+}
@@ -0,0 +1,26 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.LikeCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.like-counter-flush.enabled", havingValue = "true", matchIfMissing = true)
+public class LikeCounterFlushJob {
+
+    private final LikeCounterService likeCounterService;
+
+    @Scheduled(fixedDelayString = "${counters.likes.flush-interval-ms:2000}")
+    public void flushLikeCounters() {
+        try {
+            likeCounterService.flush();
+        } catch (Exception e) {
+            log.error("Like counter flush failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.SearchSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.search-suggest.enabled", havingValue = "true", matchIfMissing = true)
+public class SearchSuggestIndexJob {
+
+    private final SearchSuggestIndex searchSuggestIndex;
+
+    // Picks up view/inquiry counts, destination and state changes and writes made on other instances
+    @Scheduled(initialDelayString = "${search.suggest.rebuild-interval-ms:600000}",
+            fixedDelayString = "${search.suggest.rebuild-interval-ms:600000}")
+    public void rebuildSearchSuggestIndex() {
+        try {
+            searchSuggestIndex.rebuild();
+        } catch (Exception e) {
+            log.error("Search suggest index rebuild failed: {}", e.getMessage());
+        }
+    }
+}
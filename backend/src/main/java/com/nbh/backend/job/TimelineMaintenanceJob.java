@@ -0,0 +1,27 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.TimelineMaintenanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.timeline-maintenance.enabled", havingValue = "true", matchIfMissing = true)
+public class TimelineMaintenanceJob {
+
+    private final TimelineMaintenanceService timelineMaintenanceService;
+
+    @Scheduled(initialDelayString = "${feed.timeline-maintenance.initial-delay-ms:60000}",
+            fixedDelayString = "${feed.timeline-maintenance.fixed-delay-ms:30000}")
+    public void maintainTimeline() {
+        try {
+            timelineMaintenanceService.runCycle();
+        } catch (Exception e) {
+            log.error("Timeline maintenance failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.TrendingHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.trending-history-maintenance.enabled", havingValue = "true", matchIfMissing = true)
+public class TrendingHistoryMaintenanceJob {
+
+    private final TrendingHistoryService trendingHistoryService;
+
+    @Scheduled(initialDelayString = "${trending.history.initial-delay-ms:300000}",
+            fixedDelayString = "${trending.history.fixed-delay-ms:3600000}")
+    public void maintainTrendingHistory() {
+        try {
+            trendingHistoryService.runMaintenance();
+        } catch (Exception e) {
+            log.error("Trending history maintenance failed: {}", e.getMessage());
+        }
+    }
+}
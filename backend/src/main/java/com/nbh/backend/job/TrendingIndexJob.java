@@ -0,0 +1,21 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.TrendingIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.trending-index.enabled", havingValue = "true", matchIfMissing = true)
+public class TrendingIndexJob {
+
+    private final TrendingIndex trendingIndex;
+
+    // Recency boost changes with whole hours of age; a minute keeps the live order close
+    @Scheduled(fixedDelayString = "${trending.index.decay-interval-ms:60000}")
+    public void redecay() {
+        trendingIndex.redecay();
+    }
+}
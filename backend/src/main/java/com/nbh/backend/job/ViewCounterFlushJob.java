@@ -0,0 +1,26 @@
+package com.nbh.backend.job;
+
+import com.nbh.backend.service.ViewCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.jobs.view-counter-flush.enabled", havingValue = "true", matchIfMissing = true)
+public class ViewCounterFlushJob {
+
+    private final ViewCounterService viewCounterService;
+
+    @Scheduled(fixedDelayString = "${counters.views.flush-interval-ms:5000}")
+    public void flushViewCounters() {
+        try {
+            viewCounterService.flush();
+        } catch (Exception e) {
+            log.error("View counter flush failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.nbh.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A maintained cardinality (see V7__aggregate_counts.sql). Written only by database
+ * triggers and the reconciler; read-only from the application.
+ */
+@Entity
+@Table(name = "aggregate_counts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregateCount {
+
+    @Id
+    @Column(name = "counter_key", length = 128)
+    private String counterKey;
+
+    @Column(name = "value", nullable = false)
+    private long value;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -101,6 +101,16 @@ public class Homestay {
     @Builder.Default
     private List<MediaResource> mediaFiles = new ArrayList<>();
 
+    // First of mediaFiles, written by HomestayRepository.refreshCoverImages (V9)
+    @Column(name = "cover_image_url", insertable = false, updatable = false)
+    private String coverImageUrl;
+
+    @Column(name = "cover_image_width", insertable = false, updatable = false)
+    private Integer coverImageWidth;
+
+    @Column(name = "cover_image_height", insertable = false, updatable = false)
+    private Integer coverImageHeight;
+
     @Builder.Default
     private Double vibeScore = 0.0;
 
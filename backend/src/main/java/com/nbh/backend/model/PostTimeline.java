@@ -21,7 +21,7 @@ import java.util.UUID;
 @Entity
 @Table(name = "post_timelines_global")
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @SQLDelete(sql = "UPDATE post_timelines_global SET is_deleted = true WHERE id = ?")
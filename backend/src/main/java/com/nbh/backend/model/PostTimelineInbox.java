@@ -0,0 +1,54 @@
+package com.nbh.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Per-follower timeline entry for the "following" feed scope.
+ * Written on post create (fan-out-on-write) so the following feed becomes
+ * a keyset scan over (follower_user_id, created_at, post_id).
+ */
+@Entity
+@Table(name = "post_timeline_inboxes")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = {"followerUserId", "postId"})
+@IdClass(PostTimelineInbox.PostTimelineInboxPk.class)
+public class PostTimelineInbox {
+
+    @Id
+    @Column(name = "follower_user_id", nullable = false)
+    private UUID followerUserId;
+
+    @Id
+    @Column(name = "post_id", nullable = false)
+    private UUID postId;
+
+    @Column(name = "author_id", nullable = false)
+    private UUID authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PostTimelineInboxPk implements Serializable {
+        private UUID followerUserId;
+        private UUID postId;
+    }
+}
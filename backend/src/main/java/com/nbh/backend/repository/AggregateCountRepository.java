@@ -0,0 +1,99 @@
+package com.nbh.backend.repository;
+
+import com.nbh.backend.model.AggregateCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AggregateCountRepository extends JpaRepository<AggregateCount, String> {
+
+    /**
+     * Every counter key recounted from its source table.
+     */
+    String ACTUAL_COUNTS = """
+            actual(counter_key, value) AS (
+                SELECT 'users', COUNT(*) FROM users WHERE is_deleted = false
+                UNION ALL
+                SELECT 'posts', COUNT(*) FROM posts WHERE is_deleted = false
+                UNION ALL
+                SELECT 'homestays', COUNT(*) FROM homestays WHERE is_deleted = false
+                UNION ALL
+                SELECT 'homestays:featured', COUNT(*) FROM homestays WHERE is_deleted = false AND featured = true
+                UNION ALL
+                SELECT 'homestays:status:' || status, COUNT(*) FROM homestays
+                WHERE is_deleted = false AND status IS NOT NULL GROUP BY status
+                UNION ALL
+                SELECT 'homestays:destination:' || destination_id, COUNT(*) FROM homestays
+                WHERE is_deleted = false AND destination_id IS NOT NULL GROUP BY destination_id
+            )
+            """;
+
+    /**
+     * Keys whose stored value differs from a recount. One statement sees the source rows and
+     * the trigger-maintained counters in the same snapshot, so a difference is real drift.
+     * Takes no locks.
+     */
+    @Query(value = "WITH " + ACTUAL_COUNTS + """
+            SELECT COALESCE(x.counter_key, a.counter_key)
+            FROM actual x
+            FULL JOIN aggregate_counts a ON a.counter_key = x.counter_key
+            WHERE COALESCE(x.value, 0) <> COALESCE(a.value, 0)
+            """, nativeQuery = true)
+    List<String> findDriftedKeys();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO aggregate_counts (counter_key, value, updated_at)
+            VALUES (:key, 0, NOW())
+            ON CONFLICT (counter_key) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key);
+
+    /**
+     * Row-lock the given counters in key order, the order the triggers lock them in. Blocks
+     * trigger updates of these keys only, and waits for transactions that already moved them.
+     */
+    @Query(value = """
+            SELECT counter_key FROM aggregate_counts
+            WHERE counter_key IN (:keys)
+            ORDER BY counter_key
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<String> lockKeys(@Param("keys") List<String> keys);
+
+    /**
+     * Recount the given keys, fix those that drifted and zero those whose rows are gone.
+     * Run after {@link #lockKeys} so the recount is exact.
+     *
+     * @return keys whose stored value was wrong
+     */
+    @Query(value = "WITH " + ACTUAL_COUNTS + """
+            ,
+            fixed AS (
+                INSERT INTO aggregate_counts (counter_key, value, updated_at)
+                SELECT counter_key, value, NOW() FROM actual
+                WHERE counter_key IN (:keys)
+                ON CONFLICT (counter_key) DO UPDATE
+                    SET value = EXCLUDED.value, updated_at = NOW()
+                    WHERE aggregate_counts.value <> EXCLUDED.value
+                RETURNING counter_key
+            ),
+            zeroed AS (
+                UPDATE aggregate_counts a
+                SET value = 0, updated_at = NOW()
+                WHERE a.value <> 0
+                  AND a.counter_key IN (:keys)
+                  AND NOT EXISTS (SELECT 1 FROM actual x WHERE x.counter_key = a.counter_key)
+                RETURNING a.counter_key
+            )
+            SELECT counter_key FROM fixed
+            UNION ALL
+            SELECT counter_key FROM zeroed
+            """, nativeQuery = true)
+    List<String> reconcile(@Param("keys") List<String> keys);
+}
@@ -45,12 +45,13 @@ public interface DestinationRepository extends JpaRepository<Destination, UUID>
                    d.slug AS slug,
                    d.name AS name,
                    d.local_image_name AS localImageName,
-                   (SELECT COUNT(*) FROM homestays h WHERE h.destination_id = d.id AND h.is_deleted = false) AS homestayCount,
+                   COALESCE(c.value, 0) AS homestayCount,
                    s.name AS stateName,
                    s.slug AS stateSlug,
                    (SELECT array_agg(dt.tag) FROM destination_tags dt WHERE dt.destination_id = d.id) AS tags
             FROM destinations d
             LEFT JOIN states s ON d.state_id = s.id
+            LEFT JOIN aggregate_counts c ON c.counter_key = 'homestays:destination:' || d.id
             ORDER BY homestayCount DESC
             """,
             nativeQuery = true)
@@ -66,12 +67,13 @@ public interface DestinationRepository extends JpaRepository<Destination, UUID>
                    d.slug AS slug,
                    d.name AS name,
                    d.local_image_name AS localImageName,
-                   (SELECT COUNT(*) FROM homestays h WHERE h.destination_id = d.id AND h.is_deleted = false) AS homestayCount,
+                   COALESCE(c.value, 0) AS homestayCount,
                    s.name AS stateName,
                    s.slug AS stateSlug,
                    (SELECT array_agg(dt.tag) FROM destination_tags dt WHERE dt.destination_id = d.id) AS tags
             FROM destinations d
             LEFT JOIN states s ON d.state_id = s.id
+            LEFT JOIN aggregate_counts c ON c.counter_key = 'homestays:destination:' || d.id
             WHERE s.slug = :stateSlug
             ORDER BY homestayCount DESC
             """,
@@ -84,9 +86,9 @@ public interface DestinationRepository extends JpaRepository<Destination, UUID>
             LEFT JOIN FETCH d.state
             LEFT JOIN FETCH d.tags
             ORDER BY (
-                SELECT COUNT(h)
-                FROM Homestay h
-                WHERE h.destination = d AND h.isDeleted = false
+                SELECT COALESCE(MAX(c.value), 0)
+                FROM AggregateCount c
+                WHERE c.counterKey = CONCAT('homestays:destination:', CAST(d.id AS String))
             ) DESC
             """)
     List<Destination> fetchDestinationRankings();
@@ -98,17 +100,18 @@ public interface DestinationRepository extends JpaRepository<Destination, UUID>
             LEFT JOIN FETCH d.tags
             WHERE s.slug = :stateSlug
             ORDER BY (
-                SELECT COUNT(h)
-                FROM Homestay h
-                WHERE h.destination = d AND h.isDeleted = false
+                SELECT COALESCE(MAX(c.value), 0)
+                FROM AggregateCount c
+                WHERE c.counterKey = CONCAT('homestays:destination:', CAST(d.id AS String))
             ) DESC
             """)
     List<Destination> fetchDestinationRankingsByStateSlug(@Param("stateSlug") String stateSlug);
 
     @Query("""
-            SELECT COUNT(h)
-            FROM Homestay h
-            WHERE h.destination.slug = :slug AND h.isDeleted = false
+            SELECT COALESCE(SUM(c.value), 0)
+            FROM Destination d, AggregateCount c
+            WHERE d.slug = :slug
+              AND c.counterKey = CONCAT('homestays:destination:', CAST(d.id AS String))
             """)
     Long countHomestaysByDestinationSlug(@Param("slug") String slug);
 }
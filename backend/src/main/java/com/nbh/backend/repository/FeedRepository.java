@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Optimized repository for community feed queries.
@@ -200,6 +201,34 @@ public interface FeedRepository extends Repository<Post, UUID> {
         nativeQuery = true)
     List<Object[]> countLikesByPostIds(@Param("postIds") List<UUID> postIds);
 
+    /**
+     * Feed rows for a known set of post IDs (page already selected in memory).
+     * Same column shape as findFeedFirstPage; order is restored by the caller.
+     */
+    @Query(value = """
+        SELECT p.id as postId, p.text_content as textContent, p.created_at as createdAt,
+               u.id as authorId,
+               CONCAT(u.first_name, COALESCE(CONCAT(' ', u.last_name), '')) as authorName,
+               u.avatar_url as authorAvatarUrl, u.role as authorRole, u.is_verified_host as authorVerifiedHost,
+               p.love_count as likeCount, p.share_count as shareCount, p.comment_count as commentCount,
+               h.id as homestayId, h.name as homestayName,
+               p.original_post_id as originalPostId,
+               op.text_content as originalContent,
+               ou.id as originalAuthorId,
+               CONCAT(ou.first_name, COALESCE(CONCAT(' ', ou.last_name), '')) as originalAuthorName,
+               p.helpful_count as helpfulCount,
+               p.last_computed_xp as lastComputedXp
+        FROM posts p
+        INNER JOIN users u ON p.user_id = u.id
+        LEFT JOIN homestays h ON p.homestay_id = h.id
+        LEFT JOIN posts op ON p.original_post_id = op.id
+        LEFT JOIN users ou ON op.user_id = ou.id
+        WHERE p.id IN :postIds
+          AND p.is_deleted = false
+        """,
+        nativeQuery = true)
+    List<Object[]> findFeedRowsByIds(@Param("postIds") List<UUID> postIds);
+
     /**
      * Check which posts are liked by a specific user.
      */
@@ -223,17 +252,6 @@ public interface FeedRepository extends Repository<Post, UUID> {
         nativeQuery = true)
     long countByTag(@Param("tag") String tag);
 
-    /**
-     * Count total posts (for hasMore calculation).
-     */
-    @Query(value = """
-        SELECT COUNT(*)
-        FROM posts p
-        WHERE p.is_deleted = false
-        """,
-        nativeQuery = true)
-    long countAllActive();
-
     @Query(value = """
         SELECT p.id as postId, p.destination_id as destinationId, p.post_type as postType,
                p.view_count as viewCount, p.is_editorial as isEditorial, p.is_featured as isFeatured,
@@ -358,4 +376,263 @@ public interface FeedRepository extends Repository<Post, UUID> {
             @Param("cursorCreatedAt") Instant cursorCreatedAt,
             @Param("cursorId") UUID cursorId,
             @Param("limit") int limit);
+
+    /**
+     * Following feed first page served from the viewer's inbox (fan-out-on-write).
+     * Inbox keyset scan merged with posts from followed pull authors (fan-out-on-read),
+     * then joined to posts by primary key for the page rows only.
+     */
+    @Query(value = """
+        WITH feed_ids AS (
+            (SELECT i.post_id, i.created_at
+             FROM post_timeline_inboxes i
+             WHERE i.follower_user_id = :viewerUserId
+             ORDER BY i.created_at DESC, i.post_id DESC
+             LIMIT :limit)
+            UNION
+            (SELECT pp.id, pp.created_at
+             FROM post_timeline_pull_authors pa
+             INNER JOIN user_follows uf ON uf.followed_user_id = pa.author_id AND uf.follower_user_id = :viewerUserId
+             INNER JOIN posts pp ON pp.user_id = pa.author_id
+             WHERE pp.is_deleted = false
+             ORDER BY pp.created_at DESC, pp.id DESC
+             LIMIT :limit)
+        )
+        SELECT p.id as postId, p.text_content as textContent, p.created_at as createdAt,
+               u.id as authorId,
+               CONCAT(u.first_name, COALESCE(CONCAT(' ', u.last_name), '')) as authorName,
+               u.avatar_url as authorAvatarUrl, u.role as authorRole, u.is_verified_host as authorVerifiedHost,
+               p.love_count as likeCount, p.share_count as shareCount, p.comment_count as commentCount,
+               h.id as homestayId, h.name as homestayName,
+               p.original_post_id as originalPostId,
+               op.text_content as originalContent,
+               ou.id as originalAuthorId,
+               CONCAT(ou.first_name, COALESCE(CONCAT(' ', ou.last_name), '')) as originalAuthorName,
+               p.helpful_count as helpfulCount,
+               p.last_computed_xp as lastComputedXp
+        FROM feed_ids f
+        INNER JOIN posts p ON p.id = f.post_id
+        INNER JOIN users u ON p.user_id = u.id
+        LEFT JOIN homestays h ON p.homestay_id = h.id
+        LEFT JOIN posts op ON p.original_post_id = op.id
+        LEFT JOIN users ou ON op.user_id = ou.id
+        WHERE p.is_deleted = false
+        ORDER BY p.created_at DESC, p.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Object[]> findFollowingInboxFirstPage(@Param("viewerUserId") UUID viewerUserId, @Param("limit") int limit);
+
+    /**
+     * Cursor-based following feed served from the viewer's inbox.
+     */
+    @Query(value = """
+        WITH feed_ids AS (
+            (SELECT i.post_id, i.created_at
+             FROM post_timeline_inboxes i
+             WHERE i.follower_user_id = :viewerUserId
+               AND (i.created_at < :cursorCreatedAt OR (i.created_at = :cursorCreatedAt AND i.post_id < :cursorId))
+             ORDER BY i.created_at DESC, i.post_id DESC
+             LIMIT :limit)
+            UNION
+            (SELECT pp.id, pp.created_at
+             FROM post_timeline_pull_authors pa
+             INNER JOIN user_follows uf ON uf.followed_user_id = pa.author_id AND uf.follower_user_id = :viewerUserId
+             INNER JOIN posts pp ON pp.user_id = pa.author_id
+             WHERE pp.is_deleted = false
+               AND (pp.created_at < :cursorCreatedAt OR (pp.created_at = :cursorCreatedAt AND pp.id < :cursorId))
+             ORDER BY pp.created_at DESC, pp.id DESC
+             LIMIT :limit)
+        )
+        SELECT p.id as postId, p.text_content as textContent, p.created_at as createdAt,
+               u.id as authorId,
+               CONCAT(u.first_name, COALESCE(CONCAT(' ', u.last_name), '')) as authorName,
+               u.avatar_url as authorAvatarUrl, u.role as authorRole, u.is_verified_host as authorVerifiedHost,
+               p.love_count as likeCount, p.share_count as shareCount, p.comment_count as commentCount,
+               h.id as homestayId, h.name as homestayName,
+               p.original_post_id as originalPostId,
+               op.text_content as originalContent,
+               ou.id as originalAuthorId,
+               CONCAT(ou.first_name, COALESCE(CONCAT(' ', ou.last_name), '')) as originalAuthorName,
+               p.helpful_count as helpfulCount,
+               p.last_computed_xp as lastComputedXp
+        FROM feed_ids f
+        INNER JOIN posts p ON p.id = f.post_id
+        INNER JOIN users u ON p.user_id = u.id
+        LEFT JOIN homestays h ON p.homestay_id = h.id
+        LEFT JOIN posts op ON p.original_post_id = op.id
+        LEFT JOIN users ou ON op.user_id = ou.id
+        WHERE p.is_deleted = false
+        ORDER BY p.created_at DESC, p.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Object[]> findFollowingInboxWithCursor(
+            @Param("viewerUserId") UUID viewerUserId,
+            @Param("cursorCreatedAt") Instant cursorCreatedAt,
+            @Param("cursorId") UUID cursorId,
+            @Param("limit") int limit);
+
+    // ── Aggregated (single round-trip) mode ──────────────────────────────
+    // Each statement selects the page in a "page" CTE, then returns the usual
+    // 19 feed columns, the 9 post meta columns and the media/tags lists as JSON
+    // text built with LATERAL json_agg. Used when feed.query.mode=aggregated.
+
+    /**
+     * Shared projection for aggregated feed statements (columns 0-18 match
+     * findFeedFirstPage, 19-27 match findPostMetaByIds, 28 media JSON, 29 tags JSON).
+     */
+    String AGGREGATED_FROM_PAGE = """
+        SELECT p.id as postId, p.text_content as textContent, p.created_at as createdAt,
+               u.id as authorId,
+               CONCAT(u.first_name, COALESCE(CONCAT(' ', u.last_name), '')) as authorName,
+               u.avatar_url as authorAvatarUrl, u.role as authorRole, u.is_verified_host as authorVerifiedHost,
+               p.love_count as likeCount, p.share_count as shareCount, p.comment_count as commentCount,
+               h.id as homestayId, h.name as homestayName,
+               p.original_post_id as originalPostId,
+               op.text_content as originalContent,
+               ou.id as originalAuthorId,
+               CONCAT(ou.first_name, COALESCE(CONCAT(' ', ou.last_name), '')) as originalAuthorName,
+               p.helpful_count as helpfulCount,
+               p.last_computed_xp as lastComputedXp,
+               p.destination_id as destinationId, p.post_type as postType,
+               p.view_count as viewCount, p.is_editorial as isEditorial, p.is_featured as isFeatured,
+               p.is_pinned as isPinned, p.is_trending as isTrending,
+               p.trending_score as trendingScore, p.editorial_score as editorialScore,
+               media.items as mediaJson,
+               tags.items as tagsJson
+        FROM page pg
+        INNER JOIN posts p ON p.id = pg.id
+        INNER JOIN users u ON p.user_id = u.id
+        LEFT JOIN homestays h ON p.homestay_id = h.id
+        LEFT JOIN posts op ON p.original_post_id = op.id
+        LEFT JOIN users ou ON op.user_id = ou.id
+        LEFT JOIN LATERAL (
+            SELECT CAST(json_agg(json_build_object(
+                       'id', m.id, 'url', m.url, 'fileId', m.file_id,
+                       'width', m.width, 'height', m.height) ORDER BY m.id) AS text) as items
+            FROM media_resources m
+            WHERE m.post_id = p.id
+        ) media ON true
+        LEFT JOIN LATERAL (
+            SELECT CAST(json_agg(pt.tag ORDER BY pt.tag) AS text) as items
+            FROM post_tags pt
+            WHERE pt.post_id = p.id
+        ) tags ON true
+        """;
+
+    @Query(value = """
+        WITH page AS (
+            SELECT p.id
+            FROM posts p
+            WHERE p.is_deleted = false
+            ORDER BY p.created_at DESC, p.id DESC
+            LIMIT :limit
+        )
+        """ + AGGREGATED_FROM_PAGE + """
+        ORDER BY p.created_at DESC, p.id DESC
+        """, nativeQuery = true)
+    Stream<Object[]> streamAggregatedFeedFirstPage(@Param("limit") int limit);
+
+    @Query(value = """
+        WITH page AS (
+            SELECT p.id
+            FROM posts p
+            WHERE p.is_deleted = false
+              AND (p.created_at < :cursorCreatedAt
+                   OR (p.created_at = :cursorCreatedAt AND p.id < :cursorId))
+            ORDER BY p.created_at DESC, p.id DESC
+            LIMIT :limit
+        )
+        """ + AGGREGATED_FROM_PAGE + """
+        ORDER BY p.created_at DESC, p.id DESC
+        """, nativeQuery = true)
+    Stream<Object[]> streamAggregatedFeedWithCursor(
+            @Param("cursorCreatedAt") Instant cursorCreatedAt,
+            @Param("cursorId") UUID cursorId,
+            @Param("limit") int limit);
+
+    @Query(value = """
+        WITH page AS (
+            SELECT p.id
+            FROM posts p
+            WHERE p.is_deleted = false
+              AND EXISTS (SELECT 1 FROM post_tags pt WHERE pt.post_id = p.id AND pt.tag = :tag)
+            ORDER BY p.created_at DESC, p.id DESC
+            LIMIT :limit
+        )
+        """ + AGGREGATED_FROM_PAGE + """
+        ORDER BY p.created_at DESC, p.id DESC
+        """, nativeQuery = true)
+    Stream<Object[]> streamAggregatedFeedByTagFirstPage(
+            @Param("tag") String tag,
+            @Param("limit") int limit);
+
+    @Query(value = """
+        WITH page AS (
+            SELECT p.id
+            FROM posts p
+            WHERE p.is_deleted = false
+              AND EXISTS (SELECT 1 FROM post_tags pt WHERE pt.post_id = p.id AND pt.tag = :tag)
+              AND (p.created_at < :cursorCreatedAt
+                   OR (p.created_at = :cursorCreatedAt AND p.id < :cursorId))
+            ORDER BY p.created_at DESC, p.id DESC
+            LIMIT :limit
+        )
+        """ + AGGREGATED_FROM_PAGE + """
+        ORDER BY p.created_at DESC, p.id DESC
+        """, nativeQuery = true)
+    Stream<Object[]> streamAggregatedFeedByTagWithCursor(
+            @Param("tag") String tag,
+            @Param("cursorCreatedAt") Instant cursorCreatedAt,
+            @Param("cursorId") UUID cursorId,
+            @Param("limit") int limit);
+
+    @Query(value = """
+        WITH page AS (
+            SELECT p.id
+            FROM posts p
+            WHERE p.is_deleted = false
+              AND p.trending_score IS NOT NULL
+            ORDER BY p.trending_score DESC, p.created_at DESC, p.id DESC
+            LIMIT :limit
+        )
+        """ + AGGREGATED_FROM_PAGE + """
+        ORDER BY p.trending_score DESC, p.created_at DESC, p.id DESC
+        """, nativeQuery = true)
+    Stream<Object[]> streamAggregatedTrendingFirstPage(@Param("limit") int limit);
+
+    @Query(value = """
+        WITH page AS (
+            SELECT p.id
+            FROM posts p
+            WHERE p.is_deleted = false
+              AND (
+                    p.trending_score < :cursorTrendingScore
+                    OR (p.trending_score = :cursorTrendingScore AND p.created_at < :cursorCreatedAt)
+                    OR (p.trending_score = :cursorTrendingScore AND p.created_at = :cursorCreatedAt AND p.id < :cursorId)
+                  )
+            ORDER BY p.trending_score DESC, p.created_at DESC, p.id DESC
+            LIMIT :limit
+        )
+        """ + AGGREGATED_FROM_PAGE + """
+        ORDER BY p.trending_score DESC, p.created_at DESC, p.id DESC
+        """, nativeQuery = true)
+    Stream<Object[]> streamAggregatedTrendingWithCursor(
+            @Param("cursorTrendingScore") double cursorTrendingScore,
+            @Param("cursorCreatedAt") Instant cursorCreatedAt,
+            @Param("cursorId") UUID cursorId,
+            @Param("limit") int limit);
+
+    /**
+     * Aggregated rows for a page already selected in memory (hot window).
+     * Order is restored by the caller.
+     */
+    @Query(value = """
+        WITH page AS (
+            SELECT p.id
+            FROM posts p
+            WHERE p.id IN :postIds
+              AND p.is_deleted = false
+        )
+        """ + AGGREGATED_FROM_PAGE, nativeQuery = true)
+    List<Object[]> findAggregatedFeedRowsByIds(@Param("postIds") List<UUID> postIds);
 }
@@ -16,7 +16,7 @@ public interface HomestayRepository extends JpaRepository<Homestay, UUID>, Homes
         org.springframework.data.domain.Page<Homestay> findByStatus(Homestay.Status status,
                         org.springframework.data.domain.Pageable pageable);
 
-        @org.springframework.data.jpa.repository.Query("SELECT h FROM Homestay h LEFT JOIN FETCH h.mediaFiles WHERE h.destination.slug = :slug AND h.isDeleted = false")
+        @org.springframework.data.jpa.repository.Query("SELECT h FROM Homestay h WHERE h.destination.slug = :slug AND h.isDeleted = false")
         org.springframework.data.domain.Page<Homestay> findByDestinationSlug(
                         @org.springframework.data.repository.query.Param("slug") String slug,
                         org.springframework.data.domain.Pageable pageable);
@@ -24,10 +24,6 @@ public interface HomestayRepository extends JpaRepository<Homestay, UUID>, Homes
         @org.springframework.data.jpa.repository.Query("SELECT h FROM Homestay h WHERE h.status = :status AND h.isDeleted = false")
         List<Homestay> findByStatus(@org.springframework.data.repository.query.Param("status") Homestay.Status status);
 
-        long countByStatus(Homestay.Status status);
-
-        long countByFeaturedTrue();
-
         org.springframework.data.domain.Page<Homestay> findByOwner(com.nbh.backend.model.User owner,
                         org.springframework.data.domain.Pageable pageable);
 
@@ -35,14 +31,49 @@ public interface HomestayRepository extends JpaRepository<Homestay, UUID>, Homes
         java.util.Optional<Homestay> findByIdWithDetails(
                         @org.springframework.data.repository.query.Param("id") UUID id);
 
-        @Modifying
-        @Query(value = "UPDATE homestays SET view_count = COALESCE(view_count, 0) + 1 WHERE id = :id", nativeQuery = true)
-        int incrementViewCount(@Param("id") UUID id);
+        /**
+         * Copy the first media row (by id) of each homestay onto its cover_image_* columns.
+         * Called after the homestay's media_resources rows are written.
+         */
+        @Modifying(flushAutomatically = true)
+        @Query(value = """
+                        UPDATE homestays h
+                        SET (cover_image_url, cover_image_width, cover_image_height) = (
+                            SELECT mr.url, mr.width, mr.height
+                            FROM media_resources mr
+                            WHERE mr.homestay_id = h.id
+                            ORDER BY mr.id ASC
+                            LIMIT 1)
+                        WHERE h.id IN (:ids)
+                        """, nativeQuery = true)
+        int refreshCoverImages(@Param("ids") java.util.Collection<UUID> ids);
 
         @Modifying
         @Query(value = "UPDATE homestays SET inquiry_count = COALESCE(inquiry_count, 0) + 1 WHERE id = :id", nativeQuery = true)
         int incrementInquiryCount(@Param("id") UUID id);
 
+        /**
+         * Typeahead rows of approved listings: id, name, destination name, view_count, inquiry_count.
+         */
+        @Query(value = """
+                        SELECT h.id, h.name, d.name AS destination_name,
+                               COALESCE(h.view_count, 0), COALESCE(h.inquiry_count, 0)
+                        FROM homestays h
+                        LEFT JOIN destinations d ON d.id = h.destination_id
+                        WHERE h.is_deleted = false AND h.status = 'APPROVED'
+                        """, nativeQuery = true)
+        List<Object[]> findSuggestionRows();
+
+        // Separate query rather than a nullable id: untyped null parameters fail on Postgres
+        @Query(value = """
+                        SELECT h.id, h.name, d.name AS destination_name,
+                               COALESCE(h.view_count, 0), COALESCE(h.inquiry_count, 0)
+                        FROM homestays h
+                        LEFT JOIN destinations d ON d.id = h.destination_id
+                        WHERE h.is_deleted = false AND h.status = 'APPROVED' AND h.id = :id
+                        """, nativeQuery = true)
+        List<Object[]> findSuggestionRowsById(@Param("id") UUID id);
+
         /**
          * Hard delete ALL homestays, bypassing @SQLDelete (soft-delete).
          * Must be called AFTER media_resources and reviews are deleted (no CASCADE on those FKs).
@@ -1,7 +1,12 @@
 package com.nbh.backend.repository;
 
 import com.nbh.backend.dto.SearchCardDto;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,4 +16,54 @@ public interface HomestayRepositoryCustom {
             Boolean isFeatured,
             Double minLat, Double maxLat, Double minLng, Double maxLng,
             Pageable pageable);
+
+    /**
+     * Up to {@code limit} cards strictly after {@code after} in search order, from the top when null.
+     */
+    List<KeyedCard> searchCardsAfter(SearchFilter filter, SortKey after, int limit);
+
+    long countCards(SearchFilter filter);
+
+    /**
+     * Number of matches, counting no further than {@code cap}.
+     */
+    long countCardsUpTo(SearchFilter filter, long cap);
+
+    /**
+     * Planner row estimate for the matches; empty when the database cannot provide one.
+     */
+    OptionalLong estimateCards(SearchFilter filter);
+
+    /**
+     * Approved listings as search cards, with the fields the in-memory search engine filters
+     * and orders on. Only {@code ids} when given, otherwise every approved listing.
+     */
+    List<SearchDocument> findSearchDocuments(Collection<UUID> ids);
+
+    record SearchFilter(String query, Map<String, Boolean> amenities, String tag, String stateSlug,
+            Boolean isFeatured, Double minLat, Double maxLat, Double minLng, Double maxLng) {
+
+        public boolean hasQuery() {
+            return query != null && !query.isBlank();
+        }
+
+        public boolean hasBounds() {
+            return minLat != null && maxLat != null && minLng != null && maxLng != null;
+        }
+    }
+
+    /**
+     * Position of a card in search order: featured, demand bucket, popularity bucket,
+     * text rank, value rating, created_at and id, all descending.
+     */
+    record SortKey(boolean featured, int demand, int popular, double rank, double rating,
+            LocalDateTime createdAt, UUID id) {
+    }
+
+    record KeyedCard(SearchCardDto card, SortKey key) {
+    }
+
+    record SearchDocument(SearchCardDto card, LocalDateTime createdAt, long viewCount, long inquiryCount,
+            String tagsJson, String amenitiesJson) {
+    }
 }
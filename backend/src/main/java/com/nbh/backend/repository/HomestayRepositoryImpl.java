@@ -13,10 +13,14 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Repository
@@ -41,51 +45,183 @@ public class HomestayRepositoryImpl implements HomestayRepositoryCustom {
         return Long.parseLong(environment.getProperty("homestay.signals.highDemandViewThreshold", "200"));
     }
 
+    private static final String CARD_COLUMNS =
+            "SELECT h.id, h.name, h.description, h.price_per_night, h.latitude, h.longitude, h.address, " +
+                    "h.created_at, h.view_count, h.inquiry_count, " +
+                    "h.vibe_score, h.avg_atmosphere_rating, h.avg_service_rating, h.avg_accuracy_rating, h.avg_value_rating, h.total_reviews, " +
+                    "h.status, h.owner_id, h.featured, " +
+                    "d.id AS destination_id, d.slug AS destination_slug, d.name AS destination_name, d.district, d.hero_title, d.description AS destination_description, d.local_image_name, " +
+                    "s.name AS state_name, s.slug AS state_slug, " +
+                    "u.id AS host_id, u.first_name, u.last_name, u.role, u.avatar_url, u.is_verified_host, " +
+                    "h.cover_image_url, h.cover_image_width, h.cover_image_height ";
+
+    // Sort key (or search document) columns follow the card columns
+    private static final int SORT_KEY_OFFSET = 37;
+
+    private static final String FILTER_FROM =
+            "FROM homestays h " +
+                    "LEFT JOIN destinations d ON h.destination_id = d.id " +
+                    "LEFT JOIN states s ON d.state_id = s.id ";
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*([0-9.eE+]+)");
+
     @Override
     public Page<SearchCardDto> searchCards(String searchQuery, Map<String, Boolean> amenities, String tag, String stateSlug,
             Boolean isFeatured,
             Double minLat, Double maxLat, Double minLng, Double maxLng,
             Pageable pageable) {
-        StringBuilder sql = new StringBuilder(
-                "SELECT h.id, h.name, h.description, h.price_per_night, h.latitude, h.longitude, h.address, " +
-                        "h.created_at, h.view_count, h.inquiry_count, " +
-                        "h.vibe_score, h.avg_atmosphere_rating, h.avg_service_rating, h.avg_accuracy_rating, h.avg_value_rating, h.total_reviews, " +
-                        "h.status, h.owner_id, h.featured, " +
-                        "d.id AS destination_id, d.slug AS destination_slug, d.name AS destination_name, d.district, d.hero_title, d.description AS destination_description, d.local_image_name, " +
-                        "s.name AS state_name, s.slug AS state_slug, " +
-                        "u.id AS host_id, u.first_name, u.last_name, u.role, u.avatar_url, u.is_verified_host, " +
-                        "(SELECT mr.url FROM media_resources mr WHERE mr.homestay_id = h.id ORDER BY mr.id ASC LIMIT 1) AS cover_image_url " +
-                        "FROM homestays h " +
-                        "LEFT JOIN destinations d ON h.destination_id = d.id " +
-                        "LEFT JOIN states s ON d.state_id = s.id " +
-                        "LEFT JOIN users u ON h.owner_id = u.id ");
-        StringBuilder countSql = new StringBuilder(
-                "SELECT COUNT(h.id) FROM homestays h " +
-                        "LEFT JOIN destinations d ON h.destination_id = d.id " +
-                        "LEFT JOIN states s ON d.state_id = s.id ");
-
-        sql.append("WHERE h.is_deleted = false AND h.status = 'APPROVED' ");
-        countSql.append("WHERE h.is_deleted = false AND h.status = 'APPROVED' ");
-
-        StringBuilder conditions = new StringBuilder();
+        SearchFilter filter = new SearchFilter(searchQuery, amenities, tag, stateSlug, isFeatured,
+                minLat, maxLat, minLng, maxLng);
+        boolean isH2 = isH2Database();
+
+        String sql = CARD_COLUMNS + FILTER_FROM +
+                "LEFT JOIN users u ON h.owner_id = u.id " +
+                searchConditions(filter, isH2) +
+                "ORDER BY " + String.join(" DESC, ", sortKeyExpressions(filter, isH2)) + " DESC " +
+                "LIMIT :limit OFFSET :offset";
+
+        Query nativeQuery = entityManager.createNativeQuery(sql);
+        bindSearchParameters(nativeQuery, filter, isH2);
+        nativeQuery.setParameter("limit", pageable.getPageSize());
+        nativeQuery.setParameter("offset", pageable.getOffset());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = nativeQuery.getResultList();
+        long total = countCards(filter);
+
+        List<SearchCardDto> cards = rows.stream()
+                .map(this::mapRowToSearchCard)
+                .toList();
+
+        return new PageImpl<>(cards, pageable, total);
+    }
+
+    @Override
+    public List<KeyedCard> searchCardsAfter(SearchFilter filter, SortKey after, int limit) {
         boolean isH2 = isH2Database();
+        List<String> keys = sortKeyExpressions(filter, isH2);
+
+        StringBuilder sql = new StringBuilder(CARD_COLUMNS)
+                .append(", ").append(String.join(", ", keys)).append(' ')
+                .append(FILTER_FROM)
+                .append("LEFT JOIN users u ON h.owner_id = u.id ")
+                .append(searchConditions(filter, isH2));
+        if (after != null) {
+            // Row comparison: every key sorts descending, so "after" is lexicographically smaller
+            sql.append("AND (").append(String.join(", ", keys)).append(") < ")
+                    .append("(:kFeatured, :kDemand, :kPopular, :kRank, :kRating, :kCreatedAt, :kId) ");
+        }
+        sql.append("ORDER BY ").append(String.join(" DESC, ", keys)).append(" DESC ")
+                .append("LIMIT :limit");
+
+        Query nativeQuery = entityManager.createNativeQuery(sql.toString());
+        bindSearchParameters(nativeQuery, filter, isH2);
+        if (after != null) {
+            nativeQuery.setParameter("kFeatured", after.featured());
+            nativeQuery.setParameter("kDemand", after.demand());
+            nativeQuery.setParameter("kPopular", after.popular());
+            nativeQuery.setParameter("kRank", after.rank());
+            nativeQuery.setParameter("kRating", after.rating());
+            nativeQuery.setParameter("kCreatedAt", after.createdAt());
+            nativeQuery.setParameter("kId", after.id());
+        }
+        nativeQuery.setParameter("limit", limit);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = nativeQuery.getResultList();
+        return rows.stream()
+                .map(row -> new KeyedCard(mapRowToSearchCard(row), mapRowToSortKey(row)))
+                .toList();
+    }
+
+    @Override
+    public long countCards(SearchFilter filter) {
+        boolean isH2 = isH2Database();
+        Query countQuery = entityManager.createNativeQuery(
+                "SELECT COUNT(h.id) " + FILTER_FROM + searchConditions(filter, isH2));
+        bindSearchParameters(countQuery, filter, isH2);
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+
+    @Override
+    public long countCardsUpTo(SearchFilter filter, long cap) {
+        boolean isH2 = isH2Database();
+        Query countQuery = entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM (SELECT 1 " + FILTER_FROM + searchConditions(filter, isH2) +
+                        "LIMIT :cap) capped");
+        bindSearchParameters(countQuery, filter, isH2);
+        countQuery.setParameter("cap", cap);
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+
+    @Override
+    public OptionalLong estimateCards(SearchFilter filter) {
+        if (isH2Database()) {
+            return OptionalLong.empty();
+        }
+        Query explainQuery = entityManager.createNativeQuery(
+                "EXPLAIN (FORMAT JSON) SELECT 1 " + FILTER_FROM + searchConditions(filter, false));
+        bindSearchParameters(explainQuery, filter, false);
+        Object plan = explainQuery.getSingleResult();
+        Matcher matcher = plan == null ? null : PLAN_ROWS.matcher(plan.toString());
+        if (matcher == null || !matcher.find()) {
+            return OptionalLong.empty();
+        }
+        // The first "Plan Rows" belongs to the top node, i.e. the whole result
+        return OptionalLong.of(Math.round(Double.parseDouble(matcher.group(1))));
+    }
+
+    @Override
+    public List<SearchDocument> findSearchDocuments(Collection<UUID> ids) {
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        String jsonText = isH2Database() ? "VARCHAR" : "TEXT";
+        String sql = CARD_COLUMNS +
+                ", CAST(h.tags AS " + jsonText + "), CAST(h.amenities AS " + jsonText + ") " +
+                FILTER_FROM +
+                "LEFT JOIN users u ON h.owner_id = u.id " +
+                "WHERE h.is_deleted = false AND h.status = 'APPROVED' " +
+                (ids != null ? "AND h.id IN (:ids)" : "");
+
+        Query nativeQuery = entityManager.createNativeQuery(sql);
+        if (ids != null) {
+            nativeQuery.setParameter("ids", ids);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = nativeQuery.getResultList();
+        return rows.stream()
+                .map(row -> new SearchDocument(
+                        mapRowToSearchCard(row),
+                        toLocalDateTime(row[7]),
+                        Objects.requireNonNullElse(toLong(row[8]), 0L),
+                        Objects.requireNonNullElse(toLong(row[9]), 0L),
+                        row[SORT_KEY_OFFSET] == null ? null : row[SORT_KEY_OFFSET].toString(),
+                        row[SORT_KEY_OFFSET + 1] == null ? null : row[SORT_KEY_OFFSET + 1].toString()))
+                .toList();
+    }
 
-        if (Boolean.TRUE.equals(isFeatured)) {
+    private String searchConditions(SearchFilter filter, boolean isH2) {
+        StringBuilder conditions = new StringBuilder("WHERE h.is_deleted = false AND h.status = 'APPROVED' ");
+
+        if (Boolean.TRUE.equals(filter.isFeatured())) {
             conditions.append("AND h.featured = true ");
-        } else if (Boolean.FALSE.equals(isFeatured)) {
+        } else if (Boolean.FALSE.equals(filter.isFeatured())) {
             conditions.append("AND (h.featured = false OR h.featured IS NULL) ");
         }
 
-        if (searchQuery != null && !searchQuery.isBlank()) {
+        if (filter.hasQuery()) {
             if (isH2) {
                 conditions.append(
                         "AND (LOWER(COALESCE(h.name, '')) LIKE LOWER(:queryLike) OR LOWER(COALESCE(h.description, '')) LIKE LOWER(:queryLike) OR LOWER(COALESCE(h.address, '')) LIKE LOWER(:queryLike)) ");
             } else {
-                conditions.append(
-                        "AND (to_tsvector('english', COALESCE(h.name, '') || ' ' || COALESCE(h.description, '') || ' ' || COALESCE(h.address, '')) @@ plainto_tsquery('english', :query)) ");
+                // Stored weighted vector (V8), served by its GIN index
+                conditions.append("AND h.search_vector @@ plainto_tsquery('english', :query) ");
             }
         }
 
+        Map<String, Boolean> amenities = filter.amenities();
         if (amenities != null && !amenities.isEmpty()) {
             for (String key : amenities.keySet()) {
                 if (Boolean.TRUE.equals(amenities.get(key))) {
@@ -99,7 +235,7 @@ public class HomestayRepositoryImpl implements HomestayRepositoryCustom {
             }
         }
 
-        if (tag != null && !tag.isBlank()) {
+        if (filter.tag() != null && !filter.tag().isBlank()) {
             if (isH2) {
                 conditions.append("AND (CAST(h.tags AS VARCHAR) LIKE :tagLike OR LOWER(h.address) LIKE LOWER(:tagLike)) ");
             } else {
@@ -107,110 +243,81 @@ public class HomestayRepositoryImpl implements HomestayRepositoryCustom {
             }
         }
 
-        if (minLat != null && maxLat != null && minLng != null && maxLng != null) {
+        if (filter.hasBounds()) {
             conditions.append("AND h.latitude BETWEEN :minLat AND :maxLat ")
                     .append("AND h.longitude BETWEEN :minLng AND :maxLng ");
         }
 
-        if (stateSlug != null && !stateSlug.isBlank()) {
+        if (filter.stateSlug() != null && !filter.stateSlug().isBlank()) {
             conditions.append("AND s.slug = :stateSlug ");
         }
+        return conditions.toString();
+    }
 
-        sql.append(conditions);
-        countSql.append(conditions);
-
-        long popularThreshold2 = popularInquiryThreshold();
-        long demandThreshold2 = highDemandViewThreshold();
-        if (searchQuery != null && !searchQuery.isBlank()) {
-            if (isH2) {
-                sql.append("ORDER BY ")
-                        .append("COALESCE(h.featured, false) DESC, ")
-                        .append("CASE WHEN COALESCE(h.view_count, 0) >= ").append(demandThreshold2).append(" THEN 1 ELSE 0 END DESC, ")
-                        .append("CASE WHEN COALESCE(h.inquiry_count, 0) >= ").append(popularThreshold2).append(" THEN 1 ELSE 0 END DESC, ")
-                        .append("COALESCE(h.avg_value_rating, 0) DESC, ")
-                        .append("COALESCE(h.created_at, CURRENT_TIMESTAMP) DESC ");
-            } else {
-                sql.append("ORDER BY ")
-                        .append("COALESCE(h.featured, false) DESC, ")
-                        .append("CASE WHEN COALESCE(h.view_count, 0) >= ").append(demandThreshold2).append(" THEN 1 ELSE 0 END DESC, ")
-                        .append("CASE WHEN COALESCE(h.inquiry_count, 0) >= ").append(popularThreshold2).append(" THEN 1 ELSE 0 END DESC, ")
-                        .append("(ts_rank(to_tsvector('english', COALESCE(h.name, '') || ' ' || COALESCE(h.description, '') || ' ' || COALESCE(h.address, '')), plainto_tsquery('english', :query)) * 0.4 + COALESCE(h.vibe_score, 0) * 0.4) DESC, ")
-                        .append("COALESCE(h.avg_value_rating, 0) DESC, ")
-                        .append("COALESCE(h.created_at, NOW()) DESC ");
-            }
-        } else {
-            sql.append("ORDER BY ")
-                    .append("COALESCE(h.featured, false) DESC, ")
-                    .append("CASE WHEN COALESCE(h.view_count, 0) >= ").append(demandThreshold2).append(" THEN 1 ELSE 0 END DESC, ")
-                    .append("CASE WHEN COALESCE(h.inquiry_count, 0) >= ").append(popularThreshold2).append(" THEN 1 ELSE 0 END DESC, ")
-                    .append("COALESCE(h.avg_value_rating, 0) DESC, ")
-                    .append("COALESCE(h.created_at, NOW()) DESC ");
-        }
-        sql.append("LIMIT :limit OFFSET :offset");
-
-        Query nativeQuery = entityManager.createNativeQuery(sql.toString());
-        Query nativeCountQuery = entityManager.createNativeQuery(countSql.toString());
-
-        bindSearchParameters(nativeQuery, nativeCountQuery, searchQuery, tag, stateSlug, minLat, maxLat, minLng, maxLng, isH2);
-
-        nativeQuery.setParameter("limit", pageable.getPageSize());
-        nativeQuery.setParameter("offset", pageable.getOffset());
-
-        @SuppressWarnings("unchecked")
-        List<Object[]> rows = nativeQuery.getResultList();
-        long total = ((Number) nativeCountQuery.getSingleResult()).longValue();
-
-        List<SearchCardDto> cards = rows.stream()
-                .map(this::mapRowToSearchCard)
-                .toList();
-
-        return new PageImpl<>(cards, pageable, total);
+    /**
+     * Search order as SQL expressions, in {@link SortKey} order. Every key sorts descending.
+     * The text rank only applies to Postgres queries; elsewhere it is a constant.
+     *
+     * search_vector is weighted (name A, address B, description C), so ts_rank scores name and
+     * address hits up to 10x and 4x what the old unweighted vector gave. Against
+     * {@code vibe_score * 0.4} text relevance now moves listings noticeably; see
+     * scripts/bench-homestay-search.sql for the top-12 overlap.
+     */
+    private List<String> sortKeyExpressions(SearchFilter filter, boolean isH2) {
+        String rank = filter.hasQuery() && !isH2
+                ? "(ts_rank(h.search_vector, plainto_tsquery('english', :query)) * 0.4 + COALESCE(h.vibe_score, 0) * 0.4)"
+                : "CAST(0 AS DOUBLE PRECISION)";
+        return List.of(
+                "COALESCE(h.featured, false)",
+                "CASE WHEN COALESCE(h.view_count, 0) >= " + highDemandViewThreshold() + " THEN 1 ELSE 0 END",
+                "CASE WHEN COALESCE(h.inquiry_count, 0) >= " + popularInquiryThreshold() + " THEN 1 ELSE 0 END",
+                rank,
+                "COALESCE(h.avg_value_rating, 0)",
+                "h.created_at",
+                "h.id");
     }
 
-    private void bindSearchParameters(Query nativeQuery, Query nativeCountQuery, String searchQuery, String tag,
-            String stateSlug, Double minLat, Double maxLat, Double minLng, Double maxLng, boolean isH2) {
-        if (searchQuery != null && !searchQuery.isBlank()) {
+    private void bindSearchParameters(Query query, SearchFilter filter, boolean isH2) {
+        if (filter.hasQuery()) {
             if (isH2) {
-                String queryLike = "%" + searchQuery + "%";
-                nativeQuery.setParameter("queryLike", queryLike);
-                nativeCountQuery.setParameter("queryLike", queryLike);
+                query.setParameter("queryLike", "%" + filter.query() + "%");
             } else {
-                nativeQuery.setParameter("query", searchQuery);
-                nativeCountQuery.setParameter("query", searchQuery);
+                query.setParameter("query", filter.query());
             }
         }
 
+        String tag = filter.tag();
         if (tag != null && !tag.isBlank()) {
-            String tagLike = "%" + tag + "%";
-            if (isH2) {
-                nativeQuery.setParameter("tagLike", tagLike);
-                nativeCountQuery.setParameter("tagLike", tagLike);
-            } else {
-                String tagJson = "[\"" + tag.replace("\"", "\\\"") + "\"]";
-                nativeQuery.setParameter("tagJson", tagJson);
-                nativeQuery.setParameter("tagLike", tagLike);
-                nativeCountQuery.setParameter("tagJson", tagJson);
-                nativeCountQuery.setParameter("tagLike", tagLike);
+            query.setParameter("tagLike", "%" + tag + "%");
+            if (!isH2) {
+                query.setParameter("tagJson", "[\"" + tag.replace("\"", "\\\"") + "\"]");
             }
         }
 
-        if (stateSlug != null && !stateSlug.isBlank()) {
-            nativeQuery.setParameter("stateSlug", stateSlug);
-            nativeCountQuery.setParameter("stateSlug", stateSlug);
+        if (filter.stateSlug() != null && !filter.stateSlug().isBlank()) {
+            query.setParameter("stateSlug", filter.stateSlug());
         }
 
-        if (minLat != null && maxLat != null && minLng != null && maxLng != null) {
-            nativeQuery.setParameter("minLat", minLat);
-            nativeQuery.setParameter("maxLat", maxLat);
-            nativeQuery.setParameter("minLng", minLng);
-            nativeQuery.setParameter("maxLng", maxLng);
-            nativeCountQuery.setParameter("minLat", minLat);
-            nativeCountQuery.setParameter("maxLat", maxLat);
-            nativeCountQuery.setParameter("minLng", minLng);
-            nativeCountQuery.setParameter("maxLng", maxLng);
+        if (filter.hasBounds()) {
+            query.setParameter("minLat", filter.minLat());
+            query.setParameter("maxLat", filter.maxLat());
+            query.setParameter("minLng", filter.minLng());
+            query.setParameter("maxLng", filter.maxLng());
         }
     }
 
+    private SortKey mapRowToSortKey(Object[] row) {
+        int i = SORT_KEY_OFFSET;
+        return new SortKey(
+                Boolean.TRUE.equals(toBoolean(row[i++])),
+                toInteger(row[i++]),
+                toInteger(row[i++]),
+                toDouble(row[i++]),
+                toDouble(row[i++]),
+                toLocalDateTime(row[i++]),
+                toUUID(row[i]));
+    }
+
     private SearchCardDto mapRowToSearchCard(Object[] row) {
         int i = 0;
         UUID id = toUUID(row[i++]);
@@ -249,7 +356,9 @@ public class HomestayRepositoryImpl implements HomestayRepositoryCustom {
         i++;
         String hostAvatarUrl = (String) row[i++];
         Boolean hostVerified = toBoolean(row[i++]);
-        String coverImageUrl = (String) row[i];
+        String coverImageUrl = (String) row[i++];
+        Integer coverImageWidth = toInteger(row[i++]);
+        Integer coverImageHeight = toInteger(row[i]);
 
         List<com.nbh.backend.dto.HomestayDto.TrustSignal> trustSignals = computeTrustSignals(
                 createdAt,
@@ -296,6 +405,8 @@ public class HomestayRepositoryImpl implements HomestayRepositoryCustom {
                 .hostAvatarUrl(hostAvatarUrl)
                 .hostVerified(hostVerified)
                 .coverImageUrl(coverImageUrl)
+                .coverImageWidth(coverImageWidth)
+                .coverImageHeight(coverImageHeight)
                 .build();
     }
 
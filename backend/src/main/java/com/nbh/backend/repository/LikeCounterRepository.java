@@ -0,0 +1,60 @@
+package com.nbh.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applies accumulated like deltas to posts.love_count and the matching timeline rows
+ * with one statement per chunk. All chunks of one call commit together.
+ */
+@Repository
+public class LikeCounterRepository {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LikeCounterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the stored love_count of every updated post after its delta was applied
+     */
+    @Transactional
+    public Map<UUID, Integer> addLoveCounts(Map<UUID, Long> deltas) {
+        List<Map.Entry<UUID, Long>> entries = new ArrayList<>(deltas.entrySet());
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Map.Entry<UUID, Long>> chunk = entries.subList(from, Math.min(entries.size(), from + MAX_ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder("WITH v(id, delta) AS (VALUES ");
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(CAST(? AS uuid), CAST(? AS integer))");
+                args[i * 2] = chunk.get(i).getKey();
+                args[i * 2 + 1] = chunk.get(i).getValue();
+            }
+            sql.append("), updated AS (")
+                    .append(" UPDATE posts AS p SET love_count = GREATEST(0, COALESCE(p.love_count, 0) + v.delta)")
+                    .append(" FROM v WHERE p.id = v.id")
+                    .append(" RETURNING p.id, p.love_count")
+                    .append("), timeline AS (")
+                    .append(" UPDATE post_timelines_global AS t SET like_count = u.love_count")
+                    .append(" FROM updated u WHERE t.post_id = u.id")
+                    .append(") SELECT id, love_count FROM updated");
+            jdbcTemplate.query(sql.toString(),
+                    rs -> {
+                        counts.put(rs.getObject(1, UUID.class), rs.getInt(2));
+                    },
+                    args);
+        }
+        return counts;
+    }
+}
@@ -24,6 +24,10 @@ public interface PostLikeRepository extends JpaRepository<PostLike, PostLike.Pos
     @Query(value = "INSERT INTO post_likes (post_id, user_id, liked_at) VALUES (:postId, :userId, NOW()) ON CONFLICT (post_id, user_id) DO NOTHING", nativeQuery = true)
     int insertLikeIgnoreConflict(@Param("postId") UUID postId, @Param("userId") UUID userId);
 
+    @Modifying
+    @Query(value = "DELETE FROM post_likes WHERE post_id = :postId AND user_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("postId") UUID postId, @Param("userId") UUID userId);
+
     @Query("SELECT pl.postId FROM PostLike pl WHERE pl.userId = :userId")
     java.util.List<UUID> findLikedPostIdsByUserId(@Param("userId") UUID userId);
 
@@ -139,9 +139,32 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
         List<UUID> findLikedPostIds(@Param("userId") UUID userId, @Param("postIds") List<UUID> postIds);
 
         /**
-         * Optimized projection query for posts search by location name.
+         * Posts whose location or text contains {@code :pattern} (LIKE-escaped) or is trigram-similar
+         * to {@code :query}, scored by similarity plus a recency boost of at most {@code :recencyBoost}
+         * that halves at {@code :recencyHalfLifeDays} of age as of {@code :asOf}. The boost is bounded so
+         * similarity still decides, and fixed per {@code :asOf} so the score can key a cursor.
+         * Every predicate is served by the trigram indexes of V10. Columns: id, created_at, search_score.
          */
-        @Query(value = """
+        String SEARCH_MATCHES = """
+                SELECT p.id, p.created_at,
+                       CAST(GREATEST(COALESCE(similarity(p.location_name, :query), 0),
+                                     COALESCE(word_similarity(:query, p.text_content), 0) * 0.8) AS DOUBLE PRECISION)
+                       + :recencyBoost / (1 + GREATEST(0, CAST(EXTRACT(EPOCH FROM (CAST(:asOf AS timestamptz) - p.created_at))
+                                                                 AS DOUBLE PRECISION)) / 86400.0 / :recencyHalfLifeDays)
+                           AS search_score
+                FROM posts p
+                WHERE p.is_deleted = false
+                  AND (p.location_name ILIKE CONCAT('%', :pattern, '%')
+                       OR p.text_content ILIKE CONCAT('%', :pattern, '%')
+                       OR p.location_name % :query
+                       OR :query <% p.text_content)
+                """;
+
+        /**
+         * Projection of the rows picked by the inner query {@code m}, in the column order of the other
+         * post projections, with search_score appended. Tags are aggregated for the page only.
+         */
+        String SEARCH_PAGE_SELECT = """
                 SELECT p.id AS id,
                        p.location_name AS locationName,
                        p.text_content AS textContent,
@@ -159,7 +182,7 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
                        p.destination_id AS destinationId,
                        p.post_type AS postType,
                        p.original_post_id AS originalPostId,
-                       (SELECT COUNT(c.id) FROM comments c WHERE c.post_id = p.id) AS commentCount,
+                       p.comment_count AS commentCount,
                        (SELECT COALESCE(json_agg(pt.tag), '[]'::json) FROM post_tags pt WHERE pt.post_id = p.id) AS tags,
                        p.view_count AS viewCount,
                        p.is_editorial AS isEditorial,
@@ -167,16 +190,48 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
                        p.is_pinned AS isPinned,
                        p.is_trending AS isTrending,
                        p.trending_score AS trendingScore,
-                       p.editorial_score AS editorialScore
-                FROM posts p
+                       p.editorial_score AS editorialScore,
+                       m.search_score AS searchScore
+                FROM (
+                """;
+
+        String SEARCH_PAGE_FROM = """
+                ) m
+                INNER JOIN posts p ON p.id = m.id
                 INNER JOIN users u ON p.user_id = u.id
                 LEFT JOIN homestays h ON p.homestay_id = h.id
-                WHERE p.is_deleted = false AND LOWER(p.location_name) LIKE LOWER(CONCAT('%', :query, '%'))
-                ORDER BY p.created_at DESC
-                """,
-                countQuery = "SELECT COUNT(*) FROM posts WHERE is_deleted = false AND LOWER(location_name) LIKE LOWER(CONCAT('%', :query, '%'))",
+                ORDER BY m.search_score DESC, m.created_at DESC, m.id DESC
+                """;
+
+        /**
+         * First {@code limit} post search results, best first.
+         */
+        @Query(value = SEARCH_PAGE_SELECT
+                + "SELECT s.* FROM (" + SEARCH_MATCHES + ") s "
+                + "ORDER BY s.search_score DESC, s.created_at DESC, s.id DESC LIMIT :limit"
+                + SEARCH_PAGE_FROM,
+                nativeQuery = true)
+        List<Object[]> searchPostProjections(@Param("query") String query, @Param("pattern") String pattern,
+                        @Param("recencyBoost") double recencyBoost,
+                        @Param("recencyHalfLifeDays") double recencyHalfLifeDays,
+                        @Param("asOf") java.time.Instant asOf, @Param("limit") int limit);
+
+        /**
+         * Up to {@code limit} post search results strictly after the given (score, created_at, id).
+         * Separate query rather than nullable cursor parameters: untyped nulls fail on Postgres.
+         */
+        @Query(value = SEARCH_PAGE_SELECT
+                + "SELECT s.* FROM (" + SEARCH_MATCHES + ") s "
+                + "WHERE (s.search_score, s.created_at, s.id) < (:afterScore, :afterCreatedAt, :afterId) "
+                + "ORDER BY s.search_score DESC, s.created_at DESC, s.id DESC LIMIT :limit"
+                + SEARCH_PAGE_FROM,
                 nativeQuery = true)
-        Page<Object[]> searchPostProjections(@Param("query") String query, Pageable pageable);
+        List<Object[]> searchPostProjectionsAfter(@Param("query") String query, @Param("pattern") String pattern,
+                        @Param("recencyBoost") double recencyBoost,
+                        @Param("recencyHalfLifeDays") double recencyHalfLifeDays,
+                        @Param("asOf") java.time.Instant asOf,
+                        @Param("afterScore") double afterScore, @Param("afterCreatedAt") java.time.Instant afterCreatedAt,
+                        @Param("afterId") UUID afterId, @Param("limit") int limit);
 
         /**
          * Optimized projection query for posts by user ID.
@@ -230,16 +285,6 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
                 """)
         List<Post> findPostsNotInTimeline();
 
-        @Transactional
-        @Modifying
-        @Query(value = "UPDATE posts SET love_count = love_count + 1 WHERE id = :postId", nativeQuery = true)
-        int incrementLoveCount(@Param("postId") UUID postId);
-
-        @Transactional
-        @Modifying(clearAutomatically = true, flushAutomatically = true)
-        @Query(value = "UPDATE posts SET love_count = GREATEST(love_count - 1, 0) WHERE id = :postId", nativeQuery = true)
-        int decrementLoveCount(@Param("postId") UUID postId);
-
         @Transactional
         @Modifying(clearAutomatically = true, flushAutomatically = true)
         @Query(value = "UPDATE posts SET comment_count = comment_count + 1 WHERE id = :postId", nativeQuery = true)
@@ -255,15 +300,111 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
         @Query(value = "UPDATE posts SET share_count = COALESCE(share_count, 0) + 1 WHERE id = :postId", nativeQuery = true)
         int incrementShareCount(@Param("postId") UUID postId);
 
+
+        // ── Set-based trending engine ────────────────────────────────
+        // Must match TrendingIndex.score: engagement + 24 / max(1, whole hours of age)
+        String TRENDING_SCORE_SQL = """
+                        GREATEST(0,
+                            p.love_count * 3.0 + p.comment_count * 4.0 + p.share_count * 5.0 + p.view_count * 0.2
+                            + 24.0 / GREATEST(1, FLOOR(EXTRACT(EPOCH FROM (CAST(:now AS timestamptz) - p.created_at)) / 3600)))
+                        """;
+
+        /**
+         * Recompute the scores of posts whose engagement changed and snapshot those
+         * that moved at least {@code epsilon} since their latest history row.
+         *
+         * @return number of history rows written
+         */
+        @Transactional
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
+        @Query(value = """
+                        WITH updated AS (
+                            UPDATE posts p
+                            SET trending_score =""" + TRENDING_SCORE_SQL + """
+                                , trending_computed_at = :now
+                            WHERE p.id IN (:postIds) AND p.is_deleted = false
+                            RETURNING p.id, p.trending_score
+                        )
+                        INSERT INTO post_trending_history (post_id, trending_score, computed_at)
+                        SELECT u.id, u.trending_score, :now
+                        FROM updated u
+                        LEFT JOIN LATERAL (
+                            SELECT h.trending_score FROM post_trending_history h
+                            WHERE h.post_id = u.id
+                            ORDER BY h.computed_at DESC
+                            LIMIT 1
+                        ) last ON true
+                        WHERE last.trending_score IS NULL
+                           OR ABS(last.trending_score - u.trending_score) >= :epsilon
+                        """, nativeQuery = true)
+        int recomputeTrendingScores(@Param("postIds") java.util.Collection<UUID> postIds,
+                        @Param("now") java.time.Instant now,
+                        @Param("epsilon") double epsilon);
+
+        /**
+         * Age untouched posts: only the recency term changes, so the score is recomputed in SQL
+         * and written (with a history row) only where it moved by at least {@code epsilon}.
+         * Unless {@code fullScan}, posts last scored after they were {@code horizonHours} old
+         * are skipped: their recency term can no longer move by epsilon.
+         *
+         * @return number of posts re-scored
+         */
         @Transactional
         @Modifying(clearAutomatically = true, flushAutomatically = true)
-        @Query(value = "UPDATE posts SET trending_score = :score, trending_computed_at = :now, is_trending = :isTrending WHERE id = :postId", nativeQuery = true)
-        int updateTrendingData(@Param("postId") UUID postId, @Param("score") double score, @Param("now") java.time.Instant now, @Param("isTrending") boolean isTrending);
+        @Query(value = """
+                        WITH aged AS (
+                            UPDATE posts p
+                            SET trending_score =""" + TRENDING_SCORE_SQL + """
+                                , trending_computed_at = :now
+                            WHERE p.is_deleted = false
+                              AND (:fullScan = true
+                                   OR p.trending_computed_at IS NULL
+                                   OR p.trending_computed_at < p.created_at + make_interval(hours => :horizonHours))
+                              AND ABS(""" + TRENDING_SCORE_SQL + """
+                                  - p.trending_score) >= :epsilon
+                            RETURNING p.id, p.trending_score
+                        )
+                        INSERT INTO post_trending_history (post_id, trending_score, computed_at)
+                        SELECT a.id, a.trending_score, :now FROM aged a
+                        """, nativeQuery = true)
+        int ageTrendingScores(@Param("now") java.time.Instant now,
+                        @Param("epsilon") double epsilon,
+                        @Param("horizonHours") int horizonHours,
+                        @Param("fullScan") boolean fullScan);
+
+        /**
+         * Counters of the top {@code limit} posts by stored score, for the in-memory trending index.
+         *
+         * Columns: 0 id, 1 created_at, 2 love_count, 3 comment_count, 4 share_count, 5 view_count
+         */
+        @Query(value = """
+                        SELECT p.id, p.created_at, p.love_count, p.comment_count, p.share_count, p.view_count
+                        FROM posts p
+                        WHERE p.is_deleted = false
+                        ORDER BY p.trending_score DESC, p.created_at DESC, p.id DESC
+                        LIMIT :limit
+                        """, nativeQuery = true)
+        List<Object[]> findTrendingIndexRows(@Param("limit") int limit);
 
+        /**
+         * Flag the top {@code limit} posts as trending and clear the flag elsewhere,
+         * touching only rows whose flag changes.
+         */
         @Transactional
-        @Modifying
-        @Query(value = "UPDATE posts SET view_count = COALESCE(view_count, 0) + 1 WHERE id = :postId", nativeQuery = true)
-        int incrementViewCount(@Param("postId") UUID postId);
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
+        @Query(value = """
+                        WITH top AS (
+                            SELECT id FROM posts
+                            WHERE is_deleted = false AND trending_score > 0
+                            ORDER BY trending_score DESC, created_at DESC
+                            LIMIT :limit
+                        )
+                        UPDATE posts p
+                        SET is_trending = (p.id IN (SELECT id FROM top))
+                        WHERE (p.is_trending = true OR p.id IN (SELECT id FROM top))
+                          AND p.is_trending <> (p.id IN (SELECT id FROM top))
+                        """, nativeQuery = true)
+        int refreshTrendingFlags(@Param("limit") int limit);
 
         @Transactional
         @Modifying(clearAutomatically = true, flushAutomatically = true)
@@ -318,6 +459,19 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
         @Query(value = "UPDATE posts SET homestay_id = NULL WHERE homestay_id IS NOT NULL", nativeQuery = true)
         int clearAllHomestayReferences();
 
+        /**
+         * Uses of every tag across live posts: tag, number of posts.
+         */
+        @Query(value = """
+                SELECT pt.tag, COUNT(*) AS uses
+                FROM post_tags pt
+                JOIN posts p ON p.id = pt.post_id
+                WHERE p.is_deleted = false
+                GROUP BY pt.tag
+                """,
+                nativeQuery = true)
+        List<Object[]> findTagUses();
+
         /**
          * Hard delete all posts, bypassing soft delete.
          * Returns count of deleted rows.
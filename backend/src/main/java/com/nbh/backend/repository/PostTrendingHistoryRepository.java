@@ -2,8 +2,42 @@ package com.nbh.backend.repository;
 
 import com.nbh.backend.model.PostTrendingHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
 @Repository
 public interface PostTrendingHistoryRepository extends JpaRepository<PostTrendingHistory, Long> {
+
+    /**
+     * Score points of a post in [from, to) across the raw, hourly and daily tables.
+     * Rollups move rows between tables, so each instant is in exactly one of them.
+     * Newest first, so the limit keeps the latest points.
+     *
+     * Columns: 0 at, 1 score, 2 min_score, 3 max_score, 4 samples, 5 resolution
+     */
+    @Query(value = """
+            SELECT h.computed_at AS at, h.trending_score AS score, h.trending_score AS min_score,
+                   h.trending_score AS max_score, 1 AS samples, 'raw' AS resolution
+            FROM post_trending_history h
+            WHERE h.post_id = :postId AND h.computed_at >= :from AND h.computed_at < :to
+            UNION ALL
+            SELECT b.bucket_start, b.avg_score, b.min_score, b.max_score, b.samples, 'hour'
+            FROM post_trending_history_hourly b
+            WHERE b.post_id = :postId AND b.bucket_start >= :from AND b.bucket_start < :to
+            UNION ALL
+            SELECT b.bucket_start, b.avg_score, b.min_score, b.max_score, b.samples, 'day'
+            FROM post_trending_history_daily b
+            WHERE b.post_id = :postId AND b.bucket_start >= :from AND b.bucket_start < :to
+            ORDER BY 1 DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> findTrajectory(@Param("postId") UUID postId,
+            @Param("from") Instant from,
+            @Param("to") Instant to,
+            @Param("limit") int limit);
 }
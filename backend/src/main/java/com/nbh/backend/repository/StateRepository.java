@@ -19,7 +19,15 @@ public interface StateRepository extends JpaRepository<State, UUID> {
     @Query("SELECT COUNT(d) FROM Destination d WHERE d.state.id = :stateId")
     long countDestinationsByStateId(@Param("stateId") UUID stateId);
 
-    @Query("SELECT COUNT(h) FROM Homestay h WHERE h.destination.state.id = :stateId AND h.isDeleted = false")
+    /**
+     * Sum of the maintained per-destination homestay counters (see AggregateCountService).
+     */
+    @Query("""
+            SELECT COALESCE(SUM(c.value), 0)
+            FROM Destination d, AggregateCount c
+            WHERE d.state.id = :stateId
+              AND c.counterKey = CONCAT('homestays:destination:', CAST(d.id AS String))
+            """)
     long countHomestaysByStateId(@Param("stateId") UUID stateId);
 
     @Query("""
@@ -29,10 +37,10 @@ public interface StateRepository extends JpaRepository<State, UUID> {
                    s.description AS description,
                    s.heroImageName AS heroImageName,
                    COUNT(DISTINCT d.id) AS destinationCount,
-                   COUNT(DISTINCT h.id) AS homestayCount
+                   COALESCE(SUM(c.value), 0) AS homestayCount
             FROM State s
             LEFT JOIN s.destinations d
-            LEFT JOIN Homestay h ON h.destination = d AND h.isDeleted = false
+            LEFT JOIN AggregateCount c ON c.counterKey = CONCAT('homestays:destination:', CAST(d.id AS String))
             GROUP BY s.id, s.slug, s.name, s.description, s.heroImageName
             ORDER BY homestayCount DESC, destinationCount DESC
             """)
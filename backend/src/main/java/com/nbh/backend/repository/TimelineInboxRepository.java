@@ -0,0 +1,87 @@
+package com.nbh.backend.repository;
+
+import com.nbh.backend.model.PostTimelineInbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Repository for per-follower timeline inboxes (following feed fan-out).
+ * All writes are set-based native statements so a fan-out is one round-trip.
+ */
+@Repository
+public interface TimelineInboxRepository extends JpaRepository<PostTimelineInbox, PostTimelineInbox.PostTimelineInboxPk> {
+
+    /**
+     * Fan a post out to every current follower of its author.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO post_timeline_inboxes (follower_user_id, post_id, author_id, created_at)
+        SELECT uf.follower_user_id, :postId, :authorId, :createdAt
+        FROM user_follows uf
+        WHERE uf.followed_user_id = :authorId
+        ON CONFLICT (follower_user_id, post_id) DO NOTHING
+        """, nativeQuery = true)
+    int fanOutToFollowers(
+            @Param("postId") UUID postId,
+            @Param("authorId") UUID authorId,
+            @Param("createdAt") Instant createdAt);
+
+    /**
+     * Copy every live post of a newly followed author into the follower's inbox, so that
+     * deep pages of the following feed hold the same posts as the join query.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO post_timeline_inboxes (follower_user_id, post_id, author_id, created_at)
+        SELECT :followerUserId, p.id, p.user_id, p.created_at
+        FROM posts p
+        WHERE p.user_id = :authorId
+          AND p.is_deleted = false
+        ON CONFLICT (follower_user_id, post_id) DO NOTHING
+        """, nativeQuery = true)
+    int backfillFromAuthor(
+            @Param("followerUserId") UUID followerUserId,
+            @Param("authorId") UUID authorId);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM post_timeline_inboxes
+        WHERE follower_user_id = :followerUserId
+          AND author_id = :authorId
+        """, nativeQuery = true)
+    int deleteByFollowerAndAuthor(
+            @Param("followerUserId") UUID followerUserId,
+            @Param("authorId") UUID authorId);
+
+    @Modifying
+    @Query(value = "DELETE FROM post_timeline_inboxes WHERE post_id = :postId", nativeQuery = true)
+    int deleteByPostId(@Param("postId") UUID postId);
+
+    @Query(value = """
+        SELECT EXISTS (
+            SELECT 1 FROM post_timeline_pull_authors WHERE author_id = :authorId
+        )
+        """, nativeQuery = true)
+    boolean isPullAuthor(@Param("authorId") UUID authorId);
+
+    /**
+     * Mark an author as fan-out-on-read. Their posts are merged into following
+     * feeds at read time instead of being copied into every follower inbox.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO post_timeline_pull_authors (author_id, follower_count, marked_at)
+        VALUES (:authorId, :followerCount, NOW())
+        ON CONFLICT (author_id) DO UPDATE SET
+            follower_count = EXCLUDED.follower_count,
+            marked_at = EXCLUDED.marked_at
+        """, nativeQuery = true)
+    void markPullAuthor(@Param("authorId") UUID authorId, @Param("followerCount") long followerCount);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
@@ -86,24 +87,111 @@ public interface TimelineRepository extends JpaRepository<PostTimeline, Long> {
     void updateShareCount(@Param("postId") UUID postId, @Param("count") int count);
 
     /**
-     * Prune timeline to hot window size (keep newest 1000).
-     * Uses offset boundary strategy for better performance.
-     * Called periodically (every 100 inserts) to maintain hot window.
+     * Delete one batch of rows older than the newest {@code keep} live rows
+     * (live or soft-deleted), oldest first. Returns 0 once the table is within the window.
+     * Called by the timeline maintenance job, never on the request path.
      */
+    @Transactional
     @Modifying
     @Query(value = """
         WITH boundary AS (
-            SELECT id FROM post_timelines_global
+            SELECT created_at, post_id FROM post_timelines_global
             WHERE is_deleted = false
             ORDER BY created_at DESC, post_id DESC
-            OFFSET 1000
+            OFFSET :keep
             LIMIT 1
+        ),
+        doomed AS (
+            SELECT t.id FROM post_timelines_global t, boundary b
+            WHERE t.created_at < b.created_at
+               OR (t.created_at = b.created_at AND t.post_id <= b.post_id)
+            ORDER BY t.created_at, t.post_id
+            LIMIT :batchSize
         )
         DELETE FROM post_timelines_global
-        WHERE id <= (SELECT id FROM boundary)
-          AND is_deleted = false
+        WHERE id IN (SELECT id FROM doomed)
+        """, nativeQuery = true)
+    int pruneBatch(@Param("keep") int keep, @Param("batchSize") int batchSize);
+
+    /**
+     * Hard delete one batch of soft-deleted rows.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM post_timelines_global
+        WHERE id IN (
+            SELECT id FROM post_timelines_global
+            WHERE is_deleted = true
+            LIMIT :batchSize
+        )
+        """, nativeQuery = true)
+    int purgeDeletedBatch(@Param("batchSize") int batchSize);
+
+    /**
+     * Live rows whose post is gone or soft-deleted (missed timeline deletes).
+     */
+    @Query(value = """
+        SELECT t.post_id
+        FROM post_timelines_global t
+        LEFT JOIN posts p ON p.id = t.post_id
+        WHERE t.is_deleted = false
+          AND (p.id IS NULL OR p.is_deleted = true)
+        LIMIT :batchSize
+        """, nativeQuery = true)
+    List<UUID> findOrphanedPostIds(@Param("batchSize") int batchSize);
+
+    /**
+     * Posts after the (created_at, id) watermark, in watermark order, flagged when they
+     * have no live timeline row. Posts newer than {@code settledBefore} are left for the
+     * next run so in-flight create transactions are not mistaken for drift.
+     *
+     * Columns: 0 id, 1 created_at, 2 missing
+     */
+    @Query(value = """
+        SELECT p.id, p.created_at, (t.post_id IS NULL) AS missing
+        FROM posts p
+        LEFT JOIN post_timelines_global t ON t.post_id = p.id AND t.is_deleted = false
+        WHERE p.is_deleted = false
+          AND (p.created_at > :afterCreatedAt
+               OR (p.created_at = :afterCreatedAt AND p.id > :afterId))
+          AND p.created_at <= :settledBefore
+        ORDER BY p.created_at, p.id
+        LIMIT :batchSize
+        """, nativeQuery = true)
+    List<Object[]> findPostsAfterWatermark(
+            @Param("afterCreatedAt") Instant afterCreatedAt,
+            @Param("afterId") UUID afterId,
+            @Param("settledBefore") Instant settledBefore,
+            @Param("batchSize") int batchSize);
+
+    /**
+     * Newest live row, where reconciliation resumes after a restart.
+     *
+     * Columns: 0 created_at, 1 post_id
+     */
+    @Query(value = """
+        SELECT created_at, post_id
+        FROM post_timelines_global
+        WHERE is_deleted = false
+        ORDER BY created_at DESC, post_id DESC
+        LIMIT 1
+        """, nativeQuery = true)
+    List<Object[]> findNewestLiveEntry();
+
+    /**
+     * Size figures for maintenance metrics.
+     *
+     * Columns: 0 live rows, 1 soft-deleted rows, 2 newest live created_at, 3 newest post created_at
+     */
+    @Query(value = """
+        SELECT
+            (SELECT COUNT(*) FROM post_timelines_global WHERE is_deleted = false),
+            (SELECT COUNT(*) FROM post_timelines_global WHERE is_deleted = true),
+            (SELECT MAX(created_at) FROM post_timelines_global WHERE is_deleted = false),
+            (SELECT MAX(created_at) FROM posts WHERE is_deleted = false)
         """, nativeQuery = true)
-    void pruneToHotWindow();
+    List<Object[]> findMaintenanceStats();
 
     /**
      * Batch insert timeline entries (native query for performance).
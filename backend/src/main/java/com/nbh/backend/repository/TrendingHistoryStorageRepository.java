@@ -0,0 +1,133 @@
+package com.nbh.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Partition DDL and rollups for post_trending_history (see V6__partition_post_trending_history.sql).
+ *
+ * Day partitions are named post_trending_history_pYYYYMMDD and cover one UTC day.
+ */
+@Repository
+public class TrendingHistoryStorageRepository {
+
+    public static final String PARTITION_PREFIX = "post_trending_history_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    // Weighted merge of a bucket that already exists (e.g. a day rolled up across two runs)
+    private static final String MERGE_BUCKET = """
+            ON CONFLICT (post_id, bucket_start) DO UPDATE SET
+                avg_score = (t.avg_score * t.samples + EXCLUDED.avg_score * EXCLUDED.samples)
+                            / (t.samples + EXCLUDED.samples),
+                min_score = LEAST(t.min_score, EXCLUDED.min_score),
+                max_score = GREATEST(t.max_score, EXCLUDED.max_score),
+                samples = t.samples + EXCLUDED.samples
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TrendingHistoryStorageRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+    }
+
+    public static LocalDate partitionDay(String partitionName) {
+        return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+    }
+
+    /**
+     * Names of the existing day partitions (the default partition is not included).
+     */
+    public List<String> findDayPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class parent ON parent.oid = i.inhparent
+                WHERE parent.relname = 'post_trending_history'
+                  AND c.relname ~ '^post_trending_history_p[0-9]{8}$'
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    public void createDayPartition(LocalDate day) {
+        // Name and bounds come from a LocalDate, never from user input
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day)
+                + " PARTITION OF post_trending_history FOR VALUES FROM ('"
+                + day.atStartOfDay(ZoneOffset.UTC).toInstant() + "') TO ('"
+                + day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant() + "')");
+    }
+
+    /**
+     * Aggregate a whole day partition into hourly buckets.
+     *
+     * @return hourly buckets written or merged
+     */
+    public int rollUpPartitionToHourly(LocalDate day) {
+        return jdbcTemplate.update("""
+                INSERT INTO post_trending_history_hourly AS t
+                    (post_id, bucket_start, avg_score, min_score, max_score, samples)
+                SELECT post_id, date_trunc('hour', computed_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC',
+                       AVG(trending_score), MIN(trending_score), MAX(trending_score), COUNT(*)
+                FROM %s
+                GROUP BY 1, 2
+                """.formatted(partitionName(day)) + MERGE_BUCKET);
+    }
+
+    public void dropDayPartition(LocalDate day) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    /**
+     * Move rows of the default partition older than {@code before} into hourly buckets.
+     */
+    public int rollUpDefaultPartitionToHourly(Instant before) {
+        return jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM post_trending_history_default
+                    WHERE computed_at < ?
+                    RETURNING post_id, trending_score, computed_at
+                )
+                INSERT INTO post_trending_history_hourly AS t
+                    (post_id, bucket_start, avg_score, min_score, max_score, samples)
+                SELECT post_id, date_trunc('hour', computed_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC',
+                       AVG(trending_score), MIN(trending_score), MAX(trending_score), COUNT(*)
+                FROM moved
+                GROUP BY 1, 2
+                """ + MERGE_BUCKET, Timestamp.from(before));
+    }
+
+    /**
+     * Move hourly buckets older than {@code before} into daily buckets.
+     */
+    public int rollUpHourlyToDaily(Instant before) {
+        return jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM post_trending_history_hourly
+                    WHERE bucket_start < ?
+                    RETURNING post_id, bucket_start, avg_score, min_score, max_score, samples
+                )
+                INSERT INTO post_trending_history_daily AS t
+                    (post_id, bucket_start, avg_score, min_score, max_score, samples)
+                SELECT post_id, date_trunc('day', bucket_start AT TIME ZONE 'UTC') AT TIME ZONE 'UTC',
+                       SUM(avg_score * samples) / SUM(samples), MIN(min_score), MAX(max_score), SUM(samples)
+                FROM moved
+                GROUP BY 1, 2
+                """ + MERGE_BUCKET, Timestamp.from(before));
+    }
+
+    public int deleteDailyBefore(Instant before) {
+        return jdbcTemplate.update("DELETE FROM post_trending_history_daily WHERE bucket_start < ?",
+                Timestamp.from(before));
+    }
+}
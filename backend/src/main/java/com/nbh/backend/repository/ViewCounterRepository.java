@@ -0,0 +1,65 @@
+package com.nbh.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applies accumulated view deltas with one UPDATE ... FROM (VALUES ...) per chunk. All chunks
+ * of one call commit together, so a failed call can be retried in full without double counting.
+ */
+@Repository
+public class ViewCounterRepository {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ViewCounterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the stored view_count of every updated post after its delta was applied
+     */
+    @Transactional
+    public Map<UUID, Long> addPostViews(Map<UUID, Long> deltas) {
+        return addViews("posts", deltas);
+    }
+
+    @Transactional
+    public Map<UUID, Long> addHomestayViews(Map<UUID, Long> deltas) {
+        return addViews("homestays", deltas);
+    }
+
+    // Table names are fixed by the callers above, never user input
+    private Map<UUID, Long> addViews(String table, Map<UUID, Long> deltas) {
+        List<Map.Entry<UUID, Long>> entries = new ArrayList<>(deltas.entrySet());
+        Map<UUID, Long> counts = new HashMap<>();
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Map.Entry<UUID, Long>> chunk = entries.subList(from, Math.min(entries.size(), from + MAX_ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" AS t")
+                    .append(" SET view_count = COALESCE(t.view_count, 0) + v.delta")
+                    .append(" FROM (VALUES ");
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(CAST(? AS uuid), CAST(? AS bigint))");
+                args[i * 2] = chunk.get(i).getKey();
+                args[i * 2 + 1] = chunk.get(i).getValue();
+            }
+            sql.append(") AS v(id, delta) WHERE t.id = v.id RETURNING t.id, t.view_count");
+            jdbcTemplate.query(sql.toString(),
+                    rs -> {
+                        counts.put(rs.getObject(1, UUID.class), rs.getLong(2));
+                    },
+                    args);
+        }
+        return counts;
+    }
+}
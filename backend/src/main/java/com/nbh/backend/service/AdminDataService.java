@@ -43,6 +43,9 @@ public class AdminDataService {
         private final ReviewRepository reviewRepository;
         private final TimelineRepository timelineRepository;
         private final FeedCacheService feedCacheService;
+        private final HotTimelineWindow hotTimelineWindow;
+        private final HomestaySearchCache homestaySearchCache;
+        private final SearchSuggestIndex searchSuggestIndex;
 
         private static final String[] DESTINATIONS = { "Darjeeling", "Kalimpong", "Kurseong", "Mirik", "Siliguri" };
 
@@ -209,9 +212,10 @@ public class AdminDataService {
         private void clearAdminCaches() {
                 entityManager.clear();
                 feedCacheService.invalidateAll();
-                if (cacheManager.getCache("homestaysSearch") != null) {
-                        cacheManager.getCache("homestaysSearch").clear();
-                }
+                // Homestay references were cleared in bulk on the timeline table
+                hotTimelineWindow.rebuild();
+                homestaySearchCache.clear();
+                searchSuggestIndex.rebuild();
                 if (cacheManager.getCache("homestay") != null) {
                         cacheManager.getCache("homestay").clear();
                 }
@@ -281,7 +285,10 @@ public class AdminDataService {
                                         destEntity));
                 }
 
-                homestayRepository.saveAllAndFlush(seedData);
+                List<Homestay> saved = homestayRepository.saveAllAndFlush(seedData);
+                if (!saved.isEmpty()) {
+                        homestayRepository.refreshCoverImages(saved.stream().map(Homestay::getId).toList());
+                }
                 return seedData.size();
         }
 
@@ -0,0 +1,84 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.model.AggregateCount;
+import com.nbh.backend.model.Homestay;
+import com.nbh.backend.repository.AggregateCountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Exact row counts read from aggregate_counts instead of COUNT(*).
+ *
+ * Counters are moved by row triggers in the same transaction as the row change
+ * (see V7__aggregate_counts.sql); {@link #reconcile()} recounts them periodically.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AggregateCountService {
+
+    public static final String USERS = "users";
+    public static final String POSTS = "posts";
+    public static final String HOMESTAYS = "homestays";
+    public static final String HOMESTAYS_FEATURED = "homestays:featured";
+
+    private final AggregateCountRepository aggregateCountRepository;
+
+    public static String homestayStatusKey(Homestay.Status status) {
+        return "homestays:status:" + status.name();
+    }
+
+    public static String homestayDestinationKey(UUID destinationId) {
+        return "homestays:destination:" + destinationId;
+    }
+
+    @Transactional(readOnly = true)
+    public long get(String key) {
+        return aggregateCountRepository.findById(key).map(AggregateCount::getValue).orElse(0L);
+    }
+
+    /**
+     * Values of several keys in one query; missing keys read as 0.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> get(Collection<String> keys) {
+        Map<String, Long> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, 0L));
+        aggregateCountRepository.findAllById(keys)
+                .forEach(count -> values.put(count.getCounterKey(), count.getValue()));
+        return values;
+    }
+
+    /**
+     * Recount every counter from its source table. Called by AggregateCountReconcileJob.
+     *
+     * The drift check runs without locks; only counters that drifted are row-locked and
+     * recounted, so writes to the other keys never wait on reconciliation.
+     *
+     * @return number of counters that had drifted
+     */
+    @Transactional
+    public int reconcile() {
+        List<String> drifted = aggregateCountRepository.findDriftedKeys();
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+        // A key counted but never stored needs a row to lock
+        drifted.forEach(aggregateCountRepository::insertIfAbsent);
+        aggregateCountRepository.lockKeys(drifted);
+        List<String> corrected = aggregateCountRepository.reconcile(drifted);
+        if (!corrected.isEmpty()) {
+            log.warn("Reconciled {} drifted aggregate counters: {}", corrected.size(),
+                    corrected.size() <= 10 ? corrected : corrected.subList(0, 10));
+        }
+        return corrected.size();
+    }
+}
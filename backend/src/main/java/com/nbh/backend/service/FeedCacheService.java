@@ -1,18 +1,38 @@
 package com.nbh.backend.service;
 
 import com.nbh.backend.dto.PostFeedDto;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Cache abstraction for community feed.
- * Current implementation: NoOp (no caching).
- * Future implementation: Redis with 5s TTL.
+ * 
+ * Two-part cache:
+ * - Shared page body: viewer-independent FeedResponse, one entry per distinct page
+ * - Liked overlay: small per-viewer set of liked post IDs, applied when the response is built
+ * 
+ * Selective invalidation:
+ * - Every scope (latest, trending, following) and every tag has a generation number
+ * - Both generations are embedded in the page key, so bumping one orphans only its pages
+ * - Counter-only changes (likes, shares, comments) are patched into cached pages in place
  * 
  * This abstraction allows the feed service to remain decoupled from
  * the cache infrastructure, enabling safe rollout without Redis dependency.
  */
 public interface FeedCacheService {
 
+    String SCOPE_LATEST = "latest";
+    String SCOPE_TRENDING = "trending";
+    String SCOPE_FOLLOWING = "following";
+
+    /** Pseudo-tag used for unfiltered pages. */
+    String ALL_TAGS = "all";
+
     /**
      * Get cached feed response for the given key.
      * 
@@ -21,6 +41,11 @@ public interface FeedCacheService {
      */
     Optional<PostFeedDto.FeedResponse> get(String key);
 
+    /**
+     * Whether a page is cached, without counting a hit or miss.
+     */
+    boolean contains(String key);
+
     /**
      * Store feed response in cache.
      * 
@@ -30,42 +55,137 @@ public interface FeedCacheService {
     void put(String key, PostFeedDto.FeedResponse response);
 
     /**
-     * Invalidate all feed cache entries.
-     * Called on post create/update/delete/like/comment/repost.
+     * Get cached liked post IDs for a viewer on the given page.
+     * 
+     * @param userId Viewer user ID
+     * @param key Shared page cache key
+     * @return Liked post IDs if present, empty otherwise
+     */
+    Optional<Set<UUID>> getLikedOverlay(UUID userId, String key);
+
+    /**
+     * Store liked post IDs for a viewer on the given page.
+     * 
+     * @param userId Viewer user ID
+     * @param key Shared page cache key
+     * @param likedPostIds Post IDs on the page liked by the viewer
+     */
+    void putLikedOverlay(UUID userId, String key, Set<UUID> likedPostIds);
+
+    /**
+     * Invalidate all liked overlays of a single viewer.
+     * Called when the viewer likes or unlikes a post.
+     */
+    void invalidateViewer(UUID userId);
+
+    /**
+     * Version stamp of a cached page as seen by one viewer, usable as an ETag.
+     * Changes whenever the page body, its counters or the viewer's liked state change.
+     * Live counters overlaid after the cache are not covered; see {@link #getPagePostIds}.
+     *
+     * @return empty when the page has not been built since the last change
+     */
+    Optional<String> getPageStamp(String key, UUID viewerId);
+
+    /**
+     * Post ids of a cached page in page order, for versioning the counters overlaid on it.
+     */
+    Optional<List<UUID>> getPagePostIds(String key);
+
+    /**
+     * Invalidate all feed cache entries (shared pages and overlays).
+     * Reserved for bulk operations (wipes, imports); single-post changes use
+     * {@link #onPostChanged} and {@link #patchCounters}.
      */
     void invalidateAll();
 
     /**
-     * Generate cache key for feed query.
-     * Includes userId to prevent cache pollution across users.
+     * Current generation of a scope (latest, trending, following).
+     */
+    long scopeGeneration(String scope);
+
+    /**
+     * Current generation of a tag; {@link #ALL_TAGS} covers unfiltered pages.
+     */
+    long tagGeneration(String tag);
+
+    /**
+     * Bump scope generations, orphaning every cached page of those scopes.
+     * Used when ordering changes across the scope (e.g. trending refresh).
+     */
+    void bumpScopes(String... scopes);
+
+    /**
+     * Bump tag generations, orphaning only pages filtered by those tags.
+     */
+    void bumpTags(Collection<String> tags);
+
+    /**
+     * A post was created, edited, reposted or deleted.
+     * Bumps the unfiltered pages plus the pages of every tag the post carries.
      * 
+     * @param postId Changed post
+     * @param tags Tags of the post (old and new tags on edit)
+     */
+    default void onPostChanged(UUID postId, Collection<String> tags) {
+        Set<String> affected = new HashSet<>();
+        affected.add(ALL_TAGS);
+        if (tags != null) {
+            tags.stream().filter(t -> t != null && !t.isBlank()).forEach(affected::add);
+        }
+        bumpTags(affected);
+        bumpScopes(SCOPE_TRENDING);
+    }
+
+    /**
+     * Patch counters of a post into every cached page that contains it.
+     * Null values are left untouched. Pages are patched, not evicted.
+     */
+    void patchCounters(UUID postId, Integer likeCount, Integer shareCount, Integer commentCount);
+
+    /**
+     * Cache statistics, including hit/miss figures per generation.
+     */
+    default Map<String, Object> getStats() {
+        return Map.of();
+    }
+
+    /**
+     * Generate generation-stamped cache key for a feed page.
+     * Pass userId only for pages whose rows depend on the viewer (following scope);
+     * like status is never part of the key, it comes from the liked overlay.
+     * 
+     * Format: community:feed:{scope}@{gen}|{tag}@{gen}|{cursor}|{limit}|{viewer}
+     * 
+     * @param scope Resolved feed scope
      * @param tag Optional tag filter
      * @param cursor Optional cursor (null for first page)
      * @param limit Page size
-     * @param userId Optional user ID for personalized like status
+     * @param userId Optional user ID for viewer-specific pages
      * @return Cache key string
      */
-    default String generateKey(String tag, String cursor, int limit, java.util.UUID userId) {
+    default String generateKey(String scope, String tag, String cursor, int limit, UUID userId) {
+        String resolvedTag = tag != null && !tag.isBlank() ? tag : ALL_TAGS;
         StringBuilder sb = new StringBuilder("community:feed:");
-        sb.append(tag != null && !tag.isBlank() ? tag : "all");
-        sb.append(":");
+        sb.append(scope).append('@').append(scopeGeneration(scope));
+        sb.append('|');
+        sb.append(resolvedTag).append('@').append(tagGeneration(resolvedTag));
+        sb.append('|');
         sb.append(cursor != null ? cursor : "first");
-        sb.append(":");
+        sb.append('|');
         sb.append(limit);
-        sb.append(":");
-        sb.append(userId != null ? userId.toString() : "anon");
+        sb.append('|');
+        sb.append(userId != null ? userId.toString() : "shared");
         return sb.toString();
     }
-    
+
     /**
-     * Generate cache key for feed query (backward compatible).
-     * 
-     * @param tag Optional tag filter
-     * @param cursor Optional cursor (null for first page)
-     * @param limit Page size
-     * @return Cache key string
+     * Generation label of a key (scope@gen|tag@gen), used for per-generation stats.
      */
-    default String generateKey(String tag, String cursor, int limit) {
-        return generateKey(tag, cursor, limit, null);
+    static String generationLabel(String key) {
+        String body = key.startsWith("community:feed:") ? key.substring("community:feed:".length()) : key;
+        int first = body.indexOf('|');
+        int second = first < 0 ? -1 : body.indexOf('|', first + 1);
+        return second < 0 ? body : body.substring(0, second);
     }
 }
@@ -0,0 +1,147 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.perf.PerfTimingContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent batch lookups of a feed page concurrently on virtual threads.
+ *
+ * Two bounds keep a burst of feed requests from draining the Hikari pool:
+ * - per request: at most {@code feed.hydration.max-concurrency} lookups in flight
+ * - per process: at most {@code feed.hydration.max-inflight} lookups in flight;
+ *   when exhausted the lookup simply runs on the calling thread, reusing its connection
+ *
+ * Each lookup's duration is reported into the caller's PerfTimingContext when joined
+ * (the context is thread-local and not shared with the worker threads).
+ */
+@Component
+public class FeedHydrationStage {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore processPermits;
+    private final int maxConcurrency;
+    private final boolean parallelEnabled;
+
+    public FeedHydrationStage(
+            @Value("${feed.hydration.parallel.enabled:true}") boolean parallelEnabled,
+            @Value("${feed.hydration.max-concurrency:3}") int maxConcurrency,
+            @Value("${feed.hydration.max-inflight:12}") int maxInflight) {
+        this.parallelEnabled = parallelEnabled;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.processPermits = new Semaphore(Math.max(1, maxInflight));
+    }
+
+    /**
+     * Start a hydration batch for one feed page.
+     */
+    public Batch begin() {
+        return new Batch(PerfTimingContext.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public final class Batch {
+
+        private final PerfTimingContext ctx;
+        private final Semaphore requestPermits = new Semaphore(maxConcurrency);
+        // A batch belongs to one request thread; only the lookups run elsewhere
+        private final Map<String, Supplier<?>> submitted = new HashMap<>();
+
+        private Batch(PerfTimingContext ctx) {
+            this.ctx = ctx;
+        }
+
+        /**
+         * Submit a lookup. Submitting the same name twice returns the first lookup,
+         * so shared queries are issued once per page.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> Supplier<T> submit(String name, Supplier<T> lookup) {
+            Supplier<?> existing = submitted.get(name);
+            if (existing != null) {
+                return (Supplier<T>) existing;
+            }
+            Supplier<T> started = start(name, lookup);
+            submitted.put(name, started);
+            return started;
+        }
+
+        private <T> Supplier<T> start(String name, Supplier<T> lookup) {
+            if (!parallelEnabled || !processPermits.tryAcquire()) {
+                // Inline on the caller: reuses the caller's connection instead of taking a new one
+                Timed<T> result = timed(lookup);
+                record(name, result.durationNs);
+                return () -> result.value;
+            }
+            CompletableFuture<Timed<T>> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> runBounded(lookup), executor);
+            } catch (RuntimeException e) {
+                processPermits.release();
+                throw e;
+            }
+            return new Supplier<>() {
+                private volatile boolean recorded;
+
+                @Override
+                public T get() {
+                    try {
+                        Timed<T> result = future.join();
+                        if (!recorded) {
+                            recorded = true;
+                            record(name, result.durationNs);
+                        }
+                        return result.value;
+                    } catch (CompletionException e) {
+                        if (e.getCause() instanceof RuntimeException re) {
+                            throw re;
+                        }
+                        throw e;
+                    }
+                }
+            };
+        }
+
+        private <T> Timed<T> runBounded(Supplier<T> lookup) {
+            try {
+                requestPermits.acquireUninterruptibly();
+                try {
+                    return timed(lookup);
+                } finally {
+                    requestPermits.release();
+                }
+            } finally {
+                processPermits.release();
+            }
+        }
+
+        private void record(String name, long durationNs) {
+            if (ctx != null) {
+                ctx.addDurationNs(name, durationNs);
+            }
+        }
+    }
+
+    private static <T> Timed<T> timed(Supplier<T> lookup) {
+        long start = System.nanoTime();
+        T value = lookup.get();
+        return new Timed<>(value, System.nanoTime() - start);
+    }
+
+    private record Timed<T>(T value, long durationNs) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.nbh.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nbh.backend.dto.PostFeedDto;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Builds the shared body of the next feed page in the background, so the
+ * common "page 1 then page 2" scroll finds page 2 already cached.
+ *
+ * Prefetching is best effort and never competes with real requests:
+ * - at most {@code feed.prefetch.max-inflight} prefetches run at once, extra ones are dropped
+ * - nothing is started while Hikari has threads waiting for a connection
+ *
+ * Hit ratio = prefetched pages later served to a client / prefetched pages.
+ */
+@Component
+@Slf4j
+public class FeedPrefetcher {
+
+    private final FeedCacheService cacheService;
+    private final TransactionTemplate readOnlyTx;
+    private final HikariDataSource hikari;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final boolean enabled;
+    private final int maxPendingConnections;
+
+    private final Set<String> inflight = ConcurrentHashMap.newKeySet();
+    // Prefetched keys not yet requested; an entry that expires unread counts as a wasted prefetch
+    private final Cache<String, Boolean> unclaimed = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(30, TimeUnit.SECONDS)
+            .build();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skippedCached = new LongAdder();
+    private final LongAdder skippedBusy = new LongAdder();
+    private final LongAdder skippedLoad = new LongAdder();
+
+    public FeedPrefetcher(
+            FeedCacheService cacheService,
+            PlatformTransactionManager transactionManager,
+            DataSource dataSource,
+            @Value("${feed.prefetch.enabled:true}") boolean enabled,
+            @Value("${feed.prefetch.max-inflight:4}") int maxInflight,
+            @Value("${feed.prefetch.max-pending-connections:0}") int maxPendingConnections) {
+        this.cacheService = cacheService;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.hikari = resolveHikari(dataSource);
+        this.enabled = enabled;
+        this.permits = new Semaphore(Math.max(1, maxInflight));
+        this.maxPendingConnections = Math.max(0, maxPendingConnections);
+    }
+
+    /**
+     * Build and cache the page for {@code key} in the background unless it is cached already
+     * or the pool is under pressure.
+     */
+    public void prefetch(String key, Supplier<PostFeedDto.FeedResponse> loader) {
+        if (!enabled) {
+            return;
+        }
+        if (cacheService.contains(key) || !inflight.add(key)) {
+            skippedCached.increment();
+            return;
+        }
+        if (underLoad()) {
+            inflight.remove(key);
+            skippedLoad.increment();
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            inflight.remove(key);
+            skippedBusy.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> run(key, loader));
+        } catch (RuntimeException e) {
+            permits.release();
+            inflight.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Called for every page a client asks for; counts the first request of a prefetched page as a hit.
+     */
+    public void recordServed(String key) {
+        if (enabled && unclaimed.asMap().remove(key) != null) {
+            hits.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long done = completed.sum();
+        long hit = hits.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("prefetched", done);
+        stats.put("hits", hit);
+        stats.put("hitRatio", done == 0 ? 0.0 : (double) hit / done);
+        stats.put("failed", failed.sum());
+        stats.put("skippedCachedOrInflight", skippedCached.sum());
+        stats.put("skippedExecutorBusy", skippedBusy.sum());
+        stats.put("skippedPoolLoad", skippedLoad.sum());
+        stats.put("inflight", inflight.size());
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void run(String key, Supplier<PostFeedDto.FeedResponse> loader) {
+        try {
+            // Re-check: the client may have asked for the page while this task was queued
+            if (cacheService.contains(key) || underLoad()) {
+                return;
+            }
+            PostFeedDto.FeedResponse page = readOnlyTx.execute(status -> loader.get());
+            if (page != null) {
+                cacheService.put(key, page);
+                unclaimed.put(key, Boolean.TRUE);
+                completed.increment();
+            }
+        } catch (Exception e) {
+            failed.increment();
+            log.debug("Feed prefetch failed for key {}: {}", key, e.getMessage());
+        } finally {
+            inflight.remove(key);
+            permits.release();
+        }
+    }
+
+    private boolean underLoad() {
+        // The pool bean only exists once the pool has started
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        return pool != null && pool.getThreadsAwaitingConnection() > maxPendingConnections;
+    }
+
+    private static HikariDataSource resolveHikari(DataSource dataSource) {
+        try {
+            // The datasource may be wrapped by the query timing proxy
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (Exception e) {
+            log.warn("Hikari pool not available for feed prefetch load checks: {}", e.getMessage());
+        }
+        return null;
+    }
+}
@@ -5,27 +5,28 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nbh.backend.dto.PostFeedDto;
 import com.nbh.backend.model.PostTimeline;
 import com.nbh.backend.repository.FeedRepository;
-import com.nbh.backend.repository.TimelineRepository;
-import com.nbh.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.charset.StandardCharsets;
-import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Optimized feed service using timeline hot window and batch loading.
  * 
  * Architecture:
- * 1. Try timeline table first (index-only scan, ~10ms)
- * 2. Fallback to direct query if timeline empty (~150ms)
- * 3. Batch load media, tags, counts (5 queries total)
+ * 1. Latest scope: select the page from the in-process hot window (no query)
+ * 2. Fallback to direct query for tags or cursors older than the window (~150ms)
+ * 3. Batch load media, tags, meta concurrently (FeedHydrationStage, bounded per request)
+ * 4. Cache the viewer-independent page body; apply per-viewer liked overlay on top
  * 
  * Performance targets:
  * - Timeline hit: <40ms
@@ -38,12 +39,32 @@ import java.util.stream.Collectors;
 public class FeedService {
 
     private final FeedRepository feedRepository;
-    private final TimelineRepository timelineRepository;
+    private final HotTimelineWindow hotTimelineWindow;
     private final FeedCacheService cacheService;
     private final ObjectMapper objectMapper;
     private final FeedLayoutEngine layoutEngine;
-    private final UserRepository userRepository;
     private final AvatarUrlResolver avatarUrlResolver;
+    private final TimelineInboxService timelineInboxService;
+    private final FeedHydrationStage hydrationStage;
+    private final FeedPrefetcher feedPrefetcher;
+    private final TrendingIndex trendingIndex;
+    private final ViewCounterService viewCounterService;
+    private final LikeCounterService likeCounterService;
+
+    /**
+     * Feed query strategy: "hydrate" (page query + concurrent batch lookups) or
+     * "aggregated" (one statement per page with LATERAL json_agg children).
+     */
+    @Value("${feed.query.mode:hydrate}")
+    private String queryMode;
+
+    private boolean aggregatedQueries;
+
+    @PostConstruct
+    void resolveQueryMode() {
+        aggregatedQueries = "aggregated".equalsIgnoreCase(queryMode);
+        log.info("Feed query mode: {}", aggregatedQueries ? "aggregated" : "hydrate");
+    }
 
     private static final int DEFAULT_LIMIT = 12;
     private static final int EXTRA_FOR_HAS_MORE = 1;
@@ -78,37 +99,29 @@ public class FeedService {
     public PostFeedDto.FeedResponse getFeed(String tag, String scope, String cursor, Integer limit, UUID userId, boolean layout) {
         String resolvedScope = normalizeScope(scope);
         int pageSize = limit != null && limit > 0 ? limit : DEFAULT_LIMIT;
-        int fetchLimit = pageSize + EXTRA_FOR_HAS_MORE;
         
         // Log viewerUserId for auth verification
         log.debug("getFeed called: scope={}, userId={}, tag={}", resolvedScope, userId, tag);
 
-        // Check cache with userId to prevent cache pollution
-        String cacheKey = cacheService.generateKey((tag == null ? "all" : tag) + ":" + resolvedScope, cursor, pageSize, userId);
-        Optional<PostFeedDto.FeedResponse> cached = cacheService.get(cacheKey);
-        if (cached.isPresent()) {
-            log.debug("Feed cache hit for key: {}", cacheKey);
-            return cached.get();
-        }
-
         // Decode cursor
         PostFeedDto.Cursor cursorData = decodeCursor(cursor);
-        Instant cursorCreatedAt = cursorData != null ? cursorData.getCreatedAt() : null;
-        UUID cursorId = cursorData != null ? cursorData.getId() : null;
-        Double cursorTrendingScore = cursorData != null ? cursorData.getTrendingScore() : null;
         String previousBlockType = cursorData != null ? cursorData.getPreviousBlockType() : null;
         Integer previousBlockTypeRun = cursorData != null ? cursorData.getPreviousBlockTypeRun() : null;
 
-        PostFeedDto.FeedResponse response;
+        String cacheKey = feedCacheKey(tag, resolvedScope, cursor, pageSize, userId);
+        PostFeedDto.FeedResponse response = cacheService.get(cacheKey).orElse(null);
 
-        if ("trending".equals(resolvedScope)) {
-            response = getTrendingFeed(cursorTrendingScore, cursorCreatedAt, cursorId, fetchLimit, pageSize, userId, cacheKey);
-        } else if ("following".equals(resolvedScope)) {
-            response = getFollowingFeed(cursorCreatedAt, cursorId, fetchLimit, pageSize, userId, cacheKey);
+        if (response != null) {
+            log.debug("Feed cache hit for key: {}", cacheKey);
         } else {
-            // Latest feed: query posts table directly (canonical source)
-            response = getLatestFeed(tag, cursorCreatedAt, cursorId, fetchLimit, pageSize, userId, cacheKey);
+            response = buildSharedPage(resolvedScope, tag, cursorData, pageSize, userId);
+            cacheService.put(cacheKey, response);
         }
+        feedPrefetcher.recordServed(cacheKey);
+
+        // Per-viewer liked overlay on top of the shared body
+        response = applyLikedOverlay(response, userId, cacheKey);
+        response = applyLiveCounters(response);
 
         // Generate layout blocks if requested
         if (layout && response.getPosts() != null && !response.getPosts().isEmpty()) {
@@ -133,9 +146,127 @@ public class FeedService {
                     .build();
         }
 
+        prefetchNextPage(tag, resolvedScope, response, pageSize);
         return response;
     }
 
+    private PostFeedDto.FeedResponse buildSharedPage(String resolvedScope, String tag, PostFeedDto.Cursor cursorData,
+                                                     int pageSize, UUID userId) {
+        Instant cursorCreatedAt = cursorData != null ? cursorData.getCreatedAt() : null;
+        UUID cursorId = cursorData != null ? cursorData.getId() : null;
+        Double cursorTrendingScore = cursorData != null ? cursorData.getTrendingScore() : null;
+        int fetchLimit = pageSize + EXTRA_FOR_HAS_MORE;
+        if ("trending".equals(resolvedScope)) {
+            return getTrendingFeed(cursorTrendingScore, cursorCreatedAt, cursorId, fetchLimit, pageSize);
+        } else if ("following".equals(resolvedScope)) {
+            return getFollowingFeed(cursorCreatedAt, cursorId, fetchLimit, pageSize, userId);
+        }
+        // Latest feed: query posts table directly (canonical source)
+        return getLatestFeed(tag, cursorCreatedAt, cursorId, fetchLimit, pageSize);
+    }
+
+    /**
+     * Warm the shared body of the page the client will ask for next.
+     * Uses the cursor actually handed to the client, so the prefetched key matches its next request.
+     * Following pages are per viewer and are not prefetched.
+     */
+    private void prefetchNextPage(String tag, String resolvedScope, PostFeedDto.FeedResponse served, int pageSize) {
+        if (!served.isHasMore() || served.getNextCursor() == null || "following".equals(resolvedScope)) {
+            return;
+        }
+        String nextCursor = served.getNextCursor();
+        PostFeedDto.Cursor nextCursorData = decodeCursor(nextCursor);
+        if (nextCursorData == null) {
+            return;
+        }
+        String nextKey = feedCacheKey(tag, resolvedScope, nextCursor, pageSize, null);
+        feedPrefetcher.prefetch(nextKey, () -> buildSharedPage(resolvedScope, tag, nextCursorData, pageSize, null));
+    }
+
+    /**
+     * ETag of a feed page the viewer has already been served, computed without touching the database.
+     * Covers the cached body and the live counters {@link #applyLiveCounters} adds to it.
+     * Empty when the page is not cached, in which case the caller has to build it.
+     */
+    public Optional<String> getFeedETag(String tag, String scope, String cursor, Integer limit, UUID userId, boolean layout) {
+        int pageSize = limit != null && limit > 0 ? limit : DEFAULT_LIMIT;
+        String cacheKey = feedCacheKey(tag, normalizeScope(scope), cursor, pageSize, userId);
+        return cacheService.getPageStamp(cacheKey, userId)
+                .map(stamp -> "\"feed-" + stamp + "-" + Integer.toHexString(liveCounterVersion(cacheKey))
+                        + (layout ? "-l" : "") + "\"");
+    }
+
+    /**
+     * Hash of the live view and love counts of the posts on a cached page.
+     */
+    private int liveCounterVersion(String cacheKey) {
+        int version = 1;
+        for (UUID postId : cacheService.getPagePostIds(cacheKey).orElse(List.of())) {
+            version = 31 * version + Long.hashCode(viewCounterService.livePostViews(postId, 0L));
+            version = 31 * version + Objects.hashCode(likeCounterService.liveCount(postId));
+        }
+        return version;
+    }
+
+    private String feedCacheKey(String tag, String resolvedScope, String cursor, int pageSize, UUID userId) {
+        // Shared page body is viewer-independent; only following pages depend on who is asking
+        UUID pageOwnerId = "following".equals(resolvedScope) ? userId : null;
+        return cacheService.generateKey(resolvedScope, tag, cursor, pageSize, pageOwnerId);
+    }
+
+    /**
+     * Apply live view counts (flushed since the page was cached, or not flushed yet) and live love
+     * counts of recently liked posts.
+     * Posts without either are not copied.
+     */
+    private PostFeedDto.FeedResponse applyLiveCounters(PostFeedDto.FeedResponse page) {
+        if (page.getPosts() == null || page.getPosts().isEmpty()) {
+            return page;
+        }
+        boolean changed = false;
+        List<PostFeedDto> posts = new ArrayList<>(page.getPosts().size());
+        for (PostFeedDto post : page.getPosts()) {
+            int viewCount = (int) viewCounterService.livePostViews(post.getPostId(), post.getViewCount());
+            Integer loveCount = likeCounterService.liveCount(post.getPostId());
+            if (viewCount != post.getViewCount() || (loveCount != null && loveCount != post.getLikeCount())) {
+                posts.add(post.toBuilder()
+                        .viewCount(viewCount)
+                        .likeCount(loveCount != null ? loveCount : post.getLikeCount())
+                        .build());
+                changed = true;
+            } else {
+                posts.add(post);
+            }
+        }
+        return changed ? page.toBuilder().posts(posts).build() : page;
+    }
+
+    /**
+     * Apply the viewer's liked post IDs to a shared page body.
+     * Cached DTOs are never mutated; liked posts are copied with the flag set.
+     */
+    private PostFeedDto.FeedResponse applyLikedOverlay(PostFeedDto.FeedResponse shared, UUID userId, String cacheKey) {
+        if (userId == null || shared.getPosts() == null || shared.getPosts().isEmpty()) {
+            return shared;
+        }
+        Set<UUID> likedPostIds = cacheService.getLikedOverlay(userId, cacheKey).orElse(null);
+        if (likedPostIds == null) {
+            List<UUID> postIds = shared.getPosts().stream()
+                    .map(PostFeedDto::getPostId)
+                    .collect(Collectors.toList());
+            likedPostIds = loadLikedStatus(userId, postIds);
+            cacheService.putLikedOverlay(userId, cacheKey, likedPostIds);
+        }
+        if (likedPostIds.isEmpty()) {
+            return shared;
+        }
+        Set<UUID> liked = likedPostIds;
+        List<PostFeedDto> posts = shared.getPosts().stream()
+                .map(p -> liked.contains(p.getPostId()) ? p.toBuilder().isLikedByCurrentUser(true).build() : p)
+                .collect(Collectors.toList());
+        return shared.toBuilder().posts(posts).build();
+    }
+
     private String normalizeScope(String scope) {
         if (scope == null || scope.isBlank()) {
             return "latest";
@@ -145,107 +276,95 @@ public class FeedService {
     }
     
     /**
-     * Get feed from timeline table (index-only scan).
-     * Returns null if timeline is empty or has insufficient data (fallback protection).
+     * Get latest feed page from the in-process hot window.
+     * Page selection (keyset, hasMore) needs no database work; the selected rows are
+     * hydrated by primary key with the same column shape as the SQL path.
+     * Returns null when the window cannot answer this page (not built yet, or the
+     * cursor reaches past its oldest row), so the caller falls back to SQL.
+     * The end of the feed is always confirmed against the posts table, so posts that
+     * never reached post_timelines_global are not hidden behind a short page.
      */
     private PostFeedDto.FeedResponse getFeedFromTimeline(
-            Instant cursorCreatedAt, UUID cursorId, int fetchLimit, int pageSize, UUID userId) {
-        
-        // Check if timeline has entries
-        if (!timelineRepository.hasTimelineEntries()) {
+            Instant cursorCreatedAt, UUID cursorId, int fetchLimit, int pageSize) {
+
+        Optional<List<PostTimeline>> window = hotTimelineWindow.page(cursorCreatedAt, cursorId, fetchLimit);
+        if (window.isEmpty()) {
             return null;
         }
-        
-        // Query timeline - use separate queries for first page vs cursor pagination
-        List<PostTimeline> timelineRows;
-        if (cursorCreatedAt == null) {
-            // First page - no date filter to show all timeline posts
-            timelineRows = timelineRepository.findFeedFirstPage(PageRequest.of(0, fetchLimit));
-        } else {
-            // Cursor pagination without window
-            timelineRows = timelineRepository.findFeedWithCursor(cursorCreatedAt, cursorId, PageRequest.of(0, fetchLimit));
-        }
-        
-        if (timelineRows.isEmpty()) {
-            return PostFeedDto.FeedResponse.builder()
-                    .posts(Collections.emptyList())
-                    .nextCursor(null)
-                    .hasMore(false)
-                    .build();
-        }
-        
-        // FALLBACK PROTECTION: If timeline returns fewer rows than requested on first page,
-        // it may indicate timeline is out of sync. Check if direct query has more posts.
-        if (cursorCreatedAt == null && timelineRows.size() < pageSize) {
-            long timelineCount = timelineRepository.countByIsDeletedFalse();
-            long postCount = feedRepository.countAllActive();
-            
-            // If posts significantly exceed timeline entries, fall back to direct query
-            if (postCount > timelineCount + 5) {
-                log.warn("Timeline out of sync: {} timeline entries vs {} posts. Falling back to direct query.", 
-                        timelineCount, postCount);
-                return null;
-            }
+        List<PostTimeline> timelineRows = window.get();
+        if (timelineRows.size() < fetchLimit) {
+            // Out-of-sync guard: a short page claims there is nothing older; let SQL decide
+            return null;
         }
-        
-        // Determine hasMore
+
         boolean hasMore = timelineRows.size() > pageSize;
-        if (hasMore) {
-            timelineRows = timelineRows.subList(0, pageSize);
-        }
-        
-        // Extract post IDs for batch queries
-        List<UUID> postIds = timelineRows.stream()
+        List<UUID> pageIds = timelineRows.stream()
+                .limit(pageSize)
                 .map(PostTimeline::getPostId)
                 .collect(Collectors.toList());
-        
-        // Batch load media, tags, counts
-        Map<UUID, List<PostFeedDto.MediaVariantDto>> mediaByPost = loadMedia(postIds);
-        Map<UUID, List<String>> tagsByPost = loadTags(postIds);
-        Map<UUID, Integer> commentCounts = loadCommentCounts(postIds);
-        Map<UUID, List<PostFeedDto.ImageDimDto>> dimensionsByPost = loadMediaDimensions(postIds);
-        Map<UUID, PostMeta> postMetaById = loadPostMeta(postIds);
-        Map<UUID, AuthorSnapshot> authorsById = loadCurrentAuthors(timelineRows.stream()
-                .map(PostTimeline::getAuthorId)
+
+        List<Object[]> rows = findRowsInOrder(pageIds);
+        if (aggregatedQueries) {
+            return mapAggregatedRows(rows.stream(), rows.size(), false, hasMore);
+        }
+        return mapPageRows(rows, hasMore, false);
+    }
+
+    /**
+     * Hydrate posts selected in memory, keeping the given order.
+     * Rows deleted since the in-memory structure was updated simply drop out.
+     */
+    private List<Object[]> findRowsInOrder(List<UUID> postIds) {
+        Map<UUID, Object[]> rowsById = new HashMap<>();
+        List<Object[]> fetched = aggregatedQueries
+                ? feedRepository.findAggregatedFeedRowsByIds(postIds)
+                : feedRepository.findFeedRowsByIds(postIds);
+        for (Object[] row : fetched) {
+            rowsById.put((UUID) row[0], row);
+        }
+        return postIds.stream()
+                .map(rowsById::get)
                 .filter(Objects::nonNull)
-                .distinct()
-                .collect(Collectors.toList()));
-        // Use precomputed like counts from timeline, but still batch load liked status
-        Set<UUID> likedPostIds = userId != null ? loadLikedStatus(userId, postIds) : Collections.emptySet();
-
-        // Map to DTOs
-        List<PostFeedDto> posts = timelineRows.stream()
-                .map(t -> mapTimelineToDto(t, mediaByPost, tagsByPost, commentCounts, likedPostIds, dimensionsByPost, postMetaById, authorsById))
                 .collect(Collectors.toList());
-        
-        // Generate next cursor
-        String nextCursor = null;
-        if (hasMore && !posts.isEmpty()) {
-            PostFeedDto lastPost = posts.get(posts.size() - 1);
-            nextCursor = encodeCursor(lastPost.getCreatedAt(), lastPost.getPostId(), lastPost.getTrendingScore());
-        }
-        
-        return PostFeedDto.FeedResponse.builder()
-                .posts(posts)
-                .nextCursor(nextCursor)
-                .hasMore(hasMore)
-                .build();
     }
     
     /**
-     * Get latest feed from posts table (canonical source).
-     * Queries posts table directly with ORDER BY created_at DESC.
+     * Get latest feed. Untagged pages inside the hot window are selected in memory;
+     * tagged pages, cursors past the window and the end of the feed query the posts
+     * table (canonical source) with ORDER BY created_at DESC.
      */
     private PostFeedDto.FeedResponse getLatestFeed(
             String tag, Instant cursorCreatedAt, UUID cursorId,
-            int fetchLimit, int pageSize, UUID userId, String cacheKey) {
+            int fetchLimit, int pageSize) {
+
+        // Untagged pages inside the hot window are selected in memory
+        if (tag == null || tag.isBlank()) {
+            PostFeedDto.FeedResponse fromWindow = getFeedFromTimeline(cursorCreatedAt, cursorId, fetchLimit, pageSize);
+            if (fromWindow != null) {
+                return fromWindow;
+            }
+        }
         
+        boolean isFirstPage = (cursorCreatedAt == null);
+        boolean tagged = tag != null && !tag.isBlank();
+
+        if (aggregatedQueries) {
+            // Single round-trip: page, media, tags and meta in one statement
+            Stream<Object[]> stream = tagged
+                    ? (isFirstPage
+                        ? feedRepository.streamAggregatedFeedByTagFirstPage(tag, fetchLimit)
+                        : feedRepository.streamAggregatedFeedByTagWithCursor(tag, cursorCreatedAt, cursorId, fetchLimit))
+                    : (isFirstPage
+                        ? feedRepository.streamAggregatedFeedFirstPage(fetchLimit)
+                        : feedRepository.streamAggregatedFeedWithCursor(cursorCreatedAt, cursorId, fetchLimit));
+            return mapAggregatedRows(stream, pageSize, false, false);
+        }
+
         // Fetch posts (1 query)
         // Use separate queries for first page vs cursor pagination to avoid null parameter type inference issues
         List<Object[]> rows;
-        boolean isFirstPage = (cursorCreatedAt == null);
         
-        if (tag != null && !tag.isBlank()) {
+        if (tagged) {
             if (isFirstPage) {
                 rows = feedRepository.findFeedByTagFirstPage(tag, fetchLimit);
             } else {
@@ -259,54 +378,7 @@ public class FeedService {
             }
         }
 
-        if (rows.isEmpty()) {
-            return PostFeedDto.FeedResponse.builder()
-                    .posts(Collections.emptyList())
-                    .nextCursor(null)
-                    .hasMore(false)
-                    .build();
-        }
-
-        // Determine hasMore and trim to requested size
-        boolean hasMore = rows.size() > pageSize;
-        if (hasMore) {
-            rows = rows.subList(0, pageSize);
-        }
-
-        // Extract post IDs for batch queries
-        List<UUID> postIds = rows.stream()
-                .map(row -> (UUID) row[0])
-                .collect(Collectors.toList());
-
-        // Batch load media, tags, counts
-        Map<UUID, List<PostFeedDto.MediaVariantDto>> mediaByPost = loadMedia(postIds);
-        Map<UUID, List<String>> tagsByPost = loadTags(postIds);
-        Map<UUID, List<PostFeedDto.ImageDimDto>> dimensionsByPost = loadMediaDimensions(postIds);
-        Map<UUID, PostMeta> postMetaById = loadPostMeta(postIds);
-        Set<UUID> likedPostIds = userId != null ? loadLikedStatus(userId, postIds) : Collections.emptySet();
-
-        // Map to DTOs
-        List<PostFeedDto> posts = rows.stream()
-                .map(row -> mapToDto(row, mediaByPost, tagsByPost, likedPostIds, dimensionsByPost, postMetaById))
-                .collect(Collectors.toList());
-
-        // Generate next cursor
-        String nextCursor = null;
-        if (hasMore && !posts.isEmpty()) {
-            PostFeedDto lastPost = posts.get(posts.size() - 1);
-            nextCursor = encodeCursor(lastPost.getCreatedAt(), lastPost.getPostId(), lastPost.getTrendingScore());
-        }
-
-        PostFeedDto.FeedResponse response = PostFeedDto.FeedResponse.builder()
-                .posts(posts)
-                .nextCursor(nextCursor)
-                .hasMore(hasMore)
-                .build();
-
-        // Cache the response
-        cacheService.put(cacheKey, response);
-
-        return response;
+        return mapDirectRows(rows, pageSize, false);
     }
 
     /**
@@ -399,14 +471,10 @@ public class FeedService {
     }
 
     /**
-     * Batch load media resources and generate ImageKit variant URLs.
+     * Map batch-loaded media rows to ImageKit variant URLs.
      * Now includes width/height for layout engine.
      */
-    private Map<UUID, List<PostFeedDto.MediaVariantDto>> loadMedia(List<UUID> postIds) {
-        if (postIds.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        List<Object[]> rows = feedRepository.findMediaByPostIds(postIds);
+    private Map<UUID, List<PostFeedDto.MediaVariantDto>> mapMedia(List<Object[]> rows) {
         Map<UUID, List<PostFeedDto.MediaVariantDto>> result = new HashMap<>();
 
         for (Object[] row : rows) {
@@ -426,13 +494,9 @@ public class FeedService {
     }
     
     /**
-     * Batch load media dimensions for layout engine.
+     * Map batch-loaded media rows to dimensions for layout engine.
      */
-    private Map<UUID, List<PostFeedDto.ImageDimDto>> loadMediaDimensions(List<UUID> postIds) {
-        if (postIds.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        List<Object[]> rows = feedRepository.findMediaByPostIds(postIds);
+    private Map<UUID, List<PostFeedDto.ImageDimDto>> mapMediaDimensions(List<Object[]> rows) {
         Map<UUID, List<PostFeedDto.ImageDimDto>> result = new HashMap<>();
 
         for (Object[] row : rows) {
@@ -541,30 +605,6 @@ public class FeedService {
         return result;
     }
 
-    /**
-     * Batch load comment counts.
-     */
-    private Map<UUID, Integer> loadCommentCounts(List<UUID> postIds) {
-        if (postIds.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        List<Object[]> rows = feedRepository.countCommentsByPostIds(postIds);
-        Map<UUID, Integer> result = new HashMap<>();
-
-        for (Object[] row : rows) {
-            UUID postId = (UUID) row[0];
-            Number count = (Number) row[1];
-            result.put(postId, count.intValue());
-        }
-
-        // Posts with no comments won't appear in result - default to 0
-        for (UUID postId : postIds) {
-            result.putIfAbsent(postId, 0);
-        }
-
-        return result;
-    }
-
     /**
      * Batch load liked status for user.
      */
@@ -576,101 +616,6 @@ public class FeedService {
         return new HashSet<>(liked);
     }
 
-    /**
-     * Map timeline entity to PostFeedDto.
-     * Uses precomputed data from timeline for O(1) performance.
-     */
-    private PostFeedDto mapTimelineToDto(
-            PostTimeline timeline,
-            Map<UUID, List<PostFeedDto.MediaVariantDto>> mediaByPost,
-            Map<UUID, List<String>> tagsByPost,
-            Map<UUID, Integer> commentCounts,
-            Set<UUID> likedPostIds,
-            Map<UUID, List<PostFeedDto.ImageDimDto>> dimensionsByPost,
-            Map<UUID, PostMeta> postMetaById,
-            Map<UUID, AuthorSnapshot> authorsById) {
-
-        // Build repost metadata
-        boolean isRepost = timeline.getOriginalPostId() != null;
-        String originalContentPreview = null;
-        if (isRepost && timeline.getTextContent() != null) {
-            String content = timeline.getTextContent();
-            originalContentPreview = content.length() > 150 
-                    ? content.substring(0, 150) + "..." 
-                    : content;
-        }
-        
-        // Layout metadata
-        List<PostFeedDto.MediaVariantDto> media = mediaByPost.getOrDefault(timeline.getPostId(), Collections.emptyList());
-        int mediaCount = media.size();
-        int textLength = timeline.getTextContent() != null ? timeline.getTextContent().length() : 0;
-        List<PostFeedDto.ImageDimDto> imageDims = dimensionsByPost.getOrDefault(timeline.getPostId(), Collections.emptyList());
-        PostMeta meta = postMetaById.get(timeline.getPostId());
-        AuthorSnapshot author = authorsById.get(timeline.getAuthorId());
-        String authorName = author != null ? author.name : "User";
-        String authorAvatarUrl = avatarUrlResolver.resolveUserAvatar(timeline.getAuthorId(), author != null ? author.avatarUrl : null, authorName);
-        String authorRole = author != null ? author.role : null;
-        boolean authorVerifiedHost = author != null && author.verifiedHost;
-
-        return PostFeedDto.builder()
-                .postId(timeline.getPostId())
-                .textContent(timeline.getTextContent())
-                .createdAt(timeline.getCreatedAt())
-                .authorId(timeline.getAuthorId())
-                .authorName(authorName)
-                .authorAvatarUrl(authorAvatarUrl)
-                .authorRole(authorRole)
-                .authorVerifiedHost(authorVerifiedHost)
-                .commentCount(commentCounts.getOrDefault(timeline.getPostId(), 0))
-                .likeCount(timeline.getLikeCount())
-                .shareCount(timeline.getShareCount())
-                .homestayId(timeline.getHomestayId())
-                .homestayName(timeline.getHomestayName())
-                .destinationId(meta != null ? meta.destinationId : null)
-                .postType(meta != null ? meta.postType : null)
-                .tags(tagsByPost.getOrDefault(timeline.getPostId(), Collections.emptyList()))
-                .media(media)
-                .isRepost(isRepost)
-                .originalPostId(timeline.getOriginalPostId())
-                .originalContentPreview(originalContentPreview)
-                .isLikedByCurrentUser(likedPostIds.contains(timeline.getPostId()))
-                // Layout metadata
-                .mediaCount(mediaCount)
-                .textLength(textLength)
-                .imageDimensions(imageDims)
-                .isEditorial(meta != null && meta.isEditorial)
-                .isFeatured(meta != null && meta.isFeatured)
-                .isPinned(meta != null && meta.isPinned)
-                .isTrending(meta != null && meta.isTrending)
-                .viewCount(meta != null ? meta.viewCount : 0)
-                .trendingScore(meta != null ? meta.trendingScore : 0d)
-                .build();
-    }
-
-    private Map<UUID, AuthorSnapshot> loadCurrentAuthors(List<UUID> authorIds) {
-        if (authorIds.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        return userRepository.findSocialAuthorsByIds(authorIds).stream()
-                .collect(Collectors.toMap(
-                        UserRepository.SocialAuthorProjection::getId,
-                        user -> new AuthorSnapshot(
-                                buildAuthorName(user),
-                                user.getAvatarUrl(),
-                                user.getRole(),
-                                Boolean.TRUE.equals(user.getVerifiedHost()))));
-    }
-
-    private String buildAuthorName(UserRepository.SocialAuthorProjection user) {
-        if (user == null) {
-            return null;
-        }
-        String firstName = user.getFirstName() != null ? user.getFirstName().trim() : "";
-        String lastName = user.getLastName() != null ? user.getLastName().trim() : "";
-        String fullName = (firstName + (lastName.isBlank() ? "" : " " + lastName)).trim();
-        return fullName.isBlank() ? user.getEmail() : fullName;
-    }
-
     /**
      * Safely convert database value to boolean.
      * Handles both Boolean and Number (0/1) types from PostgreSQL.
@@ -689,13 +634,12 @@ public class FeedService {
             Object[] row,
             Map<UUID, List<PostFeedDto.MediaVariantDto>> mediaByPost,
             Map<UUID, List<String>> tagsByPost,
-            Set<UUID> likedPostIds,
             Map<UUID, List<PostFeedDto.ImageDimDto>> dimensionsByPost,
             Map<UUID, PostMeta> postMetaById) {
 
         UUID postId = (UUID) row[0];
         String textContent = (String) row[1];
-        Instant createdAt = toInstant(row[2]);
+        Instant createdAt = SqlValues.toInstant(row[2]);
         
         UUID authorId = (UUID) row[3];
         String authorName = (String) row[4];
@@ -766,7 +710,6 @@ public class FeedService {
                 .originalPostId(originalPostId)
                 .originalAuthorName(originalAuthorName)
                 .originalContentPreview(originalContentPreview)
-                .isLikedByCurrentUser(likedPostIds.contains(postId))
                 // Layout metadata
                 .mediaCount(mediaCount)
                 .textLength(textLength)
@@ -784,26 +727,79 @@ public class FeedService {
     }
 
     private PostFeedDto.FeedResponse getFollowingFeed(
-            Instant cursorCreatedAt, UUID cursorId, int fetchLimit, int pageSize, UUID userId, String cacheKey) {
+            Instant cursorCreatedAt, UUID cursorId, int fetchLimit, int pageSize, UUID userId) {
         if (userId == null) {
             return PostFeedDto.FeedResponse.builder().posts(Collections.emptyList()).nextCursor(null).hasMore(false).build();
         }
-        List<Object[]> rows = cursorCreatedAt == null
-                ? feedRepository.findFollowingFirstPage(userId, fetchLimit)
-                : feedRepository.findFollowingWithCursor(userId, cursorCreatedAt, cursorId, fetchLimit);
-        return mapDirectRows(rows, pageSize, userId, cacheKey, false);
+        List<Object[]> rows;
+        if (timelineInboxService.shouldReadFromInbox(userId)) {
+            // Fan-out-on-write: keyset scan over the viewer's inbox
+            rows = cursorCreatedAt == null
+                    ? feedRepository.findFollowingInboxFirstPage(userId, fetchLimit)
+                    : feedRepository.findFollowingInboxWithCursor(userId, cursorCreatedAt, cursorId, fetchLimit);
+        } else {
+            // Fan-out-on-read: join over user_follows for viewers following very many accounts
+            rows = cursorCreatedAt == null
+                    ? feedRepository.findFollowingFirstPage(userId, fetchLimit)
+                    : feedRepository.findFollowingWithCursor(userId, cursorCreatedAt, cursorId, fetchLimit);
+        }
+        return mapDirectRows(rows, pageSize, false);
     }
 
     private PostFeedDto.FeedResponse getTrendingFeed(
-            Double cursorTrendingScore, Instant cursorCreatedAt, UUID cursorId, int fetchLimit, int pageSize, UUID userId, String cacheKey) {
-        List<Object[]> rows = (cursorTrendingScore == null || cursorCreatedAt == null || cursorId == null)
+            Double cursorTrendingScore, Instant cursorCreatedAt, UUID cursorId, int fetchLimit, int pageSize) {
+        // Pages inside the live top-K are selected in memory with live scores
+        Optional<List<TrendingIndex.Entry>> live = trendingIndex.page(cursorTrendingScore, cursorCreatedAt, cursorId, fetchLimit);
+        if (live.isPresent()) {
+            return getTrendingFeedFromIndex(live.get(), pageSize);
+        }
+
+        boolean isFirstPage = cursorTrendingScore == null || cursorCreatedAt == null || cursorId == null;
+        if (aggregatedQueries) {
+            Stream<Object[]> stream = isFirstPage
+                    ? feedRepository.streamAggregatedTrendingFirstPage(fetchLimit)
+                    : feedRepository.streamAggregatedTrendingWithCursor(cursorTrendingScore, cursorCreatedAt, cursorId, fetchLimit);
+            return mapAggregatedRows(stream, pageSize, true, false);
+        }
+        List<Object[]> rows = isFirstPage
                 ? feedRepository.findTrendingFirstPage(fetchLimit)
                 : feedRepository.findTrendingWithCursor(cursorTrendingScore, cursorCreatedAt, cursorId, fetchLimit);
-        return mapDirectRows(rows, pageSize, userId, cacheKey, true);
+        return mapDirectRows(rows, pageSize, true);
+    }
+
+    private PostFeedDto.FeedResponse getTrendingFeedFromIndex(List<TrendingIndex.Entry> entries, int pageSize) {
+        if (entries.isEmpty()) {
+            return PostFeedDto.FeedResponse.builder().posts(Collections.emptyList()).nextCursor(null).hasMore(false).build();
+        }
+        boolean hasMore = entries.size() > pageSize;
+        Map<UUID, Double> liveScores = new HashMap<>();
+        List<UUID> pageIds = new ArrayList<>(pageSize);
+        for (TrendingIndex.Entry entry : entries.subList(0, Math.min(pageSize, entries.size()))) {
+            liveScores.put(entry.postId(), entry.score());
+            pageIds.add(entry.postId());
+        }
+
+        List<Object[]> rows = findRowsInOrder(pageIds);
+        PostFeedDto.FeedResponse page = aggregatedQueries
+                ? mapAggregatedRows(rows.stream(), rows.size(), true, hasMore)
+                : mapPageRows(rows, hasMore, true);
+        if (page.getPosts() == null || page.getPosts().isEmpty()) {
+            return page;
+        }
+
+        // Stored scores lag the index; the page and its cursor carry the live ones
+        List<PostFeedDto> posts = page.getPosts().stream()
+                .map(p -> p.toBuilder().trendingScore(liveScores.getOrDefault(p.getPostId(), p.getTrendingScore())).build())
+                .collect(Collectors.toList());
+        PostFeedDto lastPost = posts.get(posts.size() - 1);
+        return page.toBuilder()
+                .posts(posts)
+                .nextCursor(hasMore ? encodeCursor(lastPost.getCreatedAt(), lastPost.getPostId(), lastPost.getTrendingScore()) : null)
+                .build();
     }
 
     private PostFeedDto.FeedResponse mapDirectRows(
-            List<Object[]> rows, int pageSize, UUID userId, String cacheKey, boolean trending) {
+            List<Object[]> rows, int pageSize, boolean trending) {
         if (rows.isEmpty()) {
             return PostFeedDto.FeedResponse.builder().posts(Collections.emptyList()).nextCursor(null).hasMore(false).build();
         }
@@ -811,15 +807,31 @@ public class FeedService {
         if (hasMore) {
             rows = rows.subList(0, pageSize);
         }
+        return mapPageRows(rows, hasMore, trending);
+    }
+
+    /**
+     * Hydrate an already trimmed page of feed rows.
+     */
+    private PostFeedDto.FeedResponse mapPageRows(List<Object[]> rows, boolean hasMore, boolean trending) {
+        if (rows.isEmpty()) {
+            return PostFeedDto.FeedResponse.builder().posts(Collections.emptyList()).nextCursor(null).hasMore(false).build();
+        }
         List<UUID> postIds = rows.stream().map(row -> (UUID) row[0]).collect(Collectors.toList());
-        Map<UUID, List<PostFeedDto.MediaVariantDto>> mediaByPost = loadMedia(postIds);
-        Map<UUID, List<String>> tagsByPost = loadTags(postIds);
-        Map<UUID, List<PostFeedDto.ImageDimDto>> dimensionsByPost = loadMediaDimensions(postIds);
-        Map<UUID, PostMeta> postMetaById = loadPostMeta(postIds);
-        Set<UUID> likedPostIds = userId != null ? loadLikedStatus(userId, postIds) : Collections.emptySet();
+
+        // Independent lookups run concurrently; media rows feed both variants and dimensions
+        FeedHydrationStage.Batch batch = hydrationStage.begin();
+        Supplier<List<Object[]>> mediaRows = batch.submit("feed_media_lookup_time", () -> feedRepository.findMediaByPostIds(postIds));
+        Supplier<Map<UUID, List<String>>> tags = batch.submit("feed_tags_lookup_time", () -> loadTags(postIds));
+        Supplier<Map<UUID, PostMeta>> meta = batch.submit("feed_meta_lookup_time", () -> loadPostMeta(postIds));
+
+        Map<UUID, List<PostFeedDto.MediaVariantDto>> mediaByPost = mapMedia(mediaRows.get());
+        Map<UUID, List<PostFeedDto.ImageDimDto>> dimensionsByPost = mapMediaDimensions(mediaRows.get());
+        Map<UUID, List<String>> tagsByPost = tags.get();
+        Map<UUID, PostMeta> postMetaById = meta.get();
 
         List<PostFeedDto> posts = rows.stream()
-                .map(row -> mapToDto(row, mediaByPost, tagsByPost, likedPostIds, dimensionsByPost, postMetaById))
+                .map(row -> mapToDto(row, mediaByPost, tagsByPost, dimensionsByPost, postMetaById))
                 .collect(Collectors.toList());
 
         String nextCursor = null;
@@ -828,13 +840,99 @@ public class FeedService {
             nextCursor = encodeCursor(lastPost.getCreatedAt(), lastPost.getPostId(), trending ? lastPost.getTrendingScore() : null);
         }
 
-        PostFeedDto.FeedResponse response = PostFeedDto.FeedResponse.builder()
+        return PostFeedDto.FeedResponse.builder()
                 .posts(posts)
                 .nextCursor(nextCursor)
                 .hasMore(hasMore)
                 .build();
-        cacheService.put(cacheKey, response);
-        return response;
+    }
+
+    /**
+     * Streaming mapper for aggregated rows (feed.query.mode=aggregated).
+     * Each row already carries its meta columns and media/tags JSON, so rows are
+     * mapped one at a time as they are read; the extra row past pageSize only
+     * signals hasMore and is never mapped.
+     *
+     * @param knownHasMore hasMore decided by the caller (hot window path)
+     */
+    private PostFeedDto.FeedResponse mapAggregatedRows(
+            Stream<Object[]> stream, int pageSize, boolean trending, boolean knownHasMore) {
+        List<PostFeedDto> posts = new ArrayList<>(pageSize);
+        boolean hasMore = knownHasMore;
+        try (stream) {
+            Iterator<Object[]> it = stream.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                if (posts.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                posts.add(mapAggregatedRow(row));
+            }
+        }
+
+        String nextCursor = null;
+        if (hasMore && !posts.isEmpty()) {
+            PostFeedDto lastPost = posts.get(posts.size() - 1);
+            nextCursor = encodeCursor(lastPost.getCreatedAt(), lastPost.getPostId(), trending ? lastPost.getTrendingScore() : null);
+        }
+
+        return PostFeedDto.FeedResponse.builder()
+                .posts(posts)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore && !posts.isEmpty())
+                .build();
+    }
+
+    private PostFeedDto mapAggregatedRow(Object[] row) {
+        UUID postId = (UUID) row[0];
+        List<Object[]> mediaRows = parseMediaJson(postId, (String) row[28]);
+        List<String> tags = parseTagsJson((String) row[29]);
+        PostMeta meta = toPostMeta(row, 19);
+        return mapToDto(row,
+                mapMedia(mediaRows),
+                Map.of(postId, tags),
+                mapMediaDimensions(mediaRows),
+                Map.of(postId, meta));
+    }
+
+    /**
+     * Turn the media JSON array back into findMediaByPostIds-shaped rows
+     * (postId, mediaId, url, fileId, width, height) so the same mappers apply.
+     */
+    private List<Object[]> parseMediaJson(UUID postId, String json) {
+        if (json == null || json.isBlank()) {
+            return Collections.emptyList();
+        }
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            for (var node : objectMapper.readTree(json)) {
+                rows.add(new Object[]{
+                        postId,
+                        node.hasNonNull("id") ? UUID.fromString(node.get("id").asText()) : null,
+                        node.hasNonNull("url") ? node.get("url").asText() : null,
+                        node.hasNonNull("fileId") ? node.get("fileId").asText() : null,
+                        node.hasNonNull("width") ? node.get("width").asInt() : null,
+                        node.hasNonNull("height") ? node.get("height").asInt() : null
+                });
+            }
+            return rows;
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse aggregated media for post {}: {}", postId, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private List<String> parseTagsJson(String json) {
+        if (json == null || json.isBlank()) {
+            return Collections.emptyList();
+        }
+        try {
+            return Arrays.asList(objectMapper.readValue(json, String[].class));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse aggregated tags: {}", e.getMessage());
+            return Collections.emptyList();
+        }
     }
 
     private Map<UUID, PostMeta> loadPostMeta(List<UUID> postIds) {
@@ -843,36 +941,25 @@ public class FeedService {
         }
         Map<UUID, PostMeta> result = new HashMap<>();
         for (Object[] row : feedRepository.findPostMetaByIds(postIds)) {
-            UUID postId = (UUID) row[0];
-            result.put(postId, new PostMeta(
-                    (UUID) row[1],
-                    row[2] != null ? com.nbh.backend.model.PostType.fromValue(row[2].toString()) : null,
-                    row[3] != null ? ((Number) row[3]).intValue() : 0,
-                    toBoolean(row[4]),
-                    toBoolean(row[5]),
-                    toBoolean(row[6]),
-                    toBoolean(row[7]),
-                    row[8] != null ? ((Number) row[8]).doubleValue() : 0d,
-                    row[9] != null ? ((Number) row[9]).doubleValue() : 0d
-            ));
+            result.put((UUID) row[0], toPostMeta(row, 1));
         }
         return result;
     }
 
-    private Instant toInstant(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Instant instant) {
-            return instant;
-        }
-        if (value instanceof Timestamp timestamp) {
-            return timestamp.toInstant();
-        }
-        if (value instanceof java.time.LocalDateTime localDateTime) {
-            return localDateTime.toInstant(java.time.ZoneOffset.UTC);
-        }
-        return Instant.parse(value.toString());
+    /**
+     * Read the 9 post meta columns starting at {@code offset}.
+     */
+    private PostMeta toPostMeta(Object[] row, int offset) {
+        return new PostMeta(
+                (UUID) row[offset],
+                row[offset + 1] != null ? com.nbh.backend.model.PostType.fromValue(row[offset + 1].toString()) : null,
+                row[offset + 2] != null ? ((Number) row[offset + 2]).intValue() : 0,
+                toBoolean(row[offset + 3]),
+                toBoolean(row[offset + 4]),
+                toBoolean(row[offset + 5]),
+                toBoolean(row[offset + 6]),
+                row[offset + 7] != null ? ((Number) row[offset + 7]).doubleValue() : 0d,
+                row[offset + 8] != null ? ((Number) row[offset + 8]).doubleValue() : 0d);
     }
 
     private static class PostMeta {
@@ -906,18 +993,4 @@ public class FeedService {
             this.editorialScore = editorialScore;
         }
     }
-
-    private static class AuthorSnapshot {
-        private final String name;
-        private final String avatarUrl;
-        private final String role;
-        private final boolean verifiedHost;
-
-        private AuthorSnapshot(String name, String avatarUrl, String role, boolean verifiedHost) {
-            this.name = name;
-            this.avatarUrl = avatarUrl;
-            this.role = role;
-            this.verifiedHost = verifiedHost;
-        }
-    }
 }
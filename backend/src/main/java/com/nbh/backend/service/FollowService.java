@@ -21,6 +21,8 @@ public class FollowService {
 
     private final UserRepository userRepository;
     private final UserFollowRepository userFollowRepository;
+    private final TimelineInboxService timelineInboxService;
+    private final FeedCacheService feedCacheService;
 
     @Transactional
     public void followUser(UUID currentUserId, UUID targetUserId) {
@@ -46,6 +48,9 @@ public class FollowService {
                     .followedUserId(followed.getId())
                     .createdAt(OffsetDateTime.now(ZoneOffset.UTC))
                     .build());
+            timelineInboxService.onFollow(follower.getId(), followed.getId());
+            // Following pages and ETags of this viewer are no longer current
+            AfterCommit.run(() -> feedCacheService.invalidateViewer(follower.getId()));
         } catch (DataIntegrityViolationException ex) {
             // Composite PK guarantees uniqueness. Concurrent duplicate follows are treated as idempotent success.
             if (!userFollowRepository.isFollowing(follower.getId(), followed.getId())) {
@@ -60,6 +65,8 @@ public class FollowService {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
         }
         userFollowRepository.deleteByFollowerUserIdAndFollowedUserId(currentUserId, targetUserId);
+        timelineInboxService.onUnfollow(currentUserId, targetUserId);
+        AfterCommit.run(() -> feedCacheService.invalidateViewer(currentUserId));
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,127 @@
+package com.nbh.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable uniform grid over the coordinates of a search snapshot.
+ *
+ * Points are bucketed into square cells of {@code cellDegrees} and stored sorted by
+ * row-major cell index, so the cells of one bounding-box row are a contiguous run found
+ * with two binary searches. Slots without coordinates (NaN) are not indexed.
+ *
+ * A cell index shares a long with its slot, so the grid must have fewer than 2^31 cells:
+ * {@code cellDegrees} can be no finer than about 0.0055 degrees.
+ */
+final class GeoGrid {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double cellDegrees;
+    private final long columns;
+    private final double[] latitude;
+    private final double[] longitude;
+    // Distinct occupied cell indexes, ascending; points of cell i are slots[cellStart[i] .. cellStart[i + 1])
+    private final long[] cellKeys;
+    private final int[] cellStart;
+    private final int[] slots;
+
+    GeoGrid(double[] latitude, double[] longitude, double cellDegrees) {
+        if (!(cellDegrees > 0)) {
+            throw new IllegalArgumentException("Grid cell size must be positive: " + cellDegrees);
+        }
+        long rows = (long) Math.ceil(180.0 / cellDegrees) + 1;
+        long columns = (long) Math.ceil(360.0 / cellDegrees) + 1;
+        if (rows > Integer.MAX_VALUE || columns > Integer.MAX_VALUE || rows * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid cell size " + cellDegrees + " gives " + rows + " x " + columns
+                    + " cells; cell indexes must stay below 2^31");
+        }
+        this.cellDegrees = cellDegrees;
+        this.columns = columns;
+        this.latitude = latitude;
+        this.longitude = longitude;
+
+        // (cell << 32 | slot), sorted: groups slots by cell without boxing
+        long[] packed = new long[latitude.length];
+        int points = 0;
+        for (int slot = 0; slot < latitude.length; slot++) {
+            if (!Double.isNaN(latitude[slot]) && !Double.isNaN(longitude[slot])) {
+                packed[points++] = (cell(latitude[slot], longitude[slot]) << 32) | slot;
+            }
+        }
+        Arrays.sort(packed, 0, points);
+
+        slots = new int[points];
+        long[] keys = new long[points];
+        int[] starts = new int[points + 1];
+        int cells = 0;
+        for (int i = 0; i < points; i++) {
+            long key = packed[i] >>> 32;
+            slots[i] = (int) packed[i];
+            if (cells == 0 || keys[cells - 1] != key) {
+                keys[cells] = key;
+                starts[cells] = i;
+                cells++;
+            }
+        }
+        starts[cells] = points;
+        cellKeys = Arrays.copyOf(keys, cells);
+        cellStart = Arrays.copyOf(starts, cells + 1);
+    }
+
+    int cells() {
+        return cellKeys.length;
+    }
+
+    /**
+     * Set the bit of every slot inside the box (bounds inclusive, like BETWEEN).
+     */
+    void collect(double minLat, double maxLat, double minLng, double maxLng, long[] into) {
+        if (minLat > maxLat || minLng > maxLng || cellKeys.length == 0) {
+            return;
+        }
+        long firstRow = row(Math.max(minLat, -90.0));
+        long lastRow = row(Math.min(maxLat, 90.0));
+        long firstColumn = column(Math.max(minLng, -180.0));
+        long lastColumn = column(Math.min(maxLng, 180.0));
+        for (long row = firstRow; row <= lastRow; row++) {
+            int from = lowerBound(row * columns + firstColumn);
+            int to = lowerBound(row * columns + lastColumn + 1);
+            for (int cell = from; cell < to; cell++) {
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int slot = slots[i];
+                    double lat = latitude[slot];
+                    double lng = longitude[slot];
+                    if (lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng) {
+                        into[slot >>> 6] |= 1L << slot;
+                    }
+                }
+            }
+        }
+    }
+
+    static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private long cell(double lat, double lng) {
+        return row(Math.max(-90.0, Math.min(90.0, lat))) * columns + column(Math.max(-180.0, Math.min(180.0, lng)));
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((lat + 90.0) / cellDegrees);
+    }
+
+    private long column(double lng) {
+        return (long) Math.floor((lng + 180.0) / cellDegrees);
+    }
+
+    private int lowerBound(long key) {
+        int index = Arrays.binarySearch(cellKeys, key);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,249 @@
+package com.nbh.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.nbh.backend.repository.HomestayRepositoryCustom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Homestay search results keyed by a canonical fingerprint of the whole filter.
+ *
+ * Filters are normalised before they are keyed and queried: query lower-cased with collapsed
+ * whitespace, only requested amenities in sorted order, and the bounding box rounded outward
+ * to {@value #BOUNDS_SCALE} decimals so nearby viewports share entries.
+ *
+ * Entries are indexed by the state, else the tag, they filter on ({@code any} when neither),
+ * so a listing change visits only the entries of its own states and tags plus the unscoped
+ * ones, and evicts those whose filter matched the listing before or after the change.
+ * Entries computed by SQL ({@link #getScopeEvicted}) are evicted by scope alone, since the
+ * engine's text matching only approximates the database's.
+ */
+@Service
+@Slf4j
+public class HomestaySearchCache {
+
+    static final int BOUNDS_SCALE = 3;
+    private static final String ANY = "any";
+    private static final String STATE_PREFIX = "state:";
+    private static final String TAG_PREFIX = "tag:";
+
+    private final Cache<String, Entry> cache;
+    private final Map<String, Set<String>> keysByScope = new ConcurrentHashMap<>();
+    // Bumped by every eviction; a result computed across one is returned but not stored
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleWritesSkipped = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+
+    public HomestaySearchCache(@Value("${search.homestay-cache.ttl-minutes:10}") long ttlMinutes,
+                               @Value("${search.homestay-cache.max-entries:10000}") long maxEntries) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .executor(Runnable::run)
+                .removalListener((String key, Entry value, RemovalCause cause) -> {
+                    if (key != null && value != null && cause != RemovalCause.REPLACED) {
+                        unindex(key, value.scope());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * The filter every cached search is keyed and run with.
+     */
+    public static HomestayRepositoryCustom.SearchFilter normalize(HomestayRepositoryCustom.SearchFilter filter) {
+        Map<String, Boolean> amenities = new TreeMap<>();
+        if (filter.amenities() != null) {
+            filter.amenities().forEach((key, value) -> {
+                if (key != null && Boolean.TRUE.equals(value)) {
+                    amenities.put(key, true);
+                }
+            });
+        }
+        boolean bounded = filter.hasBounds();
+        return new HomestayRepositoryCustom.SearchFilter(
+                filter.hasQuery() ? filter.query().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) : null,
+                amenities,
+                blankToNull(filter.tag()),
+                blankToNull(filter.stateSlug()),
+                filter.isFeatured(),
+                bounded ? round(filter.minLat(), RoundingMode.FLOOR) : null,
+                bounded ? round(filter.maxLat(), RoundingMode.CEILING) : null,
+                bounded ? round(filter.minLng(), RoundingMode.FLOOR) : null,
+                bounded ? round(filter.maxLng(), RoundingMode.CEILING) : null);
+    }
+
+    /**
+     * Cache key of a normalised filter plus the paging arguments of the call.
+     */
+    public static String fingerprint(String mode, HomestayRepositoryCustom.SearchFilter filter, Object... paging) {
+        StringBuilder key = new StringBuilder(mode)
+                .append("|q=").append(filter.query() == null ? "" : filter.query())
+                .append("|a=").append(String.join(",", filter.amenities().keySet()))
+                .append("|t=").append(filter.tag() == null ? "" : filter.tag())
+                .append("|s=").append(filter.stateSlug() == null ? "" : filter.stateSlug())
+                .append("|f=").append(filter.isFeatured() == null ? "" : filter.isFeatured())
+                .append("|b=");
+        if (filter.hasBounds()) {
+            key.append(filter.minLat()).append(',').append(filter.maxLat()).append(',')
+                    .append(filter.minLng()).append(',').append(filter.maxLng());
+        }
+        for (Object part : paging) {
+            key.append('|').append(part == null ? "" : part);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Cached value for {@code key}, computing it with {@code loader} on a miss. Loader exceptions
+     * propagate and nothing is stored. The entry is evicted when a changed listing matches
+     * {@code filter} by the search engine's rules, so the loader must apply the same rules.
+     */
+    public <T> T get(String key, HomestayRepositoryCustom.SearchFilter filter, Supplier<T> loader) {
+        return get(key, filter, false, loader);
+    }
+
+    /**
+     * Like {@link #get}, for results computed by SQL: any change in the entry's state or tag
+     * scope evicts it, whether or not the engine thinks the listing matches.
+     */
+    public <T> T getScopeEvicted(String key, HomestayRepositoryCustom.SearchFilter filter, Supplier<T> loader) {
+        return get(key, filter, true, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, HomestayRepositoryCustom.SearchFilter filter, boolean scopeOnly, Supplier<T> loader) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            hits.increment();
+            return (T) entry.value();
+        }
+        misses.increment();
+        long startGeneration = currentGeneration();
+        T value = loader.get();
+        put(key, filter, value, scopeOnly, startGeneration);
+        return value;
+    }
+
+    /**
+     * Drop the entries a listing change can affect. {@code states} are the listing's state slugs
+     * before and after, {@code tagApplies} tells whether a tag filter can match it, and
+     * {@code affected} whether a filter matched it before or after.
+     */
+    public synchronized int evict(Collection<String> states, Predicate<String> tagApplies,
+                                  Predicate<HomestayRepositoryCustom.SearchFilter> affected) {
+        generation++;
+        int evicted = 0;
+        for (Map.Entry<String, Set<String>> scope : keysByScope.entrySet()) {
+            if (!inScope(scope.getKey(), states, tagApplies)) {
+                continue;
+            }
+            for (String key : Set.copyOf(scope.getValue())) {
+                Entry entry = cache.getIfPresent(key);
+                if (entry == null || entry.scopeOnly() || affected.test(entry.filter())) {
+                    cache.invalidate(key);
+                    evicted++;
+                }
+            }
+        }
+        evictions.add(evicted);
+        return evicted;
+    }
+
+    public synchronized void clear() {
+        generation++;
+        cache.invalidateAll();
+        keysByScope.clear();
+        clears.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.estimatedSize());
+        stats.put("scopes", keysByScope.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("hitRate", lookups == 0 ? 0d : (double) hitCount / lookups);
+        stats.put("targetedEvictions", evictions.sum());
+        stats.put("staleWritesSkipped", staleWritesSkipped.sum());
+        stats.put("clears", clears.sum());
+        return stats;
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    private synchronized void put(String key, HomestayRepositoryCustom.SearchFilter filter, Object value,
+                                  boolean scopeOnly, long startGeneration) {
+        if (startGeneration != generation) {
+            staleWritesSkipped.increment();
+            return;
+        }
+        String scope = scopeOf(filter);
+        keysByScope.computeIfAbsent(scope, s -> ConcurrentHashMap.newKeySet()).add(key);
+        cache.put(key, new Entry(filter, value, scope, scopeOnly));
+    }
+
+    private void unindex(String key, String scope) {
+        keysByScope.computeIfPresent(scope, (s, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static boolean inScope(String scope, Collection<String> states, Predicate<String> tagApplies) {
+        if (scope.startsWith(STATE_PREFIX)) {
+            return states.contains(scope.substring(STATE_PREFIX.length()));
+        }
+        if (scope.startsWith(TAG_PREFIX)) {
+            return tagApplies.test(scope.substring(TAG_PREFIX.length()));
+        }
+        return true;
+    }
+
+    private static String scopeOf(HomestayRepositoryCustom.SearchFilter filter) {
+        if (filter.stateSlug() != null) {
+            return STATE_PREFIX + filter.stateSlug();
+        }
+        if (filter.tag() != null) {
+            return TAG_PREFIX + filter.tag();
+        }
+        return ANY;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Double round(Double value, RoundingMode mode) {
+        return BigDecimal.valueOf(value).setScale(BOUNDS_SCALE, mode).doubleValue();
+    }
+
+    private record Entry(HomestayRepositoryCustom.SearchFilter filter, Object value, String scope,
+                         boolean scopeOnly) {
+    }
+}
@@ -0,0 +1,700 @@
+package com.nbh.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nbh.backend.dto.HomestayDto;
+import com.nbh.backend.dto.SearchCardDto;
+import com.nbh.backend.repository.HomestayRepository;
+import com.nbh.backend.repository.HomestayRepositoryCustom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process search over the approved homestay catalogue, serving the offset search pages
+ * of HomestayRepositoryImpl.searchCards without a database round trip.
+ *
+ * Tag, state, amenity, featured and bounding-box filters and the base order match the SQL
+ * exactly. Free-text queries only approximate it: terms go through a light suffix stripper
+ * rather than the english snowball stemmer, and the text rank is a weighted term average
+ * rather than ts_rank, so text results can differ from SQL in both match set and order.
+ * The keyset (cursor) search stays on SQL, and its cached pages are evicted by scope only,
+ * never judged by this engine's matching.
+ *
+ * Each snapshot holds the cards in base search order (featured, demand, popularity,
+ * value rating, created_at, id) together with:
+ * - an inverted index of name, address and description terms, as bitsets over card slots
+ * - bitsets per tag, per amenity, per state and for featured listings
+ * - primitive arrays for the order bucket, vibe score and coordinates
+ * - a uniform grid over the coordinates ({@link GeoGrid}) for viewport, cluster and nearby queries
+ *
+ * A search ANDs bitsets and scans the survivors, so set bits come out already in order
+ * unless a text rank applies. Snapshots are immutable and swapped atomically; a change to one
+ * listing reloads only that listing and re-indexes from memory. Every instance rebuilds
+ * from SQL periodically, which also picks up counter, rating and cross-instance changes.
+ * Either way only the cached result pages the changed listings can appear in are evicted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HomestaySearchEngine {
+
+    private static final Comparator<Doc> BASE_ORDER = Comparator
+            .comparingInt(Doc::bucket).reversed()
+            .thenComparing(Doc::rating, Comparator.reverseOrder())
+            .thenComparing(Doc::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Doc::id, SqlValues.PG_UUID_ORDER.reversed());
+
+    // Web map tiles: 256 px wide, so a cluster cell is 64 px on screen
+    private static final int CLUSTER_CELLS_PER_TILE = 4;
+    private static final int MAX_ZOOM = 22;
+
+    // Field weights of the stored search_vector (V8), as ts_rank applies them
+    private static final float NAME_WEIGHT = 1.0f;
+    private static final float ADDRESS_WEIGHT = 0.4f;
+    private static final float DESCRIPTION_WEIGHT = 0.2f;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it",
+            "of", "on", "or", "the", "to", "with");
+
+    private final HomestayRepository repository;
+    private final ObjectMapper objectMapper;
+    private final HomestaySearchCache searchCache;
+
+    @Value("${search.homestay-engine.enabled:true}")
+    private boolean enabled;
+
+    // About 5.5 km; one map pan at city zoom touches a handful of cells
+    @Value("${search.homestay-engine.grid-cell-degrees:0.05}")
+    private double gridCellDegrees;
+
+    @Value("${homestay.signals.popularInquiryThreshold:5}")
+    private long popularInquiryThreshold;
+
+    @Value("${homestay.signals.highDemandViewThreshold:200}")
+    private long highDemandViewThreshold;
+
+    private final Map<UUID, Doc> documents = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot;
+    private volatile Instant lastRebuildAt;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reload every approved listing from the database.
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<UUID, Doc> loaded = new HashMap<>();
+            for (HomestayRepositoryCustom.SearchDocument row : repository.findSearchDocuments(null)) {
+                Doc doc = toDoc(row);
+                loaded.put(doc.id(), doc);
+            }
+            boolean firstLoad = snapshot == null;
+            Map<UUID, Doc> previous = Map.copyOf(documents);
+            documents.keySet().retainAll(loaded.keySet());
+            documents.putAll(loaded);
+            publish();
+            lastRebuildAt = Instant.now();
+
+            if (firstLoad) {
+                // Anything cached so far came from the SQL fallback
+                searchCache.clear();
+            } else {
+                Set<UUID> ids = new HashSet<>(previous.keySet());
+                ids.addAll(loaded.keySet());
+                for (UUID id : ids) {
+                    Doc before = previous.get(id);
+                    Doc after = loaded.get(id);
+                    if (!Objects.equals(before, after)) {
+                        evictCachedResults(before, after);
+                    }
+                }
+            }
+            log.debug("Homestay search engine rebuilt with {} listings", loaded.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild homestay search engine: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-read one listing once the transaction that changed it has committed.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHomestayChanged(HomestayChangedEvent event) {
+        refresh(event.homestayId());
+    }
+
+    public synchronized void refresh(UUID homestayId) {
+        if (homestayId == null) {
+            return;
+        }
+        if (!enabled || snapshot == null) {
+            // No before/after documents to compare against
+            searchCache.clear();
+            return;
+        }
+        try {
+            List<HomestayRepositoryCustom.SearchDocument> rows = repository.findSearchDocuments(List.of(homestayId));
+            Doc before = documents.get(homestayId);
+            Doc after = rows.isEmpty() ? null : toDoc(rows.get(0));
+            if (after == null) {
+                // Deleted, rejected or not approved yet
+                documents.remove(homestayId);
+            } else {
+                documents.put(homestayId, after);
+            }
+            publish();
+            evictCachedResults(before, after);
+        } catch (Exception e) {
+            log.error("Failed to refresh homestay {} in search engine: {}", homestayId, e.getMessage());
+            searchCache.clear();
+        }
+    }
+
+    /**
+     * One page of search results, or empty when the engine is not loaded and the caller must query SQL.
+     */
+    public Optional<Page<SearchCardDto>> search(HomestayRepositoryCustom.SearchFilter filter, Pageable pageable) {
+        Snapshot current = snapshot;
+        if (!enabled || current == null) {
+            return Optional.empty();
+        }
+        long startNs = System.nanoTime();
+        try {
+            return Optional.of(current.search(filter, pageable));
+        } finally {
+            searches.increment();
+            searchNanos.add(System.nanoTime() - startNs);
+        }
+    }
+
+    /**
+     * Map markers for a viewport: matches grouped into cells of a quarter map tile at {@code zoom}.
+     * Empty while the engine is not loaded.
+     */
+    public Optional<List<HomestayDto.MapCluster>> clusters(HomestayRepositoryCustom.SearchFilter filter, int zoom) {
+        Snapshot current = loadedSnapshot();
+        if (current == null) {
+            return Optional.empty();
+        }
+        int safeZoom = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        double cellDegrees = 360.0 / (1L << safeZoom) / CLUSTER_CELLS_PER_TILE;
+        return Optional.of(current.clusters(filter, cellDegrees));
+    }
+
+    /**
+     * Approved listings within {@code radiusKm} of a listing, nearest first. Empty while the engine is not loaded.
+     */
+    public Optional<List<SearchCardDto>> nearby(UUID homestayId, double radiusKm, int limit) {
+        Snapshot current = loadedSnapshot();
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.nearby(homestayId, radiusKm, limit));
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        long count = searches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", current != null);
+        stats.put("listings", current == null ? 0 : current.docs.length);
+        stats.put("terms", current == null ? 0 : current.terms.size());
+        stats.put("tags", current == null ? 0 : current.tags.size());
+        stats.put("amenities", current == null ? 0 : current.amenities.size());
+        stats.put("snapshotBuiltAt", current == null ? null : current.builtAt.toString());
+        stats.put("snapshotBuildMicros", current == null ? 0 : current.buildMicros);
+        stats.put("lastRebuildAt", lastRebuildAt == null ? null : lastRebuildAt.toString());
+        stats.put("searches", count);
+        stats.put("avgSearchMicros", count == 0 ? 0 : searchNanos.sum() / count / 1000);
+        return stats;
+    }
+
+    // Map-only endpoints have no SQL fallback: they get 503 while a missing engine loads in the background
+    private Snapshot loadedSnapshot() {
+        Snapshot current = snapshot;
+        if (enabled && current == null && loading.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("homestay-search-load").start(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    loading.set(false);
+                }
+            });
+        }
+        return enabled ? current : null;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(documents.values(), gridCellDegrees);
+    }
+
+    // Pages cached before the change may show the listing, and pages that lacked it may now need it
+    private void evictCachedResults(Doc before, Doc after) {
+        Set<String> states = new HashSet<>();
+        for (Doc doc : new Doc[] { before, after }) {
+            if (doc != null && doc.card().getDestinationStateSlug() != null) {
+                states.add(doc.card().getDestinationStateSlug());
+            }
+        }
+        searchCache.evict(states,
+                tag -> tagApplies(before, tag) || tagApplies(after, tag),
+                filter -> matches(before, filter) || matches(after, filter));
+    }
+
+    /**
+     * Whether a filter selects a listing, with the same semantics as {@link Snapshot#match}.
+     */
+    private static boolean matches(Doc doc, HomestayRepositoryCustom.SearchFilter filter) {
+        if (doc == null) {
+            return false;
+        }
+        SearchCardDto card = doc.card();
+        if (filter.hasQuery()) {
+            List<String> queryTerms = terms(filter.query());
+            if (queryTerms.isEmpty() || !doc.termWeights().keySet().containsAll(queryTerms)) {
+                return false;
+            }
+        }
+        if (filter.hasBounds()) {
+            Double lat = card.getLatitude();
+            Double lng = card.getLongitude();
+            if (lat == null || lng == null || lat < filter.minLat() || lat > filter.maxLat()
+                    || lng < filter.minLng() || lng > filter.maxLng()) {
+                return false;
+            }
+        }
+        if (filter.isFeatured() != null && filter.isFeatured() != (doc.bucket() >= 4)) {
+            return false;
+        }
+        if (filter.amenities() != null) {
+            for (Map.Entry<String, Boolean> amenity : filter.amenities().entrySet()) {
+                if (Boolean.TRUE.equals(amenity.getValue()) && !doc.amenities().contains(amenity.getKey())) {
+                    return false;
+                }
+            }
+        }
+        if (filter.stateSlug() != null && !filter.stateSlug().isBlank()
+                && !filter.stateSlug().equals(card.getDestinationStateSlug())) {
+            return false;
+        }
+        return filter.tag() == null || filter.tag().isBlank() || tagApplies(doc, filter.tag());
+    }
+
+    private static boolean tagApplies(Doc doc, String tag) {
+        return doc != null && (doc.tags().contains(tag) || doc.addressLower().contains(tag.toLowerCase(Locale.ROOT)));
+    }
+
+    private Doc toDoc(HomestayRepositoryCustom.SearchDocument row) {
+        SearchCardDto card = row.card();
+        int bucket = (Boolean.TRUE.equals(card.getFeatured()) ? 4 : 0)
+                + (row.viewCount() >= highDemandViewThreshold ? 2 : 0)
+                + (row.inquiryCount() >= popularInquiryThreshold ? 1 : 0);
+
+        Map<String, Float> termWeights = new HashMap<>();
+        addTerms(termWeights, card.getDescription(), DESCRIPTION_WEIGHT);
+        addTerms(termWeights, card.getLocationName(), ADDRESS_WEIGHT);
+        addTerms(termWeights, card.getName(), NAME_WEIGHT);
+
+        Set<String> amenities = new HashSet<>();
+        readJson(row.amenitiesJson(), new TypeReference<Map<String, Object>>() {
+        }).ifPresent(map -> map.forEach((key, value) -> {
+            if (Boolean.TRUE.equals(value) || "true".equals(String.valueOf(value))) {
+                amenities.add(key);
+            }
+        }));
+        Set<String> tags = new HashSet<>();
+        readJson(row.tagsJson(), new TypeReference<List<String>>() {
+        }).ifPresent(list -> list.stream().filter(Objects::nonNull).forEach(tags::add));
+
+        return new Doc(card, card.getId(), bucket,
+                card.getAvgValueRating() == null ? 0d : card.getAvgValueRating(),
+                card.getVibeScore() == null ? 0d : card.getVibeScore(),
+                row.createdAt(), termWeights, Set.copyOf(tags), Set.copyOf(amenities),
+                card.getLocationName() == null ? "" : card.getLocationName().toLowerCase(Locale.ROOT));
+    }
+
+    private <T> Optional<T> readJson(String json, TypeReference<T> type) {
+        if (json == null || json.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(objectMapper.readValue(json, type));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void addTerms(Map<String, Float> termWeights, String text, float weight) {
+        for (String term : terms(text)) {
+            termWeights.merge(term, weight, Math::max);
+        }
+    }
+
+    /**
+     * Lower-cased words without stop words, with common English suffixes stripped so that
+     * "cottages" finds "cottage" - close to what the english text search configuration does.
+     */
+    static List<String> terms(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && !STOP_WORDS.contains(word)) {
+                terms.add(stem(word));
+            }
+        }
+        return terms;
+    }
+
+    private static String stem(String word) {
+        if (word.length() > 4 && word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.length() > 4 && (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses")
+                || word.endsWith("xes"))) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        if (word.length() > 5 && word.endsWith("ing")) {
+            return word.substring(0, word.length() - 3);
+        }
+        return word;
+    }
+
+    /**
+     * Published after a listing is created, updated, approved, rejected or deleted.
+     */
+    public record HomestayChangedEvent(UUID homestayId) {
+    }
+
+    private record Doc(SearchCardDto card, UUID id, int bucket, double rating, double vibe,
+                       LocalDateTime createdAt, Map<String, Float> termWeights, Set<String> tags,
+                       Set<String> amenities, String addressLower) {
+    }
+
+    private static final class Snapshot {
+
+        private final Doc[] docs;
+        private final int words;
+        private final long[] all;
+        private final long[] featured;
+        private final int[] bucket;
+        private final double[] vibe;
+        private final double[] latitude;
+        private final double[] longitude;
+        private final Map<String, long[]> terms = new HashMap<>();
+        private final Map<String, long[]> tags = new HashMap<>();
+        private final Map<String, long[]> amenities = new HashMap<>();
+        private final Map<String, long[]> states = new HashMap<>();
+        private final Map<UUID, Integer> slotById = new HashMap<>();
+        private final GeoGrid grid;
+        private final Instant builtAt = Instant.now();
+        private final long buildMicros;
+
+        Snapshot(Collection<Doc> source, double cellDegrees) {
+            long startNs = System.nanoTime();
+            docs = source.toArray(Doc[]::new);
+            Arrays.sort(docs, BASE_ORDER);
+            int n = docs.length;
+            words = (n + 63) >>> 6;
+            all = new long[words];
+            featured = new long[words];
+            bucket = new int[n];
+            vibe = new double[n];
+            latitude = new double[n];
+            longitude = new double[n];
+
+            for (int slot = 0; slot < n; slot++) {
+                Doc doc = docs[slot];
+                SearchCardDto card = doc.card();
+                set(all, slot);
+                slotById.put(doc.id(), slot);
+                if (doc.bucket() >= 4) {
+                    set(featured, slot);
+                }
+                bucket[slot] = doc.bucket();
+                vibe[slot] = doc.vibe();
+                latitude[slot] = card.getLatitude() == null ? Double.NaN : card.getLatitude();
+                longitude[slot] = card.getLongitude() == null ? Double.NaN : card.getLongitude();
+                for (String term : doc.termWeights().keySet()) {
+                    set(terms.computeIfAbsent(term, k -> new long[words]), slot);
+                }
+                for (String tag : doc.tags()) {
+                    set(tags.computeIfAbsent(tag, k -> new long[words]), slot);
+                }
+                for (String amenity : doc.amenities()) {
+                    set(amenities.computeIfAbsent(amenity, k -> new long[words]), slot);
+                }
+                if (card.getDestinationStateSlug() != null) {
+                    set(states.computeIfAbsent(card.getDestinationStateSlug(), k -> new long[words]), slot);
+                }
+            }
+            grid = new GeoGrid(latitude, longitude, cellDegrees);
+            buildMicros = (System.nanoTime() - startNs) / 1000;
+        }
+
+        Page<SearchCardDto> search(HomestayRepositoryCustom.SearchFilter filter, Pageable pageable) {
+            List<String> queryTerms = filter.hasQuery() ? terms(filter.query()) : List.of();
+            long[] bits = match(filter, queryTerms);
+
+            int total = cardinality(bits);
+            long offset = pageable.getOffset();
+            int size = pageable.getPageSize();
+            if (offset >= total) {
+                return new PageImpl<>(List.of(), pageable, total);
+            }
+
+            List<SearchCardDto> content = new ArrayList<>(size);
+            if (queryTerms.isEmpty()) {
+                // Slots are already in search order
+                int skipped = 0;
+                for (int slot = next(bits, 0); slot >= 0 && content.size() < size; slot = next(bits, slot + 1)) {
+                    if (skipped++ >= offset) {
+                        content.add(docs[slot].card());
+                    }
+                }
+            } else {
+                int[] matches = new int[total];
+                double[] rank = new double[docs.length];
+                int m = 0;
+                for (int slot = next(bits, 0); slot >= 0; slot = next(bits, slot + 1)) {
+                    matches[m++] = slot;
+                    rank[slot] = textRank(docs[slot], queryTerms) * 0.4 + vibe[slot] * 0.4;
+                }
+                // Rank sits between the bucket and the rating; slot order settles the rest
+                Integer[] ordered = Arrays.stream(matches).boxed().toArray(Integer[]::new);
+                Arrays.sort(ordered, Comparator
+                        .comparingInt((Integer slot) -> bucket[slot]).reversed()
+                        .thenComparing((Integer slot) -> rank[slot], Comparator.reverseOrder())
+                        .thenComparingInt(slot -> slot));
+                for (long i = offset; i < ordered.length && content.size() < size; i++) {
+                    content.add(docs[ordered[(int) i]].card());
+                }
+            }
+            return new PageImpl<>(content, pageable, total);
+        }
+
+        /**
+         * Matches grouped into square cells of {@code cellDegrees}, largest clusters first.
+         */
+        List<HomestayDto.MapCluster> clusters(HomestayRepositoryCustom.SearchFilter filter, double cellDegrees) {
+            List<String> queryTerms = filter.hasQuery() ? terms(filter.query()) : List.of();
+            long[] bits = match(filter, queryTerms);
+
+            Map<Long, double[]> cells = new HashMap<>();
+            Map<Long, Integer> firstSlot = new HashMap<>();
+            long columns = (long) Math.ceil(360.0 / cellDegrees) + 1;
+            for (int slot = next(bits, 0); slot >= 0; slot = next(bits, slot + 1)) {
+                if (Double.isNaN(latitude[slot]) || Double.isNaN(longitude[slot])) {
+                    continue;
+                }
+                long key = (long) Math.floor((latitude[slot] + 90.0) / cellDegrees) * columns
+                        + (long) Math.floor((longitude[slot] + 180.0) / cellDegrees);
+                // {count, sum of latitudes, sum of longitudes}
+                double[] cell = cells.computeIfAbsent(key, k -> new double[3]);
+                cell[0]++;
+                cell[1] += latitude[slot];
+                cell[2] += longitude[slot];
+                firstSlot.putIfAbsent(key, slot);
+            }
+
+            List<HomestayDto.MapCluster> clusters = new ArrayList<>(cells.size());
+            cells.forEach((key, cell) -> {
+                int count = (int) cell[0];
+                HomestayDto.MapCluster.MapClusterBuilder cluster = HomestayDto.MapCluster.builder()
+                        .latitude(cell[1] / count)
+                        .longitude(cell[2] / count)
+                        .count(count);
+                if (count == 1) {
+                    cluster.homestayId(docs[firstSlot.get(key)].id());
+                }
+                clusters.add(cluster.build());
+            });
+            clusters.sort(Comparator.comparingInt(HomestayDto.MapCluster::getCount).reversed());
+            return clusters;
+        }
+
+        /**
+         * Up to {@code limit} listings within {@code radiusKm} of a listing, nearest first.
+         * Empty when the listing is not indexed or has no coordinates.
+         */
+        List<SearchCardDto> nearby(UUID homestayId, double radiusKm, int limit) {
+            Integer origin = slotById.get(homestayId);
+            if (origin == null || Double.isNaN(latitude[origin]) || Double.isNaN(longitude[origin])) {
+                return List.of();
+            }
+            double lat = latitude[origin];
+            double lng = longitude[origin];
+            double dLat = radiusKm / 111.32;
+            double dLng = radiusKm / (111.32 * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+
+            long[] bits = new long[words];
+            grid.collect(lat - dLat, lat + dLat, lng - dLng, lng + dLng, bits);
+            clear(bits, origin);
+
+            List<double[]> candidates = new ArrayList<>();
+            for (int slot = next(bits, 0); slot >= 0; slot = next(bits, slot + 1)) {
+                double distance = GeoGrid.distanceKm(lat, lng, latitude[slot], longitude[slot]);
+                if (distance <= radiusKm) {
+                    candidates.add(new double[] { distance, slot });
+                }
+            }
+            candidates.sort(Comparator.comparingDouble((double[] c) -> c[0]));
+            return candidates.stream()
+                    .limit(limit)
+                    .map(c -> docs[(int) c[1]].card())
+                    .toList();
+        }
+
+        private long[] match(HomestayRepositoryCustom.SearchFilter filter, List<String> queryTerms) {
+            if (filter.hasQuery() && queryTerms.isEmpty()) {
+                // Nothing but stop words: an empty tsquery matches no rows either
+                return new long[words];
+            }
+
+            long[] bits = all.clone();
+            if (filter.hasBounds()) {
+                long[] inBox = new long[words];
+                grid.collect(filter.minLat(), filter.maxLat(), filter.minLng(), filter.maxLng(), inBox);
+                bits = inBox;
+            }
+
+            if (Boolean.TRUE.equals(filter.isFeatured())) {
+                and(bits, featured);
+            } else if (Boolean.FALSE.equals(filter.isFeatured())) {
+                andNot(bits, featured);
+            }
+
+            for (String term : queryTerms) {
+                and(bits, terms.get(term));
+            }
+
+            if (filter.amenities() != null) {
+                for (Map.Entry<String, Boolean> amenity : filter.amenities().entrySet()) {
+                    if (Boolean.TRUE.equals(amenity.getValue())) {
+                        and(bits, amenities.get(amenity.getKey()));
+                    }
+                }
+            }
+
+            if (filter.stateSlug() != null && !filter.stateSlug().isBlank()) {
+                and(bits, states.get(filter.stateSlug()));
+            }
+
+            String tag = filter.tag();
+            if (tag != null && !tag.isBlank()) {
+                // Tag element, or the tag text anywhere in the address
+                long[] tagged = tags.containsKey(tag) ? tags.get(tag).clone() : new long[words];
+                String needle = tag.toLowerCase(Locale.ROOT);
+                for (int slot = next(bits, 0); slot >= 0; slot = next(bits, slot + 1)) {
+                    if (docs[slot].addressLower().contains(needle)) {
+                        set(tagged, slot);
+                    }
+                }
+                and(bits, tagged);
+            }
+            return bits;
+        }
+
+        private static int cardinality(long[] bits) {
+            int total = 0;
+            for (long word : bits) {
+                total += Long.bitCount(word);
+            }
+            return total;
+        }
+
+        private static double textRank(Doc doc, List<String> queryTerms) {
+            double sum = 0d;
+            for (String term : queryTerms) {
+                sum += doc.termWeights().getOrDefault(term, 0f);
+            }
+            return sum / queryTerms.size();
+        }
+
+        private static void set(long[] bits, int slot) {
+            bits[slot >>> 6] |= 1L << slot;
+        }
+
+        private static void clear(long[] bits, int slot) {
+            bits[slot >>> 6] &= ~(1L << slot);
+        }
+
+        private static void and(long[] bits, long[] other) {
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] &= other == null ? 0L : other[i];
+            }
+        }
+
+        private static void andNot(long[] bits, long[] other) {
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] &= ~other[i];
+            }
+        }
+
+        /**
+         * First set slot at or after {@code from}, or -1.
+         */
+        private static int next(long[] bits, int from) {
+            int word = from >>> 6;
+            if (word >= bits.length) {
+                return -1;
+            }
+            long current = bits[word] & (-1L << from);
+            while (true) {
+                if (current != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(current);
+                }
+                if (++word == bits.length) {
+                    return -1;
+                }
+                current = bits[word];
+            }
+        }
+    }
+}
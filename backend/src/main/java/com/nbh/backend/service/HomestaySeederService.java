@@ -32,6 +32,7 @@ public class HomestaySeederService {
         private final PostRepository postRepository;
         private final ReviewRepository reviewRepository;
         private final TimelineRepository timelineRepository;
+        private final HotTimelineWindow hotTimelineWindow;
         private final TripBoardSaveRepository tripBoardSaveRepository;
         private final UserRepository userRepository;
         private final PasswordEncoder passwordEncoder;
@@ -56,6 +57,7 @@ public class HomestaySeederService {
                                 .toList();
                 postRepository.clearAllHomestayReferences();
                 timelineRepository.clearAllHomestayReferences();
+                hotTimelineWindow.rebuild();
                 homestayIds.forEach(tripBoardSaveRepository::deleteByHomestayId);
                 log.info("Cleared homestay references from posts, timeline, and {} trip board saves", homestayIds.size());
 
@@ -140,7 +142,8 @@ public class HomestaySeederService {
                                 List.of("https://images.unsplash.com/photo-1540541338287-41700207dee6",
                                                 "https://images.unsplash.com/photo-1582719508461-905c673771fd")));
 
-                homestayRepository.saveAll(seedData);
+                List<Homestay> saved = homestayRepository.saveAll(seedData);
+                homestayRepository.refreshCoverImages(saved.stream().map(Homestay::getId).toList());
                 log.info("Successfully seeded {} hyper-realistic homestays.", seedData.size());
         }
 
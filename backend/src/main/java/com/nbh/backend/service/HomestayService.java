@@ -9,6 +9,7 @@ import com.nbh.backend.model.Homestay;
 import com.nbh.backend.model.MediaResource;
 import com.nbh.backend.model.User;
 import com.nbh.backend.repository.HomestayRepository;
+import com.nbh.backend.repository.HomestayRepositoryCustom;
 import com.nbh.backend.repository.MediaResourceRepository;
 import com.nbh.backend.repository.MediaUploadRepository;
 import com.nbh.backend.repository.UserRepository;
@@ -21,6 +22,8 @@ import org.springframework.http.HttpStatus;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Base64;
 import java.util.UUID;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -39,10 +42,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -65,6 +67,11 @@ public class HomestayService {
         private final com.nbh.backend.repository.DestinationRepository destinationRepository;
         private final DestinationService destinationService;
         private final ObjectMapper objectMapper;
+        private final ViewCounterService viewCounterService;
+        private final ViewDeduplicator viewDeduplicator;
+        private final HomestaySearchEngine searchEngine;
+        private final HomestaySearchCache searchCache;
+        private final ApplicationEventPublisher eventPublisher;
 
         @Value("${homestay.signals.popularInquiryThreshold:5}")
         private long popularInquiryThreshold;
@@ -72,9 +79,10 @@ public class HomestayService {
         @Value("${homestay.signals.highDemandViewThreshold:200}")
         private long highDemandViewThreshold;
 
-        private final ConcurrentHashMap<String, LocalDateTime> viewThrottle = new ConcurrentHashMap<>();
+        // Cursor search totals stop counting here and report "1000+"
+        @Value("${homestay.search.total-cap:1000}")
+        private long searchTotalCap;
 
-        @CacheEvict(value = "homestaysSearch", allEntries = true)
         @org.springframework.transaction.annotation.Transactional
         public HomestayDto.Response createHomestay(HomestayDto.Request request,
                         List<org.springframework.web.multipart.MultipartFile> files, String userEmail) {
@@ -145,6 +153,8 @@ public class HomestayService {
                 applyExtendedFields(homestay, request);
 
                 Homestay saved = repository.save(homestay);
+                repository.refreshCoverImages(List.of(saved.getId()));
+                eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(saved.getId()));
                 List<String> attachedFileIds = new ArrayList<>(collectReferencedFileIds(request));
                 attachedFileIds.addAll(uploadedFileIds);
                 attachedFileIds = attachedFileIds.stream().distinct().toList();
@@ -153,60 +163,32 @@ public class HomestayService {
                 return mapToResponse(saved);
         }
 
-        @CacheEvict(value = "homestay", key = "#id")
-        @org.springframework.transaction.annotation.Transactional
+        /**
+         * Count a view. Written behind in batches and never evicts cached homestay details.
+         */
         public void incrementView(UUID id, HttpServletRequest request) {
                 if (id == null) {
                         return;
                 }
 
-                String clientKey = buildClientThrottleKey(id, request);
-                if (clientKey != null) {
-                        LocalDateTime now = LocalDateTime.now();
-                        LocalDateTime last = viewThrottle.get(clientKey);
-                        if (last != null && last.isAfter(now.minusHours(1))) {
-                                return;
-                        }
-                        viewThrottle.put(clientKey, now);
+                if (!viewDeduplicator.firstView(ViewDeduplicator.Kind.HOMESTAY, id, request)) {
+                        return;
                 }
-
-                repository.incrementViewCount(id);
+                viewCounterService.recordHomestayView(id);
         }
 
-        @Caching(evict = {
-                        @CacheEvict(value = "homestay", key = "#id"),
-                        @CacheEvict(value = "homestaysSearch", allEntries = true)
-        })
+        @CacheEvict(value = "homestay", key = "#id")
         @org.springframework.transaction.annotation.Transactional
         public void incrementInquiry(UUID id) {
                 if (id == null) {
                         return;
                 }
                 repository.incrementInquiryCount(id);
-        }
-
-        private String buildClientThrottleKey(UUID homestayId, HttpServletRequest request) {
-                if (request == null) {
-                        return null;
-                }
-                String ip = request.getHeader("X-Forwarded-For");
-                if (ip == null || ip.isBlank()) {
-                        ip = request.getRemoteAddr();
-                } else {
-                        // First IP in X-Forwarded-For is the client
-                        int comma = ip.indexOf(',');
-                        if (comma > -1) {
-                                ip = ip.substring(0, comma).trim();
-                        }
-                }
-                if (ip == null || ip.isBlank()) {
-                        return null;
-                }
-                return homestayId + "|" + ip;
+                // The inquiry count moves the listing between popularity buckets
+                eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(id));
         }
 
         @org.springframework.transaction.annotation.Transactional(readOnly = true)
-        @Cacheable(value = "homestaysSearch", key = "(#query ?: 'null') + '-' + (#tag ?: 'null') + '-' + (#stateSlug ?: 'null') + '-' + (#isFeatured ?: 'null') + '-' + #size + '-' + #page", sync = true)
         public Page<HomestayDto.Response> searchHomestays(String query, String tag, String stateSlug,
                         Boolean isFeatured,
                         Double minLat, Double maxLat, Double minLng, Double maxLng,
@@ -215,13 +197,19 @@ public class HomestayService {
                 int safePage = Math.max(page, 0);
                 Pageable pageable = PageRequest.of(safePage, safeSize);
 
+                HomestayRepositoryCustom.SearchFilter filter = HomestaySearchCache.normalize(
+                                new HomestayRepositoryCustom.SearchFilter(query, Collections.emptyMap(), tag, stateSlug,
+                                                isFeatured, minLat, maxLat, minLng, maxLng));
+
                 try {
-                        Page<SearchCardDto> homestayPage = repository.searchCards(query, Collections.emptyMap(),
-                                        tag, stateSlug,
-                                        isFeatured,
-                                        minLat, maxLat, minLng, maxLng,
-                                        pageable);
-                        return homestayPage.map(this::mapSearchCardToResponse);
+                        return searchCache.get(HomestaySearchCache.fingerprint("page", filter, safePage, safeSize), filter,
+                                        () -> searchEngine.search(filter, pageable)
+                                                        .orElseGet(() -> repository.searchCards(filter.query(),
+                                                                        filter.amenities(), filter.tag(), filter.stateSlug(),
+                                                                        filter.isFeatured(),
+                                                                        filter.minLat(), filter.maxLat(), filter.minLng(),
+                                                                        filter.maxLng(), pageable))
+                                                        .map(this::mapSearchCardToResponse));
                 } catch (Exception e) {
                         log.error("Homestay search failed. query={}, tag={}, stateSlug={}, isFeatured={}, page={}, size={}",
                                         query, tag, stateSlug, isFeatured, page, size, e);
@@ -229,14 +217,119 @@ public class HomestayService {
                 }
         }
 
+        /**
+         * Keyset variant of {@link #searchHomestays}: the page after {@code cursor} (from the top when blank),
+         * with no OFFSET scan and only the total the caller asks for.
+         */
+        @org.springframework.transaction.annotation.Transactional(readOnly = true)
+        public HomestayDto.SearchSlice searchHomestaysAfter(String query, String tag, String stateSlug,
+                        Boolean isFeatured,
+                        Double minLat, Double maxLat, Double minLng, Double maxLng,
+                        String cursor, int size, HomestayDto.SearchTotal total) {
+                int safeSize = Math.max(1, Math.min(size, 24));
+                HomestayRepositoryCustom.SearchFilter filter = HomestaySearchCache.normalize(
+                                new HomestayRepositoryCustom.SearchFilter(query, Collections.emptyMap(), tag, stateSlug,
+                                                isFeatured, minLat, maxLat, minLng, maxLng));
+                String key = HomestaySearchCache.fingerprint("cursor", filter, cursor, safeSize, total);
+
+                try {
+                        // Computed by SQL, whose text matching the engine only approximates
+                        return searchCache.getScopeEvicted(key, filter, () -> {
+                                List<HomestayRepositoryCustom.KeyedCard> rows = repository.searchCardsAfter(filter,
+                                                decodeSearchCursor(cursor), safeSize + 1);
+                                boolean hasMore = rows.size() > safeSize;
+                                List<HomestayRepositoryCustom.KeyedCard> pageRows = hasMore ? rows.subList(0, safeSize) : rows;
+
+                                HomestayDto.SearchSlice.SearchSliceBuilder slice = HomestayDto.SearchSlice.builder()
+                                                .content(pageRows.stream().map(row -> mapSearchCardToResponse(row.card())).toList())
+                                                .hasMore(hasMore)
+                                                .nextCursor(hasMore ? encodeSearchCursor(pageRows.get(pageRows.size() - 1).key()) : null);
+                                applySearchTotal(slice, filter, total);
+                                return slice.build();
+                        });
+                } catch (Exception e) {
+                        log.error("Homestay cursor search failed. query={}, tag={}, stateSlug={}, isFeatured={}, size={}",
+                                        query, tag, stateSlug, isFeatured, size, e);
+                        return HomestayDto.SearchSlice.builder().content(List.of()).build();
+                }
+        }
+
+        private void applySearchTotal(HomestayDto.SearchSlice.SearchSliceBuilder slice,
+                        HomestayRepositoryCustom.SearchFilter filter, HomestayDto.SearchTotal total) {
+                switch (total == null ? HomestayDto.SearchTotal.NONE : total) {
+                        case EXACT -> slice.totalMode(HomestayDto.SearchTotal.EXACT)
+                                        .totalElements(repository.countCards(filter));
+                        case CAPPED -> applyCappedTotal(slice, filter);
+                        case ESTIMATE -> {
+                                OptionalLong estimate = repository.estimateCards(filter);
+                                if (estimate.isPresent() && estimate.getAsLong() > searchTotalCap) {
+                                        slice.totalMode(HomestayDto.SearchTotal.ESTIMATE)
+                                                        .totalElements(estimate.getAsLong());
+                                } else {
+                                        // Small results are counted; the planner is least reliable there
+                                        applyCappedTotal(slice, filter);
+                                }
+                        }
+                        case NONE -> {
+                        }
+                }
+        }
+
+        private void applyCappedTotal(HomestayDto.SearchSlice.SearchSliceBuilder slice,
+                        HomestayRepositoryCustom.SearchFilter filter) {
+                long counted = repository.countCardsUpTo(filter, searchTotalCap + 1);
+                boolean capped = counted > searchTotalCap;
+                slice.totalMode(capped ? HomestayDto.SearchTotal.CAPPED : HomestayDto.SearchTotal.EXACT)
+                                .totalElements(capped ? searchTotalCap : counted)
+                                .totalCapped(capped);
+        }
+
+        private HomestayRepositoryCustom.SortKey decodeSearchCursor(String cursor) {
+                if (cursor == null || cursor.isBlank()) {
+                        return null;
+                }
+                try {
+                        HomestayDto.SearchCursor decoded = objectMapper.readValue(
+                                        Base64.getUrlDecoder().decode(cursor), HomestayDto.SearchCursor.class);
+                        return new HomestayRepositoryCustom.SortKey(decoded.isFeatured(), decoded.getDemand(),
+                                        decoded.getPopular(), decoded.getRank(), decoded.getRating(),
+                                        decoded.getCreatedAt(), decoded.getId());
+                } catch (IllegalArgumentException | IOException e) {
+                        log.warn("Invalid search cursor provided: {}", cursor);
+                        return null;
+                }
+        }
+
+        private String encodeSearchCursor(HomestayRepositoryCustom.SortKey key) {
+                HomestayDto.SearchCursor cursor = HomestayDto.SearchCursor.builder()
+                                .featured(key.featured())
+                                .demand(key.demand())
+                                .popular(key.popular())
+                                .rank(key.rank())
+                                .rating(key.rating())
+                                .createdAt(key.createdAt())
+                                .id(key.id())
+                                .build();
+                try {
+                        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+                } catch (IOException e) {
+                        throw new java.io.UncheckedIOException(e);
+                }
+        }
+
+        private static List<MediaDto> coverMedia(String url, Integer width, Integer height) {
+                return url == null || url.isBlank()
+                                ? new ArrayList<>()
+                                : List.of(MediaDto.builder().url(url).width(width).height(height).build());
+        }
+
         private HomestayDto.Response mapSearchCardToResponse(SearchCardDto card) {
                 String firstName = card.getHostFirstName() == null ? "" : card.getHostFirstName();
                 String lastName = card.getHostLastName() == null ? "" : card.getHostLastName();
                 String hostName = (firstName + " " + lastName).trim();
 
-                List<MediaDto> media = card.getCoverImageUrl() == null || card.getCoverImageUrl().isBlank()
-                                ? new ArrayList<>()
-                                : List.of(MediaDto.builder().url(card.getCoverImageUrl()).build());
+                List<MediaDto> media = coverMedia(card.getCoverImageUrl(), card.getCoverImageWidth(),
+                                card.getCoverImageHeight());
 
                 DestinationDto destination = card.getDestinationId() == null && card.getDestinationSlug() == null
                                 ? null
@@ -327,33 +420,28 @@ public class HomestayService {
         }
 
         @org.springframework.transaction.annotation.Transactional
-        @Caching(evict = {
-                        @CacheEvict(value = "homestay", key = "#id"),
-                        @CacheEvict(value = "homestaysSearch", allEntries = true)
-        })
+        @CacheEvict(value = "homestay", key = "#id")
         public void approveHomestay(UUID id) {
                 Homestay homestay = repository.findById(id)
                                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                                                 "Homestay not found"));
                 homestay.setStatus(Homestay.Status.APPROVED);
                 repository.save(homestay);
+                eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(id));
         }
 
         @org.springframework.transaction.annotation.Transactional
-        @Caching(evict = {
-                        @CacheEvict(value = "homestay", key = "#id"),
-                        @CacheEvict(value = "homestaysSearch", allEntries = true)
-        })
+        @CacheEvict(value = "homestay", key = "#id")
         public void rejectHomestay(UUID id) {
                 Homestay homestay = repository.findById(id)
                                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                                                 "Homestay not found"));
                 homestay.setStatus(Homestay.Status.REJECTED);
                 repository.save(homestay);
+                eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(id));
         }
 
-        @Caching(put = { @CachePut(value = "homestay", key = "#id") }, evict = {
-                        @CacheEvict(value = "homestaysSearch", allEntries = true) })
+        @CachePut(value = "homestay", key = "#id")
         @org.springframework.transaction.annotation.Transactional
         public HomestayDto.Response updateHomestay(UUID id, HomestayDto.Request request,
                         List<org.springframework.web.multipart.MultipartFile> files, String userEmail) {
@@ -500,6 +588,10 @@ public class HomestayService {
                 applyExtendedFields(homestay, request);
 
                 Homestay saved = repository.save(homestay);
+                if (request.getMedia() != null || (files != null && !files.isEmpty())) {
+                        repository.refreshCoverImages(List.of(saved.getId()));
+                }
+                eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(saved.getId()));
                 List<String> attachedFileIds = new ArrayList<>(collectReferencedFileIds(request));
                 attachedFileIds.addAll(uploadedFileIds);
                 attachedFileIds = attachedFileIds.stream().distinct().toList();
@@ -509,10 +601,7 @@ public class HomestayService {
                 return mapToResponse(saved);
         }
 
-        @Caching(evict = {
-                        @CacheEvict(value = "homestay", key = "#id"),
-                        @CacheEvict(value = "homestaysSearch", allEntries = true)
-        })
+        @CacheEvict(value = "homestay", key = "#id")
         @org.springframework.transaction.annotation.Transactional
         public void deleteHomestay(UUID id, String userEmail) {
                 Homestay homestay = repository.findById(id)
@@ -529,6 +618,7 @@ public class HomestayService {
                 // --- CLOUD JANITOR: Purge Photos before deletion ---
                 asyncJobService.enqueueDeleteMedia(homestay.getMediaFiles() == null ? List.of()
                                 : homestay.getMediaFiles().stream().map(MediaResource::getFileId).toList());
+                eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(homestay.getId()));
                 repository.delete(homestay);
         }
 
@@ -537,13 +627,41 @@ public class HomestayService {
                 User owner = userRepository.findByEmail(email)
                                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
                 Page<Homestay> pageResults = repository.findByOwner(owner, pageable);
-                return pageResults.map(this::mapToResponse);
+                return pageResults.map(this::mapToListingResponse);
+        }
+
+        /**
+         * Clustered map markers for a viewport, from the in-memory search engine.
+         */
+        public List<HomestayDto.MapCluster> getMapClusters(String query, String tag, String stateSlug,
+                        Boolean isFeatured,
+                        Double minLat, Double maxLat, Double minLng, Double maxLng,
+                        int zoom) {
+                HomestayRepositoryCustom.SearchFilter filter = new HomestayRepositoryCustom.SearchFilter(query,
+                                Collections.emptyMap(), tag, stateSlug, isFeatured, minLat, maxLat, minLng, maxLng);
+                return searchEngine.clusters(filter, zoom)
+                                .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                                "Map search is not available"));
+        }
+
+        /**
+         * Approved listings around a listing, nearest first, from the in-memory search engine.
+         */
+        public List<HomestayDto.Response> getNearbyHomestays(UUID id, double radiusKm, int limit) {
+                int safeLimit = Math.max(1, Math.min(limit, 24));
+                double safeRadiusKm = Math.max(0.5, Math.min(radiusKm, 200.0));
+                return searchEngine.nearby(id, safeRadiusKm, safeLimit)
+                                .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                                "Map search is not available"))
+                                .stream()
+                                .map(this::mapSearchCardToResponse)
+                                .toList();
         }
 
         @org.springframework.transaction.annotation.Transactional(readOnly = true)
         public org.springframework.data.domain.Page<HomestayDto.Response> getHomestaysByDestinationSlug(String slug,
                         Pageable pageable) {
-                return repository.findByDestinationSlug(slug, pageable).map(this::mapToResponse);
+                return repository.findByDestinationSlug(slug, pageable).map(this::mapToListingResponse);
         }
 
         @org.springframework.transaction.annotation.Transactional(readOnly = true)
@@ -566,6 +684,17 @@ public class HomestayService {
         }
 
         public HomestayDto.Response mapToResponse(Homestay homestay) {
+                return mapToResponse(homestay, true);
+        }
+
+        /**
+         * Listing variant: the cover image stands in for the media list, so mediaFiles is never loaded.
+         */
+        private HomestayDto.Response mapToListingResponse(Homestay homestay) {
+                return mapToResponse(homestay, false);
+        }
+
+        private HomestayDto.Response mapToResponse(Homestay homestay, boolean withMedia) {
                 // CRITICAL CACHE RULE: Deep copy collections to prevent Hibernate Proxy leaks
                 // AND null crashes
                 Map<String, Boolean> amenities = homestay.getAmenities() != null
@@ -645,11 +774,10 @@ public class HomestayService {
                                 .quickFacts(quickFacts)
                                 .tags(tags)
                                 .hostDetails(hostDetails)
-                                .media(homestay.getMediaFiles() != null ? homestay.getMediaFiles().stream()
-                                                .map(m -> MediaDto.builder().id(m.getId()).url(m.getUrl())
-                                                                .fileId(m.getFileId()).build())
-                                                .collect(Collectors.toList())
-                                                : new ArrayList<>())
+                                .media(withMedia ? fullMedia(homestay)
+                                                : coverMedia(homestay.getCoverImageUrl(),
+                                                                homestay.getCoverImageWidth(),
+                                                                homestay.getCoverImageHeight()))
                                 .vibeScore(homestay.getVibeScore())
                                 .avgAtmosphereRating(homestay.getAvgAtmosphereRating())
                                 .avgServiceRating(homestay.getAvgServiceRating())
@@ -691,6 +819,14 @@ public class HomestayService {
                 return builder.build();
         }
 
+        private static List<MediaDto> fullMedia(Homestay homestay) {
+                return homestay.getMediaFiles() != null ? homestay.getMediaFiles().stream()
+                                .map(m -> MediaDto.builder().id(m.getId()).url(m.getUrl())
+                                                .fileId(m.getFileId()).build())
+                                .collect(Collectors.toList())
+                                : new ArrayList<>();
+        }
+
         private Optional<HomestayDto.Response> safeMapToResponse(Homestay homestay) {
                 try {
                         return Optional.of(mapToResponse(homestay));
@@ -755,7 +891,9 @@ public class HomestayService {
 
                 final int maxSignals = 2;
 
-                long viewCount = homestay.getViewCount() == null ? 0L : homestay.getViewCount();
+                // Include views not yet flushed to view_count
+                long viewCount = viewCounterService.liveHomestayViews(homestay.getId(),
+                                homestay.getViewCount() == null ? 0L : homestay.getViewCount());
                 long inquiryCount = homestay.getInquiryCount() == null ? 0L : homestay.getInquiryCount();
                 LocalDateTime createdAt = homestay.getCreatedAt();
 
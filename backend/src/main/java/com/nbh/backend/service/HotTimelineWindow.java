@@ -0,0 +1,254 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.model.PostTimeline;
+import com.nbh.backend.repository.TimelineRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process copy of the newest timeline rows (the same hot window kept in
+ * post_timelines_global), ordered by (created_at DESC, post_id DESC).
+ *
+ * Readers see an immutable snapshot and never block. Writers build the next
+ * snapshot and publish it with a CAS, so concurrent inserts, deletes and
+ * counter updates never lose each other. The window is bounded: inserting
+ * past capacity drops the oldest row, exactly like the table prune.
+ *
+ * Mutations are applied after their transaction commits, and the window is
+ * resynced from the table periodically (HotTimelineWindowJob) so rows written
+ * by other instances or bulk statements show up. The window only claims to hold
+ * the whole table until the next scheduled resync is due.
+ *
+ * A page is answered from memory only when the window can prove it is
+ * complete for that page; otherwise callers fall back to SQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotTimelineWindow {
+
+    private static final Comparator<PostTimeline> NEWEST_FIRST = Comparator
+            .comparing(PostTimeline::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(PostTimeline::getPostId, SqlValues.PG_UUID_ORDER.reversed());
+
+    private final TimelineRepository timelineRepository;
+
+    @Value("${feed.hot-window.enabled:true}")
+    private boolean enabled;
+
+    @Value("${feed.hot-window.size:1000}")
+    private int capacity;
+
+    @Value("${feed.hot-window.resync-interval-ms:60000}")
+    private long resyncIntervalMs;
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.NOT_READY);
+
+    /**
+     * Rebuild from the table once startup backfills have run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reload the window from post_timelines_global. A mutation published while the rows
+     * were loading wins, and the load is retried so it is not overwritten.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+                Snapshot before = snapshot.get();
+                List<PostTimeline> rows = timelineRepository.findFeedFirstPage(PageRequest.of(0, capacity));
+                PostTimeline[] entries = rows.stream().map(HotTimelineWindow::copyOf).toArray(PostTimeline[]::new);
+                // Fewer rows than capacity means the table holds nothing older than the window
+                long completeUntil = entries.length < capacity ? System.nanoTime() + resyncIntervalNanos() : 0L;
+                if (snapshot.compareAndSet(before, new Snapshot(entries, completeUntil, true))) {
+                    log.debug("Hot timeline window rebuilt with {} entries", entries.length);
+                    return;
+                }
+            }
+            log.warn("Hot timeline window rebuild kept losing to concurrent writes; retrying on next resync");
+        } catch (Exception e) {
+            log.error("Failed to rebuild hot timeline window: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Insert or replace the row for a post.
+     */
+    public void upsert(PostTimeline entry) {
+        if (!enabled || entry == null || entry.getPostId() == null || entry.getCreatedAt() == null) {
+            return;
+        }
+        PostTimeline copy = copyOf(entry);
+        update(current -> {
+            PostTimeline[] without = removePost(current.entries, copy.getPostId());
+            int at = Arrays.binarySearch(without, copy, NEWEST_FIRST);
+            int insertAt = at >= 0 ? at : -(at + 1);
+            if (insertAt >= capacity) {
+                // Older than everything we keep; the table still has it
+                return new Snapshot(without, 0L, current.ready);
+            }
+            PostTimeline[] next = new PostTimeline[Math.min(without.length + 1, capacity)];
+            System.arraycopy(without, 0, next, 0, insertAt);
+            next[insertAt] = copy;
+            System.arraycopy(without, insertAt, next, insertAt + 1, next.length - insertAt - 1);
+            long completeUntil = without.length + 1 <= capacity ? current.completeUntil : 0L;
+            return new Snapshot(next, completeUntil, current.ready);
+        });
+    }
+
+    public void remove(UUID postId) {
+        if (!enabled || postId == null) {
+            return;
+        }
+        update(current -> new Snapshot(removePost(current.entries, postId), current.completeUntil, current.ready));
+    }
+
+    public void removeAll(List<UUID> postIds) {
+        if (!enabled || postIds == null || postIds.isEmpty()) {
+            return;
+        }
+        update(current -> {
+            PostTimeline[] next = Arrays.stream(current.entries)
+                    .filter(e -> !postIds.contains(e.getPostId()))
+                    .toArray(PostTimeline[]::new);
+            return new Snapshot(next, current.completeUntil, current.ready);
+        });
+    }
+
+    public void updateLikeCount(UUID postId, int likeCount) {
+        patch(postId, e -> {
+            e.setLikeCount(likeCount);
+            return e;
+        });
+    }
+
+    public void updateShareCount(UUID postId, int shareCount) {
+        patch(postId, e -> {
+            e.setShareCount(shareCount);
+            return e;
+        });
+    }
+
+    /**
+     * Drop everything (deep wipe). The window stays ready and empty.
+     */
+    public void clear() {
+        if (enabled) {
+            snapshot.set(new Snapshot(new PostTimeline[0], System.nanoTime() + resyncIntervalNanos(), true));
+        }
+    }
+
+    /**
+     * Newest-first rows strictly older than the cursor (or from the top when the cursor is null).
+     *
+     * @return up to {@code fetchLimit} rows, or empty when the window cannot answer
+     *         this page on its own and the caller must query the database
+     */
+    public Optional<List<PostTimeline>> page(Instant cursorCreatedAt, UUID cursorId, int fetchLimit) {
+        Snapshot current = snapshot.get();
+        if (!enabled || !current.ready) {
+            return Optional.empty();
+        }
+        PostTimeline[] entries = current.entries;
+        int from = 0;
+        if (cursorCreatedAt != null) {
+            PostTimeline probe = PostTimeline.builder()
+                    .createdAt(cursorCreatedAt)
+                    .postId(cursorId != null ? cursorId : new UUID(-1L, -1L))
+                    .build();
+            int at = Arrays.binarySearch(entries, probe, NEWEST_FIRST);
+            from = at >= 0 ? at + 1 : -(at + 1);
+        }
+        int to = Math.min(entries.length, from + fetchLimit);
+        if (to - from < fetchLimit && !current.isComplete()) {
+            // Page runs past the oldest row we hold; older rows only exist in SQL
+            return Optional.empty();
+        }
+        return Optional.of(List.of(Arrays.copyOfRange(entries, from, to)));
+    }
+
+    public int size() {
+        return snapshot.get().entries.length;
+    }
+
+    private void patch(UUID postId, UnaryOperator<PostTimeline> change) {
+        if (!enabled || postId == null) {
+            return;
+        }
+        update(current -> {
+            for (int i = 0; i < current.entries.length; i++) {
+                if (postId.equals(current.entries[i].getPostId())) {
+                    PostTimeline[] next = current.entries.clone();
+                    next[i] = change.apply(copyOf(next[i]));
+                    return new Snapshot(next, current.completeUntil, current.ready);
+                }
+            }
+            return current;
+        });
+    }
+
+    private void update(UnaryOperator<Snapshot> change) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            next = change.apply(current);
+        } while (next != current && !snapshot.compareAndSet(current, next));
+    }
+
+    private static PostTimeline[] removePost(PostTimeline[] entries, UUID postId) {
+        for (int i = 0; i < entries.length; i++) {
+            if (postId.equals(entries[i].getPostId())) {
+                PostTimeline[] next = new PostTimeline[entries.length - 1];
+                System.arraycopy(entries, 0, next, 0, i);
+                System.arraycopy(entries, i + 1, next, i, entries.length - i - 1);
+                return next;
+            }
+        }
+        return entries;
+    }
+
+    private static PostTimeline copyOf(PostTimeline source) {
+        return source.toBuilder().id(null).build();
+    }
+
+    private long resyncIntervalNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(resyncIntervalMs);
+    }
+
+    /**
+     * @param completeUntil {@link System#nanoTime()} until which the entries are known to be the
+     *                      whole table; 0 when older rows exist only in SQL
+     */
+    private record Snapshot(PostTimeline[] entries, long completeUntil, boolean ready) {
+        private static final Snapshot NOT_READY = new Snapshot(new PostTimeline[0], 0L, false);
+
+        boolean isComplete() {
+            return completeUntil != 0L && System.nanoTime() - completeUntil < 0;
+        }
+    }
+}
@@ -2,23 +2,40 @@ package com.nbh.backend.service;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.nbh.backend.dto.PostFeedDto;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * In-memory cache implementation for feed responses using Caffeine.
  * Redis-free alternative with superior performance.
- * 
+ *
  * Features:
  * - High-performance Caffeine cache (better than ConcurrentHashMap)
- * - 5 second TTL (configurable)
- * - Maximum 10,000 entries
- * - Automatic eviction based on size and expiration
+ * - 5 second TTL (configurable), not extended by in-place counter patches
+ * - Maximum 10,000 shared page entries
+ * - Per-viewer liked overlays grouped by user so one like evicts one viewer
+ * - Scope and tag generations embedded in keys; a bump orphans only matching pages
+ * - Post -> page reverse index so counter changes patch pages instead of evicting them
+ * - Hit/miss figures per generation label
+ * - Page version stamps for conditional (304) feed requests, expiring with the page body
  * - Thread-safe by design
  */
 @Primary
@@ -26,57 +43,378 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class InMemoryFeedCacheService implements FeedCacheService {
 
+    private static final long PAGE_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int MAX_TRACKED_GENERATIONS = 512;
+
+    // Distinguishes stamps of this process from those issued before a restart or by another instance
+    private static final String INSTANCE_TAG = Long.toString(System.nanoTime() ^ System.currentTimeMillis(), 36);
+
     private final Cache<String, PostFeedDto.FeedResponse> cache;
-    
+    private final Cache<UUID, Map<String, Set<UUID>>> likedOverlays;
+    private final Cache<String, PageStamp> pageStamps;
+    private final Cache<UUID, Long> viewerStamps;
+    private final AtomicLong stampClock = new AtomicLong();
+
+    private final Map<String, AtomicLong> scopeGenerations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> tagGenerations = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<String>> keysByPost = new ConcurrentHashMap<>();
+    private final Map<String, GenerationStats> statsByGeneration = new ConcurrentHashMap<>();
+    private final GenerationStats retiredStats = new GenerationStats();
+    private final LongAdder patchedPages = new LongAdder();
+
     public InMemoryFeedCacheService() {
         this.cache = Caffeine.newBuilder()
                 .maximumSize(10_000)
-                .expireAfterWrite(5, TimeUnit.SECONDS)
+                .expireAfter(new Expiry<String, PostFeedDto.FeedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, PostFeedDto.FeedResponse value, long currentTime) {
+                        return PAGE_TTL_NANOS;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, PostFeedDto.FeedResponse value,
+                                                  long currentTime, long currentDuration) {
+                        // Counter patches must not keep a page alive past its original TTL
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, PostFeedDto.FeedResponse value,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
                 .recordStats() // Enable stats for monitoring
                 .build();
+        // A stamp lives exactly as long as the body it describes: polling must not keep it alive,
+        // or 304s would keep hiding counter changes folded in after the body expired.
+        // The post -> page index follows the stamps, which always cover the cached bodies.
+        this.pageStamps = Caffeine.newBuilder()
+                .maximumSize(20_000)
+                .expireAfter(new Expiry<String, PageStamp>() {
+                    @Override
+                    public long expireAfterCreate(String key, PageStamp value, long currentTime) {
+                        return Math.max(0L, value.bodyExpiresAt() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, PageStamp value,
+                                                  long currentTime, long currentDuration) {
+                        return Math.max(0L, value.bodyExpiresAt() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, PageStamp value,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .executor(Runnable::run)
+                .removalListener(this::onStampRemoved)
+                .build();
+        this.viewerStamps = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        this.likedOverlays = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(5, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
     }
 
     @Override
     public Optional<PostFeedDto.FeedResponse> get(String key) {
         PostFeedDto.FeedResponse response = cache.getIfPresent(key);
+        GenerationStats stats = statsFor(key);
         if (response != null) {
+            stats.hits.increment();
             log.debug("Cache hit for key: {} (stats: {})", key, cache.stats());
             return Optional.of(response);
         }
+        stats.misses.increment();
         log.debug("Cache miss for key: {}", key);
         return Optional.empty();
     }
 
+    @Override
+    public boolean contains(String key) {
+        // Quiet read: prefetch checks must not show up as hits or misses in the cache stats
+        return cache.policy().getIfPresentQuietly(key) != null;
+    }
+
     @Override
     public void put(String key, PostFeedDto.FeedResponse response) {
         cache.put(key, response);
+        List<UUID> postIds = response.getPosts() == null ? List.of() : response.getPosts().stream()
+                .map(PostFeedDto::getPostId)
+                .toList();
+        for (UUID postId : postIds) {
+            keysByPost.computeIfAbsent(postId, id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        // Re-putting identical content keeps the stamp, so clients holding it still get 304s
+        int fingerprint = response.hashCode();
+        long bodyExpiresAt = System.nanoTime() + PAGE_TTL_NANOS;
+        pageStamps.asMap().compute(key, (k, stamp) -> new PageStamp(
+                stamp != null && stamp.fingerprint() == fingerprint ? stamp.stamp() : stampClock.incrementAndGet(),
+                fingerprint, postIds, bodyExpiresAt));
         log.debug("Cached feed response for key: {}", key);
     }
 
+    @Override
+    public Optional<Set<UUID>> getLikedOverlay(UUID userId, String key) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        Map<String, Set<UUID>> pages = likedOverlays.getIfPresent(userId);
+        return pages == null ? Optional.empty() : Optional.ofNullable(pages.get(key));
+    }
+
+    @Override
+    public void putLikedOverlay(UUID userId, String key, Set<UUID> likedPostIds) {
+        if (userId == null) {
+            return;
+        }
+        likedOverlays.get(userId, id -> new ConcurrentHashMap<>()).put(key, Set.copyOf(likedPostIds));
+    }
+
+    @Override
+    public void invalidateViewer(UUID userId) {
+        if (userId != null) {
+            likedOverlays.invalidate(userId);
+            viewerStamps.put(userId, stampClock.incrementAndGet());
+        }
+    }
+
+    @Override
+    public Optional<String> getPageStamp(String key, UUID viewerId) {
+        PageStamp page = pageStamps.getIfPresent(key);
+        if (page == null) {
+            return Optional.empty();
+        }
+        long viewer = viewerId == null ? 0L : viewerStamps.get(viewerId, id -> stampClock.incrementAndGet());
+        return Optional.of(INSTANCE_TAG + "-" + page.stamp() + "-" + viewer);
+    }
+
+    @Override
+    public Optional<List<UUID>> getPagePostIds(String key) {
+        PageStamp page = pageStamps.getIfPresent(key);
+        return page == null ? Optional.empty() : Optional.of(page.postIds());
+    }
+
     @Override
     public void invalidateAll() {
         long size = cache.estimatedSize();
         cache.invalidateAll();
+        likedOverlays.invalidateAll();
+        pageStamps.invalidateAll();
+        viewerStamps.invalidateAll();
+        keysByPost.clear();
         log.debug("Invalidated {} cache entries", size);
     }
-    
+
+    @Override
+    public long scopeGeneration(String scope) {
+        AtomicLong generation = scopeGenerations.get(scope);
+        return generation == null ? 0L : generation.get();
+    }
+
+    @Override
+    public long tagGeneration(String tag) {
+        AtomicLong generation = tagGenerations.get(tag);
+        return generation == null ? 0L : generation.get();
+    }
+
+    @Override
+    public void bumpScopes(String... scopes) {
+        for (String scope : scopes) {
+            long generation = scopeGenerations.computeIfAbsent(scope, s -> new AtomicLong()).incrementAndGet();
+            log.debug("Feed scope {} now at generation {}", scope, generation);
+        }
+        retireStaleGenerations();
+    }
+
+    @Override
+    public void bumpTags(Collection<String> tags) {
+        for (String tag : tags) {
+            long generation = tagGenerations.computeIfAbsent(tag, t -> new AtomicLong()).incrementAndGet();
+            log.debug("Feed tag {} now at generation {}", tag, generation);
+        }
+        retireStaleGenerations();
+    }
+
+    @Override
+    public void patchCounters(UUID postId, Integer likeCount, Integer shareCount, Integer commentCount) {
+        Set<String> keys = keysByPost.get(postId);
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        for (String key : keys) {
+            PostFeedDto.FeedResponse patched = cache.asMap().computeIfPresent(key,
+                    (k, page) -> patchPage(page, postId, likeCount, shareCount, commentCount));
+            if (patched != null) {
+                patchedPages.increment();
+                pageStamps.asMap().computeIfPresent(key,
+                        (k, stamp) -> new PageStamp(stampClock.incrementAndGet(), patched.hashCode(), stamp.postIds(),
+                                stamp.bodyExpiresAt()));
+            } else {
+                // Body already expired; the next rebuild will issue a fresh stamp
+                pageStamps.invalidate(key);
+            }
+        }
+        log.debug("Patched counters of post {} into {} cached pages", postId, keys.size());
+    }
+
+    private PostFeedDto.FeedResponse patchPage(PostFeedDto.FeedResponse page, UUID postId,
+                                               Integer likeCount, Integer shareCount, Integer commentCount) {
+        if (page.getPosts() == null) {
+            return page;
+        }
+        List<PostFeedDto> posts = page.getPosts().stream()
+                .map(p -> {
+                    if (!postId.equals(p.getPostId())) {
+                        return p;
+                    }
+                    PostFeedDto.PostFeedDtoBuilder builder = p.toBuilder();
+                    if (likeCount != null) {
+                        builder.likeCount(likeCount);
+                    }
+                    if (shareCount != null) {
+                        builder.shareCount(shareCount);
+                    }
+                    if (commentCount != null) {
+                        builder.commentCount(commentCount);
+                    }
+                    return builder.build();
+                })
+                .collect(Collectors.toList());
+        return page.toBuilder().posts(posts).build();
+    }
+
+    private void onStampRemoved(String key, PageStamp value, RemovalCause cause) {
+        if (key == null || value == null) {
+            return;
+        }
+        if (cause != RemovalCause.REPLACED) {
+            unindex(key, value.postIds());
+            return;
+        }
+        // A rebuilt page may hold other posts; drop only those it no longer lists
+        PageStamp replacement = pageStamps.getIfPresent(key);
+        Set<UUID> kept = replacement == null ? Set.of() : Set.copyOf(replacement.postIds());
+        unindex(key, value.postIds().stream().filter(id -> !kept.contains(id)).toList());
+    }
+
+    private void unindex(String key, List<UUID> postIds) {
+        for (UUID postId : postIds) {
+            keysByPost.computeIfPresent(postId, (id, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private GenerationStats statsFor(String key) {
+        return statsByGeneration.computeIfAbsent(FeedCacheService.generationLabel(key), l -> new GenerationStats());
+    }
+
     /**
-     * Get cache stats for monitoring.
+     * Fold stats of generations that can no longer be hit into the retired totals,
+     * so the per-generation map only holds live labels.
      */
-    public String getStats() {
+    private void retireStaleGenerations() {
+        boolean overCapacity = statsByGeneration.size() > MAX_TRACKED_GENERATIONS;
+        statsByGeneration.entrySet().removeIf(entry -> {
+            if (!overCapacity && isCurrent(entry.getKey())) {
+                return false;
+            }
+            retiredStats.hits.add(entry.getValue().hits.sum());
+            retiredStats.misses.add(entry.getValue().misses.sum());
+            return true;
+        });
+    }
+
+    private boolean isCurrent(String label) {
+        int separator = label.indexOf('|');
+        if (separator < 0) {
+            return false;
+        }
+        return matchesGeneration(label.substring(0, separator), scopeGenerations)
+                && matchesGeneration(label.substring(separator + 1), tagGenerations);
+    }
+
+    private static boolean matchesGeneration(String part, Map<String, AtomicLong> generations) {
+        int at = part.lastIndexOf('@');
+        if (at < 0) {
+            return false;
+        }
+        AtomicLong current = generations.get(part.substring(0, at));
+        try {
+            return Long.parseLong(part.substring(at + 1)) == (current == null ? 0L : current.get());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get cache stats for monitoring, including hit/miss per live generation.
+     */
+    @Override
+    public Map<String, Object> getStats() {
         var stats = cache.stats();
-        return String.format("hits=%d, misses=%d, hitRate=%.2f%%, evictions=%d, size=%d",
-                stats.hitCount(),
-                stats.missCount(),
-                stats.hitRate() * 100,
-                stats.evictionCount(),
-                cache.estimatedSize());
-    }
-    
+        var overlayStats = likedOverlays.stats();
+
+        Map<String, Object> generations = new TreeMap<>();
+        statsByGeneration.forEach((label, s) -> generations.put(label, s.toMap()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("size", cache.estimatedSize());
+        result.put("patchedPages", patchedPages.sum());
+        result.put("indexedPosts", keysByPost.size());
+        result.put("pageStamps", pageStamps.estimatedSize());
+        result.put("overlayHitRate", overlayStats.hitRate());
+        result.put("overlayViewers", likedOverlays.estimatedSize());
+        result.put("scopeGenerations", snapshot(scopeGenerations));
+        result.put("tagGenerations", snapshot(tagGenerations));
+        result.put("generations", generations);
+        result.put("retired", retiredStats.toMap());
+        return result;
+    }
+
+    private static Map<String, Long> snapshot(Map<String, AtomicLong> generations) {
+        Map<String, Long> result = new TreeMap<>();
+        generations.forEach((name, generation) -> result.put(name, generation.get()));
+        return result;
+    }
+
     /**
      * Get current cache size.
      */
     public long size() {
         return cache.estimatedSize();
     }
+
+    /**
+     * @param bodyExpiresAt {@link System#nanoTime()} at which the cached body, and so this stamp, expires
+     */
+    private record PageStamp(long stamp, int fingerprint, List<UUID> postIds, long bodyExpiresAt) {
+    }
+
+    private static final class GenerationStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private Map<String, Object> toMap() {
+            long h = hits.sum();
+            long m = misses.sum();
+            return Map.of(
+                    "hits", h,
+                    "misses", m,
+                    "hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package com.nbh.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nbh.backend.repository.LikeCounterRepository;
+import com.nbh.backend.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coalesced love counters for posts.
+ *
+ * The post_likes row is written by the caller; this service only moves the
+ * counters. Deltas per post are added in memory and applied by {@link #flush()}
+ * to posts.love_count and post_timelines_global.like_count in one statement per
+ * chunk. The live count of every recently liked post is kept in an overlay that
+ * cached lists and feed pages read, so they show fresh counts without eviction.
+ *
+ * Recording reads the stored count plus the pending and in-flight deltas under a
+ * shared lock. A flush takes the exclusive lock only to swap out the pending map
+ * and around the COMMIT of its UPDATEs, where the in-flight deltas are dropped;
+ * the statements themselves run unlocked. Stored count + deltas is therefore
+ * never counted twice, and likes wait at most for a commit, never for a write.
+ */
+@Service
+@Slf4j
+public class LikeCounterService {
+
+    private final LikeCounterRepository likeCounterRepository;
+    private final PostRepository postRepository;
+    private final TrendingService trendingService;
+    private final HotTimelineWindow hotTimelineWindow;
+
+    private final TransactionTemplate tx;
+
+    // Replaced by each flush; read and added to under the shared lock
+    private volatile Map<UUID, LongAdder> pendingLikes = new ConcurrentHashMap<>();
+    // Deltas of the flush being written, counted until its transaction commits
+    private final Map<UUID, Long> likesInFlight = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+    // Must outlive the postsList and feed page TTLs so no cached copy is left without its overlay
+    private final Cache<UUID, Integer> liveCounts;
+
+    public LikeCounterService(LikeCounterRepository likeCounterRepository,
+                              PostRepository postRepository,
+                              TrendingService trendingService,
+                              HotTimelineWindow hotTimelineWindow,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${counters.likes.overlay-ttl-minutes:15}") long overlayTtlMinutes) {
+        this.likeCounterRepository = likeCounterRepository;
+        this.postRepository = postRepository;
+        this.trendingService = trendingService;
+        this.hotTimelineWindow = hotTimelineWindow;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.liveCounts = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMinutes(overlayTtlMinutes))
+                .build();
+    }
+
+    /**
+     * Apply a like (+1) or unlike (-1) whose post_likes row change is done. Counters, the
+     * overlay and the in-memory views move once the caller's transaction commits, so a
+     * rolled-back like never shows up.
+     *
+     * @return the love count of the post once the change is applied
+     */
+    public int record(UUID postId, int delta) {
+        if (delta == 0) {
+            return currentCount(postId);
+        }
+        int expected = Math.max(0, currentCount(postId) + delta);
+        AfterCommit.run(() -> apply(postId, delta));
+        return expected;
+    }
+
+    /**
+     * Stored love count of a post plus its pending and in-flight deltas.
+     */
+    public int currentCount(UUID postId) {
+        flushLock.readLock().lock();
+        try {
+            Integer stored = postRepository.findLoveCountById(postId);
+            return Math.max(0, (stored == null ? 0 : stored) + unwritten(postId));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    private void apply(UUID postId, int delta) {
+        int live;
+        flushLock.readLock().lock();
+        try {
+            pendingLikes.computeIfAbsent(postId, id -> new LongAdder()).add(delta);
+            Integer stored = postRepository.findLoveCountById(postId);
+            live = Math.max(0, (stored == null ? 0 : stored) + unwritten(postId));
+            liveCounts.put(postId, live);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        // In-memory views of the post take the new count right away
+        hotTimelineWindow.updateLikeCount(postId, live);
+        trendingService.onLoveCountChanged(postId, live);
+    }
+
+    /**
+     * Live love count of a post liked or unliked recently, or null when the stored count is current.
+     */
+    public Integer liveCount(UUID postId) {
+        return postId == null ? null : liveCounts.getIfPresent(postId);
+    }
+
+    /**
+     * Apply all pending deltas. Called by LikeCounterFlushJob.
+     */
+    public synchronized void flush() {
+        Map<UUID, Long> deltas = new HashMap<>();
+        flushLock.writeLock().lock();
+        try {
+            Map<UUID, LongAdder> swapped = pendingLikes;
+            pendingLikes = new ConcurrentHashMap<>();
+            swapped.forEach((id, adder) -> {
+                long delta = adder.sum();
+                // Zero when likes and unlikes cancelled out
+                if (delta != 0) {
+                    deltas.put(id, delta);
+                }
+            });
+            likesInFlight.putAll(deltas);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<UUID, Integer> stored;
+        try {
+            stored = tx.execute(status -> {
+                Map<UUID, Integer> written = likeCounterRepository.addLoveCounts(deltas);
+                TransactionSynchronizationManager.registerSynchronization(new CommitFence(written));
+                return written;
+            });
+        } catch (RuntimeException e) {
+            flushLock.writeLock().lock();
+            try {
+                deltas.forEach((id, delta) -> pendingLikes.computeIfAbsent(id, k -> new LongAdder()).add(delta));
+                likesInFlight.clear();
+            } finally {
+                flushLock.writeLock().unlock();
+            }
+            log.warn("Failed to flush {} like deltas, will retry: {}", deltas.size(), e.getMessage());
+            return;
+        }
+        stored.keySet().forEach(trendingService::markDirty);
+        log.debug("Flushed {} like deltas", deltas.size());
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Failed to flush pending like counters on shutdown: {}", e.getMessage());
+        }
+    }
+
+    private int unwritten(UUID postId) {
+        LongAdder pending = pendingLikes.get(postId);
+        return (pending == null ? 0 : (int) pending.sum()) + likesInFlight.getOrDefault(postId, 0L).intValue();
+    }
+
+    /**
+     * Holds the exclusive lock across the commit of a flush, so no reader sees the new stored
+     * counts while the in-flight deltas are still added on top.
+     */
+    private final class CommitFence implements TransactionSynchronization {
+
+        private final Map<UUID, Integer> written;
+
+        CommitFence(Map<UUID, Integer> written) {
+            this.written = written;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            flushLock.writeLock().lock();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!flushLock.isWriteLockedByCurrentThread()) {
+                return;
+            }
+            try {
+                if (status == STATUS_COMMITTED) {
+                    likesInFlight.clear();
+                    written.forEach((postId, count) -> liveCounts.put(postId, Math.max(0, count + unwritten(postId))));
+                }
+            } finally {
+                flushLock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -1,10 +1,7 @@
 package com.nbh.backend.service;
 
-import com.nbh.backend.model.PostLike;
 import com.nbh.backend.repository.PostLikeRepository;
-import com.nbh.backend.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,27 +13,24 @@ import java.util.UUID;
 public class LikeService {
 
     private final PostLikeRepository postLikeRepository;
-    private final PostRepository postRepository;
-    private final TrendingService trendingService;
+    private final LikeCounterService likeCounterService;
+    private final FeedCacheService feedCacheService;
 
+    /**
+     * Flip the like of a user on a post. Counters are coalesced by LikeCounterService.
+     */
     @Transactional
-    @CacheEvict(value = "postsList", allEntries = true)
     public boolean toggle(UUID postId, UUID userId) {
-        PostLike.PostLikePk pk = new PostLike.PostLikePk(userId, postId);
-        if (postLikeRepository.existsById(pk)) {
-            postLikeRepository.deleteById(pk);
-            postRepository.decrementLoveCount(postId);
-            trendingService.updateTrendingScoreByPostId(postId);
+        // Only this viewer's liked overlay changes; shared feed pages stay valid
+        AfterCommit.run(() -> feedCacheService.invalidateViewer(userId));
+        if (postLikeRepository.deleteLike(postId, userId) > 0) {
+            likeCounterService.record(postId, -1);
             return false; // unliked
-        } else {
-            postLikeRepository.save(PostLike.builder()
-                    .userId(userId)
-                    .postId(postId)
-                    .build());
-            postRepository.incrementLoveCount(postId);
-            trendingService.updateTrendingScoreByPostId(postId);
-            return true; // liked
         }
+        if (postLikeRepository.insertLikeIgnoreConflict(postId, userId) > 0) {
+            likeCounterService.record(postId, 1);
+        }
+        return true; // liked
     }
 
     @Transactional(readOnly = true)
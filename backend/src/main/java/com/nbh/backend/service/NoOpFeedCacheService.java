@@ -3,7 +3,11 @@ package com.nbh.backend.service;
 import com.nbh.backend.dto.PostFeedDto;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * No-operation implementation of FeedCacheService.
@@ -18,13 +22,68 @@ public class NoOpFeedCacheService implements FeedCacheService {
         return Optional.empty();
     }
 
+    @Override
+    public boolean contains(String key) {
+        return false;
+    }
+
     @Override
     public void put(String key, PostFeedDto.FeedResponse response) {
         // No-op: does not cache
     }
 
+    @Override
+    public Optional<Set<UUID>> getLikedOverlay(UUID userId, String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void putLikedOverlay(UUID userId, String key, Set<UUID> likedPostIds) {
+        // No-op: does not cache
+    }
+
+    @Override
+    public void invalidateViewer(UUID userId) {
+        // No-op: nothing to invalidate
+    }
+
+    @Override
+    public Optional<String> getPageStamp(String key, UUID viewerId) {
+        return Optional.empty(); // Always rebuild, no stamps
+    }
+
+    @Override
+    public Optional<List<UUID>> getPagePostIds(String key) {
+        return Optional.empty();
+    }
+
     @Override
     public void invalidateAll() {
         // No-op: nothing to invalidate
     }
+
+    @Override
+    public long scopeGeneration(String scope) {
+        return 0L;
+    }
+
+    @Override
+    public long tagGeneration(String tag) {
+        return 0L;
+    }
+
+    @Override
+    public void bumpScopes(String... scopes) {
+        // No-op: nothing to invalidate
+    }
+
+    @Override
+    public void bumpTags(Collection<String> tags) {
+        // No-op: nothing to invalidate
+    }
+
+    @Override
+    public void patchCounters(UUID postId, Integer likeCount, Integer shareCount, Integer commentCount) {
+        // No-op: nothing cached
+    }
 }
@@ -20,14 +20,19 @@ import com.nbh.backend.repository.PostLikeRepository;
 import com.nbh.backend.repository.CommentRepository;
 import com.nbh.backend.repository.ReviewRepository;
 import com.nbh.backend.repository.TimelineRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import java.time.Instant;
+import java.util.Base64;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashSet;
@@ -47,6 +52,11 @@ import org.springframework.data.domain.PageImpl;
 @RequiredArgsConstructor
 public class PostService {
 
+    // searchScore, after the columns shared with the other post projections
+    private static final int SEARCH_SCORE_COLUMN = 26;
+    // Shorter patterns have no trigram to look up, so ILIKE would scan and rank every post
+    private static final int MIN_SEARCH_LENGTH = 3;
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final HomestayRepository homestayRepository;
@@ -61,9 +71,20 @@ public class PostService {
     private final FeedCacheService feedCacheService;
     private final TimelineService timelineService;
     private final ViewTrackingService viewTrackingService;
+    private final ViewCounterService viewCounterService;
+    private final LikeCounterService likeCounterService;
     private final AvatarUrlResolver avatarUrlResolver;
     private final TrendingService trendingService;
     private final MediaUploadTrackingService mediaUploadTrackingService;
+    private final SearchSuggestIndex searchSuggestIndex;
+    private final ObjectMapper objectMapper;
+
+    // Similarity a brand-new post gains; an older post keeps half of it at the half-life
+    @Value("${posts.search.recency-boost:0.3}")
+    private double searchRecencyBoost;
+
+    @Value("${posts.search.recency-half-life-days:30}")
+    private double searchRecencyHalfLifeDays;
 
     /**
      * Get user ID by email - used by feed service for like status.
@@ -144,17 +165,46 @@ public class PostService {
         asyncJobService.enqueuePostProcessMedia(extractFileIds(request.getMedia()), "posts/" + saved.getId());
         // Mark media uploads as attached to prevent orphan cleanup
         mediaUploadTrackingService.markAsAttached(extractFileIds(request.getMedia()), "POST", saved.getId().toString());
-        feedCacheService.invalidateAll();
+        List<String> addedTags = new ArrayList<>(saved.getTags());
+        AfterCommit.run(() -> feedCacheService.onPostChanged(saved.getId(), addedTags));
+        AfterCommit.run(() -> searchSuggestIndex.onPostTagsChanged(List.of(), addedTags));
         // Fan-out to timeline
         timelineService.insertPostToTimeline(saved);
+        trendingService.onPostCreated(saved);
         return mapToResponse(saved);
     }
 
     @Transactional
-    public java.util.Optional<PostDto.Response> getPostById(java.util.UUID id) {
-        viewTrackingService.incrementPostView(id);
-        feedCacheService.invalidateAll();
-        return postRepository.findById(id).map(this::mapToResponse);
+    public java.util.Optional<PostDto.Response> getPostById(java.util.UUID id, HttpServletRequest request) {
+        // Views only move view_count; cached pages show them through ViewCounterService
+        viewTrackingService.incrementPostView(id, request);
+        return postRepository.findById(id).map(this::mapToResponse)
+                .map(response -> {
+                    // The view counter is written behind; include what is still pending
+                    response.setViewCount((int) viewCounterService.livePostViews(id, response.getViewCount()));
+                    applyLiveCounters(response);
+                    return response;
+                });
+    }
+
+    /**
+     * Overlay live love counts on a (possibly cached) page. Counts are absolute, so applying twice is harmless.
+     */
+    public Page<PostDto.Response> applyLiveCounters(Page<PostDto.Response> page) {
+        page.getContent().forEach(this::applyLiveCounters);
+        return page;
+    }
+
+    public PostDto.SearchSlice applyLiveCounters(PostDto.SearchSlice slice) {
+        slice.getContent().forEach(this::applyLiveCounters);
+        return slice;
+    }
+
+    private void applyLiveCounters(PostDto.Response response) {
+        Integer loveCount = likeCounterService.liveCount(response.getId());
+        if (loveCount != null) {
+            response.setLoveCount(loveCount);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -211,7 +261,7 @@ public class PostService {
         UUID postId = (UUID) row[0];
         String locationName = (String) row[1];
         String textContent = (String) row[2];
-        Instant createdAt = toInstant(row[3]);
+        Instant createdAt = SqlValues.toInstant(row[3]);
         int loveCount = ((Number) row[4]).intValue();
         int shareCount = ((Number) row[5]).intValue();
         
@@ -299,29 +349,76 @@ public class PostService {
         return java.util.Collections.emptyList();
     }
 
+    /**
+     * Posts matching {@code query} by location or text, best match first with newer posts ahead,
+     * {@code limit} at a time after {@code cursor} (from the top when blank). Empty for a query shorter
+     * than three characters; browsing without one is the feed.
+     */
     @Transactional(readOnly = true)
-    @Cacheable(value = "postsList", key = "'search-' + #query + '-' + #pageable.pageNumber", sync = true)
-    public Page<PostDto.Response> searchPosts(String query, Pageable pageable) {
-        if (query == null || query.isBlank()) {
-            return getAllPosts(null, pageable);
+    @Cacheable(value = "postsList", key = "'search-' + #query + '-' + (#cursor ?: '') + '-' + #limit", sync = true)
+    public PostDto.SearchSlice searchPosts(String query, String cursor, int limit) {
+        String normalized = query == null ? "" : query.trim();
+        if (normalized.codePointCount(0, normalized.length()) < MIN_SEARCH_LENGTH) {
+            return PostDto.SearchSlice.builder().content(List.of()).build();
         }
-        // Use optimized projection query - single query for posts + batch load media
-        Page<Object[]> postsPage = postRepository.searchPostProjections(query, pageable);
-        
-        // Extract post IDs for batch queries
-        List<UUID> postIds = postsPage.getContent().stream()
-                .map(row -> (UUID) row[0])
-                .collect(Collectors.toList());
-        
+        String pattern = normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        int safeLimit = Math.max(1, Math.min(limit, 50));
+
+        PostDto.SearchCursor after = decodeSearchCursor(cursor);
+        // Every page of one search ages posts from the same instant, so scores stay comparable
+        Instant asOf = after == null ? Instant.now() : after.getAsOf();
+        List<Object[]> rows = after == null
+                ? postRepository.searchPostProjections(normalized, pattern, searchRecencyBoost,
+                        searchRecencyHalfLifeDays, asOf, safeLimit + 1)
+                : postRepository.searchPostProjectionsAfter(normalized, pattern, searchRecencyBoost,
+                        searchRecencyHalfLifeDays, asOf, after.getScore(), after.getCreatedAt(), after.getId(),
+                        safeLimit + 1);
+        boolean hasMore = rows.size() > safeLimit;
+        List<Object[]> pageRows = hasMore ? rows.subList(0, safeLimit) : rows;
+
         // Batch load media (1 query)
-        Map<UUID, List<MediaDto>> mediaByPost = loadMediaByPostIds(postIds);
-        
-        // Map to DTOs
-        List<PostDto.Response> dtos = postsPage.getContent().stream()
+        Map<UUID, List<MediaDto>> mediaByPost = loadMediaByPostIds(pageRows.stream()
+                .map(row -> (UUID) row[0])
+                .collect(Collectors.toList()));
+        List<PostDto.Response> dtos = pageRows.stream()
                 .map(row -> mapProjectionToResponse(row, mediaByPost, null))
                 .collect(Collectors.toList());
-        
-        return new PageImpl<>(dtos, pageable, postsPage.getTotalElements());
+
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = pageRows.get(pageRows.size() - 1);
+            nextCursor = encodeSearchCursor(PostDto.SearchCursor.builder()
+                    .score(((Number) last[SEARCH_SCORE_COLUMN]).doubleValue())
+                    .createdAt(SqlValues.toInstant(last[3]))
+                    .id((UUID) last[0])
+                    .asOf(asOf)
+                    .build());
+        }
+        return PostDto.SearchSlice.builder()
+                .content(dtos)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private PostDto.SearchCursor decodeSearchCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), PostDto.SearchCursor.class);
+        } catch (IllegalArgumentException | java.io.IOException e) {
+            log.warn("Invalid post search cursor provided: {}", cursor);
+            return null;
+        }
+    }
+
+    private String encodeSearchCursor(PostDto.SearchCursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -358,6 +455,7 @@ public class PostService {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         validatePostRequest(request);
+        java.util.Set<String> affectedTags = new java.util.HashSet<>(post.getTags());
 
         if (!post.getUser().getEmail().equals(userEmail)) {
             User requestor = userRepository.findByEmail(userEmail)
@@ -447,7 +545,12 @@ public class PostService {
         asyncJobService.enqueuePostProcessMedia(extractFileIds(request.getMedia()), "posts/" + saved.getId());
         // Mark media uploads as attached to prevent orphan cleanup
         mediaUploadTrackingService.markAsAttached(extractFileIds(request.getMedia()), "POST", saved.getId().toString());
-        feedCacheService.invalidateAll();
+        List<String> tagsBefore = new ArrayList<>(affectedTags);
+        List<String> tagsAfter = new ArrayList<>(saved.getTags());
+        AfterCommit.run(() -> searchSuggestIndex.onPostTagsChanged(tagsBefore, tagsAfter));
+        affectedTags.addAll(saved.getTags());
+        List<String> changedTags = new ArrayList<>(affectedTags);
+        AfterCommit.run(() -> feedCacheService.onPostChanged(saved.getId(), changedTags));
         // Update timeline
         timelineService.insertPostToTimeline(saved);
         return mapToResponse(saved, userEmail);
@@ -474,18 +577,21 @@ public class PostService {
         asyncJobService.enqueueDeleteMedia(post.getMediaFiles() == null ? java.util.List.of()
                 : post.getMediaFiles().stream().map(MediaResource::getFileId).toList());
 
-        feedCacheService.invalidateAll();
+        List<String> removedTags = new ArrayList<>(post.getTags());
+        AfterCommit.run(() -> feedCacheService.onPostChanged(post.getId(), removedTags));
+        AfterCommit.run(() -> searchSuggestIndex.onPostTagsChanged(removedTags, List.of()));
         // Remove from timeline
         timelineService.deletePostFromTimeline(post.getId());
+        trendingService.onPostDeleted(post.getId());
         postRepository.delete(post);
     }
 
     // ── Viral Metric Methods ──────────────────────────────────
+    /**
+     * Like a post. The post_likes row is written here; love_count, the timeline row and
+     * cached pages follow through LikeCounterService without evicting anything.
+     */
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "postsList", allEntries = true),
-            @CacheEvict(value = "postDetail", key = "#postId")
-    })
     public PostDto.LikeResponse toggleLike(java.util.UUID postId, String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -499,45 +605,30 @@ public class PostService {
             inserted = 0;
         }
 
-        if (inserted > 0) {
-            postRepository.incrementLoveCount(postId);
-        }
-
-        Integer loveCount = postRepository.findLoveCountById(postId);
-        int resolvedLoveCount = loveCount == null ? 0 : loveCount;
-
-        feedCacheService.invalidateAll();
-        timelineService.updateLikeCount(postId, resolvedLoveCount);
-        // Update trending score on engagement
-        Post postForTrending = postRepository.findById(postId).orElse(null);
-        if (postForTrending != null) {
-            trendingService.updatePostTrendingScore(postForTrending);
-        }
-        return PostDto.LikeResponse.builder().loveCount(resolvedLoveCount).isLiked(true).build();
+        // Only this viewer's liked overlay changes; shared feed pages get the new count patched in
+        AfterCommit.run(() -> feedCacheService.invalidateViewer(user.getId()));
+        int loveCount = inserted > 0
+                ? likeCounterService.record(postId, 1)
+                : likeCounterService.currentCount(postId);
+        return PostDto.LikeResponse.builder().loveCount(loveCount).isLiked(true).build();
     }
 
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "postsList", allEntries = true),
-            @CacheEvict(value = "postDetail", key = "#postId")
-    })
     public PostDto.LikeResponse unlike(java.util.UUID postId, String userEmail) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Post not found"));
+        if (!postRepository.existsById(postId)) {
+            throw new IllegalArgumentException("Post not found");
+        }
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        if (postLikeRepository.existsByUserIdAndPostId(user.getId(), postId)) {
-            postLikeRepository.deleteByUserIdAndPostId(user.getId(), postId);
-            post.setLoveCount((int) postLikeRepository.countByPostId(postId));
-            postRepository.save(post);
-            feedCacheService.invalidateAll();
-            timelineService.updateLikeCount(postId, post.getLoveCount());
-            // Update trending score on engagement
-            trendingService.updatePostTrendingScore(post);
+        int deleted = postLikeRepository.deleteLike(postId, user.getId());
+        if (deleted > 0) {
+            AfterCommit.run(() -> feedCacheService.invalidateViewer(user.getId()));
         }
-
-        return PostDto.LikeResponse.builder().loveCount(post.getLoveCount()).isLiked(false).build();
+        int loveCount = deleted > 0
+                ? likeCounterService.record(postId, -1)
+                : likeCounterService.currentCount(postId);
+        return PostDto.LikeResponse.builder().loveCount(loveCount).isLiked(false).build();
     }
 
     @Transactional
@@ -549,7 +640,6 @@ public class PostService {
         postRepository.incrementShareCount(postId);
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        feedCacheService.invalidateAll();
         // Update timeline share count
         timelineService.updateShareCount(postId, post.getShareCount());
         // Update trending score on engagement
@@ -616,7 +706,12 @@ public class PostService {
 
         Post saved = postRepository.save(post);
         asyncJobService.enqueuePostProcessMedia(extractFileIds(request.getMedia()), "posts/" + saved.getId());
-        feedCacheService.invalidateAll();
+        List<String> addedTags = new ArrayList<>(saved.getTags());
+        AfterCommit.run(() -> feedCacheService.onPostChanged(saved.getId(), addedTags));
+        AfterCommit.run(() -> searchSuggestIndex.onPostTagsChanged(List.of(), addedTags));
+        // Reposts belong in the latest timeline like any other post
+        timelineService.insertPostToTimeline(saved);
+        trendingService.onPostCreated(saved);
         return mapToResponse(saved);
     }
 
@@ -685,10 +780,12 @@ public class PostService {
 
         // ── STEP 7: Hard-DELETE post_timelines_global ─────────────────────────
         int timelineDeleted = timelineRepository.hardDeleteAll();
+        timelineService.reloadHotWindow();
         log.info("[DEEP WIPE] Hard-deleted {} post_timelines_global rows", timelineDeleted);
 
         // ── STEP 8: Hard-DELETE posts ─────────────────────────────────────────
         long postsDeleted = postRepository.hardDeleteAll();
+        trendingService.reloadIndex();
         log.info("[DEEP WIPE] Hard-deleted {} posts (CASCADE cleaned dependents)", postsDeleted);
 
         // ── STEP 9: Hard-DELETE homestays ─────────────────────────────────────
@@ -1008,22 +1105,6 @@ public class PostService {
         }
     }
 
-    private Instant toInstant(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Instant instant) {
-            return instant;
-        }
-        if (value instanceof java.sql.Timestamp timestamp) {
-            return timestamp.toInstant();
-        }
-        if (value instanceof java.time.LocalDateTime localDateTime) {
-            return localDateTime.toInstant(java.time.ZoneOffset.UTC);
-        }
-        return Instant.parse(value.toString());
-    }
-
     private PostType parsePostType(Object value) {
         if (value == null) {
             return null;
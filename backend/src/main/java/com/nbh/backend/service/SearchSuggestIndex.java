@@ -0,0 +1,480 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.dto.SuggestionDto;
+import com.nbh.backend.repository.DestinationRepository;
+import com.nbh.backend.repository.HomestayRepository;
+import com.nbh.backend.repository.PostRepository;
+import com.nbh.backend.repository.StateRepository;
+import com.nbh.backend.repository.projection.DestinationCardProjection;
+import com.nbh.backend.repository.projection.StateSummaryProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory typeahead over homestay, destination and state names and popular post tags.
+ *
+ * The index keeps one sorted key per word start of every label, so "gar" finds "Tea Garden
+ * Retreat"; a prefix is a range of those keys. Prefixes of up to {@value #SHORT_PREFIX}
+ * characters, whose ranges are the longest, are answered from per-prefix sets kept in rank
+ * order (type boost plus log-scaled popularity). All of these are concurrent structures:
+ * a write removes and re-adds the keys of the one entry it changes, and lookups never lock.
+ * A periodic rebuild reloads everything from SQL into a fresh index and swaps it in.
+ *
+ * Uses of every tag are tracked; the {@code max-tags} most used ones are indexed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchSuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int SHORT_PREFIX = 2;
+
+    // Places rank above single listings and tags of equal popularity
+    private static final double STATE_BOOST = 3.0;
+    private static final double DESTINATION_BOOST = 2.0;
+    private static final double TAG_BOOST = 1.0;
+
+    private static final Comparator<Entry> RANK = Comparator.comparingDouble(Entry::weight).reversed()
+            .thenComparing(Entry::label)
+            .thenComparing(Entry::key);
+
+    private final HomestayRepository homestayRepository;
+    private final DestinationRepository destinationRepository;
+    private final StateRepository stateRepository;
+    private final PostRepository postRepository;
+
+    @Value("${search.suggest.enabled:true}")
+    private boolean enabled;
+
+    // One inquiry counts as this many views
+    @Value("${search.suggest.inquiry-weight:10}")
+    private double inquiryWeight;
+
+    @Value("${search.suggest.max-tags:500}")
+    private int maxTags;
+
+    // Writer state, guarded by this
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Long> tagUses = new HashMap<>();
+    private final NavigableSet<TagCount> indexedTags = new TreeSet<>();
+
+    private volatile Index index;
+    private volatile Instant lastRebuildAt;
+    private final LatencyHistogram shortLookups = new LatencyHistogram();
+    private final LatencyHistogram longLookups = new LatencyHistogram();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reload every source from the database.
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, Entry> loaded = new HashMap<>();
+            for (Object[] row : homestayRepository.findSuggestionRows()) {
+                Entry entry = homestayEntry(row);
+                loaded.put(entry.key(), entry);
+            }
+            for (DestinationCardProjection destination : destinationRepository.fetchDestinationCardProjections()) {
+                long homestays = destination.getHomestayCount() == null ? 0 : destination.getHomestayCount();
+                Entry entry = new Entry(SuggestionDto.Type.DESTINATION, destination.getSlug(), destination.getName(),
+                        destination.getStateName(), DESTINATION_BOOST + Math.log1p(homestays));
+                loaded.put(entry.key(), entry);
+            }
+            for (StateSummaryProjection state : stateRepository.fetchStateSummaries()) {
+                Entry entry = new Entry(SuggestionDto.Type.STATE, state.getSlug(), state.getName(), null,
+                        STATE_BOOST + Math.log1p(state.getHomestayCount()));
+                loaded.put(entry.key(), entry);
+            }
+            Map<String, Long> uses = new HashMap<>();
+            for (Object[] row : postRepository.findTagUses()) {
+                uses.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            NavigableSet<TagCount> topTags = new TreeSet<>();
+            uses.forEach((tag, count) -> {
+                topTags.add(new TagCount(count, tag));
+                if (topTags.size() > maxTags) {
+                    topTags.pollFirst();
+                }
+            });
+            for (TagCount top : topTags) {
+                Entry entry = tagEntry(top.tag(), top.uses());
+                loaded.put(entry.key(), entry);
+            }
+
+            long startNs = System.nanoTime();
+            Index fresh = new Index();
+            loaded.values().forEach(fresh::add);
+            entries.clear();
+            entries.putAll(loaded);
+            tagUses.clear();
+            tagUses.putAll(uses);
+            indexedTags.clear();
+            indexedTags.addAll(topTags);
+            fresh.buildMicros = (System.nanoTime() - startNs) / 1000;
+            index = fresh;
+            lastRebuildAt = Instant.now();
+            log.debug("Search suggest index rebuilt with {} entries", loaded.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild search suggest index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-read one listing once the transaction that changed it has committed.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHomestayChanged(HomestaySearchEngine.HomestayChangedEvent event) {
+        refreshHomestay(event.homestayId());
+    }
+
+    public synchronized void refreshHomestay(UUID homestayId) {
+        if (!enabled || index == null || homestayId == null) {
+            return;
+        }
+        try {
+            List<Object[]> rows = homestayRepository.findSuggestionRowsById(homestayId);
+            // Deleted, rejected or not approved yet when there is no row
+            replace(SuggestionDto.Type.HOMESTAY + ":" + homestayId, rows.isEmpty() ? null : homestayEntry(rows.get(0)));
+        } catch (Exception e) {
+            log.error("Failed to refresh homestay {} in search suggest index: {}", homestayId, e.getMessage());
+        }
+    }
+
+    /**
+     * Move post tag counts once the post is created, edited or deleted. Callers run this after commit.
+     */
+    @Async
+    public void onPostTagsChanged(Collection<String> removed, Collection<String> added) {
+        Set<String> before = removed == null ? Set.of() : new HashSet<>(removed);
+        Set<String> after = added == null ? Set.of() : new HashSet<>(added);
+        if (before.equals(after)) {
+            return;
+        }
+        synchronized (this) {
+            if (!enabled || index == null) {
+                return;
+            }
+            for (String tag : before) {
+                if (!after.contains(tag)) {
+                    applyTagUses(tag, -1);
+                }
+            }
+            for (String tag : after) {
+                if (!before.contains(tag)) {
+                    applyTagUses(tag, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} suggestions for a prefix, most popular first. Empty when the index is not loaded.
+     */
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        Index current = index;
+        String normalized = normalize(prefix);
+        if (!enabled || current == null || normalized.isEmpty()) {
+            return List.of();
+        }
+        long startNs = System.nanoTime();
+        try {
+            return current.suggest(normalized, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+        } finally {
+            (normalized.length() <= SHORT_PREFIX ? shortLookups : longLookups).record(System.nanoTime() - startNs);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Index current = index;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", current != null);
+        stats.put("entries", current == null ? 0 : current.entryCount.get());
+        stats.put("keys", current == null ? 0 : current.keys.size());
+        stats.put("shortPrefixes", current == null ? 0 : current.shortRuns.size());
+        stats.put("indexBuildMicros", current == null ? 0 : current.buildMicros);
+        stats.put("lastRebuildAt", lastRebuildAt == null ? null : lastRebuildAt.toString());
+        stats.put("trackedTags", tagUses.size());
+        stats.put("shortPrefixLookups", shortLookups.stats());
+        stats.put("longPrefixLookups", longLookups.stats());
+        return stats;
+    }
+
+    private void applyTagUses(String tag, long delta) {
+        long before = tagUses.getOrDefault(tag, 0L);
+        long uses = before + delta;
+        if (uses > 0) {
+            tagUses.put(tag, uses);
+        } else {
+            tagUses.remove(tag);
+        }
+        String key = SuggestionDto.Type.TAG + ":" + tag;
+        boolean wasIndexed = indexedTags.remove(new TagCount(before, tag));
+        TagCount now = new TagCount(uses, tag);
+        if (uses > 0 && (wasIndexed || indexedTags.size() < maxTags
+                || (!indexedTags.isEmpty() && now.compareTo(indexedTags.first()) > 0))) {
+            indexedTags.add(now);
+            replace(key, tagEntry(tag, uses));
+            if (indexedTags.size() > maxTags) {
+                // Same cap as a rebuild: the least used tag leaves the index but keeps its count
+                TagCount dropped = indexedTags.pollFirst();
+                replace(SuggestionDto.Type.TAG + ":" + dropped.tag(), null);
+            }
+        } else if (wasIndexed) {
+            replace(key, null);
+            // Its slot goes to the most used tag left out
+            tagUses.entrySet().stream()
+                    .filter(use -> !entries.containsKey(SuggestionDto.Type.TAG + ":" + use.getKey()))
+                    .map(use -> new TagCount(use.getValue(), use.getKey()))
+                    .max(Comparator.naturalOrder())
+                    .ifPresent(promoted -> {
+                        indexedTags.add(promoted);
+                        replace(SuggestionDto.Type.TAG + ":" + promoted.tag(), tagEntry(promoted.tag(), promoted.uses()));
+                    });
+        }
+    }
+
+    // Swap one entry in the live index; null removes it
+    private void replace(String key, Entry entry) {
+        Entry previous = entry == null ? entries.remove(key) : entries.put(key, entry);
+        if (previous != null) {
+            index.remove(previous);
+        }
+        if (entry != null) {
+            index.add(entry);
+        }
+    }
+
+    private Entry homestayEntry(Object[] row) {
+        UUID id = row[0] instanceof UUID uuid ? uuid : UUID.fromString(row[0].toString());
+        double popularity = ((Number) row[3]).doubleValue() + ((Number) row[4]).doubleValue() * inquiryWeight;
+        return new Entry(SuggestionDto.Type.HOMESTAY, id.toString(), (String) row[1], (String) row[2],
+                Math.log1p(popularity));
+    }
+
+    private static Entry tagEntry(String tag, long uses) {
+        return new Entry(SuggestionDto.Type.TAG, tag, tag, null, TAG_BOOST + Math.log1p(uses));
+    }
+
+    /**
+     * Lower case, accents stripped, runs of anything but letters and digits collapsed to one space.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return folded.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private record Entry(SuggestionDto.Type type, String value, String label, String subtitle, double weight) {
+
+        String key() {
+            return type + ":" + value;
+        }
+
+        SuggestionDto toDto() {
+            return new SuggestionDto(type, label, subtitle, value);
+        }
+    }
+
+    // Least used first
+    private record TagCount(long uses, String tag) implements Comparable<TagCount> {
+
+        @Override
+        public int compareTo(TagCount other) {
+            int byUses = Long.compare(uses, other.uses);
+            return byUses != 0 ? byUses : other.tag.compareTo(tag);
+        }
+    }
+
+    private static final class Index {
+
+        // Word start + '\0' + entry key -> entry; the keys of a prefix are one contiguous range
+        private final ConcurrentSkipListMap<String, Entry> keys = new ConcurrentSkipListMap<>();
+        // Entries with a word starting with each short prefix, best first
+        private final Map<String, ConcurrentSkipListSet<Entry>> shortRuns = new ConcurrentHashMap<>();
+        private final AtomicInteger entryCount = new AtomicInteger();
+        private volatile long buildMicros;
+
+        void add(Entry entry) {
+            List<String> starts = wordStarts(entry);
+            if (starts.isEmpty()) {
+                return;
+            }
+            for (String start : starts) {
+                keys.put(start + '\0' + entry.key(), entry);
+                for (int length = 1; length <= Math.min(SHORT_PREFIX, start.length()); length++) {
+                    shortRuns.computeIfAbsent(start.substring(0, length), p -> new ConcurrentSkipListSet<>(RANK))
+                            .add(entry);
+                }
+            }
+            entryCount.incrementAndGet();
+        }
+
+        void remove(Entry entry) {
+            List<String> starts = wordStarts(entry);
+            if (starts.isEmpty()) {
+                return;
+            }
+            for (String start : starts) {
+                keys.remove(start + '\0' + entry.key());
+                for (int length = 1; length <= Math.min(SHORT_PREFIX, start.length()); length++) {
+                    Set<Entry> run = shortRuns.get(start.substring(0, length));
+                    if (run != null) {
+                        run.remove(entry);
+                    }
+                }
+            }
+            entryCount.decrementAndGet();
+        }
+
+        List<SuggestionDto> suggest(String prefix, int limit) {
+            List<SuggestionDto> suggestions = new ArrayList<>(limit);
+            if (prefix.length() <= SHORT_PREFIX) {
+                Set<Entry> run = shortRuns.get(prefix);
+                if (run != null) {
+                    for (Entry entry : run) {
+                        if (suggestions.size() == limit) {
+                            break;
+                        }
+                        suggestions.add(entry.toDto());
+                    }
+                }
+                return suggestions;
+            }
+            // Best distinct entries of the range, worst first so it is the one dropped
+            TreeSet<Entry> best = new TreeSet<>(RANK.reversed());
+            for (Entry entry : keys.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                if (best.size() == limit && RANK.compare(entry, best.first()) >= 0) {
+                    continue;
+                }
+                best.add(entry);
+                if (best.size() > limit) {
+                    best.pollFirst();
+                }
+            }
+            best.descendingSet().forEach(entry -> suggestions.add(entry.toDto()));
+            return suggestions;
+        }
+
+        private static List<String> wordStarts(Entry entry) {
+            String label = normalize(entry.label());
+            List<String> starts = new ArrayList<>();
+            for (int start = 0; start < label.length(); start++) {
+                if (start == 0 || label.charAt(start - 1) == ' ') {
+                    starts.add(label.substring(start));
+                }
+            }
+            return starts;
+        }
+    }
+
+    /**
+     * Lookup latencies in microsecond buckets, eight per power of two (at most 12.5% wide).
+     */
+    static final class LatencyHistogram {
+
+        private static final int SUB_BUCKETS = 8;
+        private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        void record(long nanos) {
+            counts.incrementAndGet(bucket(Math.max(0L, nanos) / 1000));
+            count.increment();
+            totalNanos.add(nanos);
+        }
+
+        Map<String, Object> stats() {
+            long total = count.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", total);
+            stats.put("avgMicros", total == 0 ? 0 : totalNanos.sum() / total / 1000);
+            stats.put("p50Micros", percentileMicros(0.50));
+            stats.put("p99Micros", percentileMicros(0.99));
+            return stats;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile; 0 before any lookup.
+         */
+        long percentileMicros(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        static int bucket(long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) micros;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros); // >= 3
+            int sub = (int) (micros >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+            return Math.min(BUCKETS - 1, (exponent - 2) * SUB_BUCKETS + sub);
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket + 1;
+            }
+            int exponent = bucket / SUB_BUCKETS + 2;
+            int sub = bucket % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1)) << (exponent - 3);
+        }
+    }
+}
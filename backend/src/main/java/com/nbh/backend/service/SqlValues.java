@@ -0,0 +1,48 @@
+package com.nbh.backend.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Reading native query columns and matching Postgres ordering in memory, for the in-process
+ * indexes that must page exactly like the SQL they stand in for.
+ */
+public final class SqlValues {
+
+    /**
+     * Postgres orders uuid by unsigned bytes; UUID.compareTo is signed, so compare explicitly.
+     */
+    public static final Comparator<UUID> PG_UUID_ORDER = Comparator
+            .comparing((UUID id) -> id.getMostSignificantBits(), Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private SqlValues() {
+    }
+
+    /**
+     * A timestamp column as the driver returned it; LocalDateTime is taken as UTC. Null stays null.
+     */
+    public static Instant toInstant(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant();
+        }
+        if (value instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toInstant();
+        }
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime.toInstant(ZoneOffset.UTC);
+        }
+        return Instant.parse(value.toString());
+    }
+}
@@ -0,0 +1,123 @@
+package com.nbh.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nbh.backend.model.Post;
+import com.nbh.backend.repository.TimelineInboxRepository;
+import com.nbh.backend.repository.UserFollowRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains per-follower timeline inboxes for the "following" feed scope.
+ *
+ * Hybrid fan-out strategy:
+ * - Regular authors: post is copied into every follower inbox on write
+ * - Very large authors: marked as pull authors, merged in at read time
+ * - Viewers following very many accounts: read path falls back to the join query
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TimelineInboxService {
+
+    private final TimelineInboxRepository inboxRepository;
+    private final UserFollowRepository userFollowRepository;
+
+    @Value("${feed.following.inbox.enabled:true}")
+    private boolean inboxEnabled;
+
+    @Value("${feed.following.inbox.max-author-fanout:5000}")
+    private long maxAuthorFanout;
+
+    @Value("${feed.following.inbox.max-viewer-following:2000}")
+    private long maxViewerFollowing;
+
+    // Following counts only pick the read path, so a few minutes of staleness is harmless
+    private final Cache<UUID, Long> followingCounts = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Fan a newly written post out to follower inboxes.
+     * Authors above the fan-out limit are marked as pull authors instead.
+     */
+    @Transactional
+    public void fanOutPost(Post post) {
+        if (!inboxEnabled || post == null || post.getId() == null || post.getUser() == null) {
+            return;
+        }
+        UUID authorId = post.getUser().getId();
+        long followerCount = userFollowRepository.countByFollowedUserId(authorId);
+        if (followerCount == 0) {
+            return;
+        }
+        if (followerCount > maxAuthorFanout) {
+            inboxRepository.markPullAuthor(authorId, followerCount);
+            log.debug("Author {} has {} followers, serving post {} via fan-out-on-read", authorId, followerCount, post.getId());
+            return;
+        }
+        int written = inboxRepository.fanOutToFollowers(post.getId(), authorId, post.getCreatedAt());
+        log.debug("Fanned out post {} to {} follower inboxes", post.getId(), written);
+    }
+
+    /**
+     * Seed the follower inbox with the posts of a newly followed author.
+     */
+    @Transactional
+    public void onFollow(UUID followerUserId, UUID authorId) {
+        if (followerUserId != null) {
+            followingCounts.invalidate(followerUserId);
+        }
+        if (!inboxEnabled || followerUserId == null || authorId == null) {
+            return;
+        }
+        if (inboxRepository.isPullAuthor(authorId)) {
+            return;
+        }
+        int copied = inboxRepository.backfillFromAuthor(followerUserId, authorId);
+        log.debug("Backfilled {} posts from {} into inbox of {}", copied, authorId, followerUserId);
+    }
+
+    /**
+     * Drop the unfollowed author's posts from the follower inbox.
+     */
+    @Transactional
+    public void onUnfollow(UUID followerUserId, UUID authorId) {
+        if (followerUserId == null || authorId == null) {
+            return;
+        }
+        followingCounts.invalidate(followerUserId);
+        inboxRepository.deleteByFollowerAndAuthor(followerUserId, authorId);
+    }
+
+    /**
+     * Remove a deleted post from every inbox it was fanned out to.
+     */
+    @Transactional
+    public void removePost(UUID postId) {
+        if (postId == null) {
+            return;
+        }
+        inboxRepository.deleteByPostId(postId);
+    }
+
+    /**
+     * Whether the following feed for this viewer should be served from the inbox.
+     * Viewers who follow very many accounts keep using fan-out-on-read.
+     */
+    @Transactional(readOnly = true)
+    public boolean shouldReadFromInbox(UUID viewerUserId) {
+        if (!inboxEnabled || viewerUserId == null) {
+            return false;
+        }
+        return followingCounts.get(viewerUserId, userFollowRepository::countByFollowerUserId) <= maxViewerFollowing;
+    }
+}
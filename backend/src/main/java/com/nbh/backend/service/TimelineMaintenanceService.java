@@ -0,0 +1,238 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.model.Post;
+import com.nbh.backend.repository.PostRepository;
+import com.nbh.backend.repository.TimelineRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps post_timelines_global in shape without touching the request path.
+ *
+ * Each cycle:
+ * - prunes rows beyond the hot window, and purges soft-deleted rows, in small batches
+ * - reconciles posts against the timeline from a (created_at, id) watermark:
+ *   posts without a live row are inserted, rows of deleted posts are removed
+ * - refreshes lag and size figures (see {@link #getStats()})
+ *
+ * Every cycle also re-checks a trailing window behind the watermark (the lookback),
+ * so posts that commit late or carry a backdated created_at are still picked up.
+ * The watermark is per instance and starts at the newest live timeline row, or at
+ * the current time when the timeline is empty; the startup backfill covers the rest.
+ */
+@Service
+@Slf4j
+public class TimelineMaintenanceService {
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final TimelineRepository timelineRepository;
+    private final PostRepository postRepository;
+    private final TimelineService timelineService;
+    private final TransactionTemplate tx;
+
+    @Value("${feed.hot-window.size:1000}")
+    private int hotWindowSize;
+
+    @Value("${feed.timeline-maintenance.batch-size:200}")
+    private int batchSize;
+
+    @Value("${feed.timeline-maintenance.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    // New posts are left alone this long so uncommitted create transactions are not seen as drift
+    @Value("${feed.timeline-maintenance.settle-seconds:30}")
+    private long settleSeconds;
+
+    // Re-checked behind the watermark every cycle for late-committed and backdated posts
+    @Value("${feed.timeline-maintenance.lookback-minutes:60}")
+    private long lookbackMinutes;
+
+    private final AtomicReference<Watermark> watermark = new AtomicReference<>();
+    private final AtomicReference<Map<String, Object>> lastRun = new AtomicReference<>(Map.of());
+
+    public TimelineMaintenanceService(TimelineRepository timelineRepository,
+                                      PostRepository postRepository,
+                                      TimelineService timelineService,
+                                      PlatformTransactionManager transactionManager) {
+        this.timelineRepository = timelineRepository;
+        this.postRepository = postRepository;
+        this.timelineService = timelineService;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * One maintenance cycle. Each batch commits on its own, so a failure
+     * only loses the batch in progress.
+     */
+    public void runCycle() {
+        long startNs = System.nanoTime();
+        int pruned = prune();
+        int purged = purgeDeleted();
+        int inserted = reconcileMissing();
+        int removed = removeOrphans();
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("completedAt", Instant.now().toString());
+        run.put("durationMs", (System.nanoTime() - startNs) / 1_000_000);
+        run.put("pruned", pruned);
+        run.put("purgedDeleted", purged);
+        run.put("insertedMissing", inserted);
+        run.put("removedOrphans", removed);
+        run.putAll(measure());
+        lastRun.set(run);
+
+        if (inserted > 0 || removed > 0) {
+            log.info("Timeline drift repaired: {} missing posts inserted, {} orphaned rows removed", inserted, removed);
+        }
+        log.debug("Timeline maintenance: {}", run);
+    }
+
+    /**
+     * Figures from the last completed cycle.
+     */
+    public Map<String, Object> getStats() {
+        return lastRun.get();
+    }
+
+    private int prune() {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int deleted = timelineRepository.pruneBatch(hotWindowSize, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int purgeDeleted() {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int deleted = timelineRepository.purgeDeletedBatch(batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int reconcileMissing() {
+        Watermark current = currentWatermark();
+        // Trailing window first; it never moves the watermark
+        Instant lookbackFrom = current.createdAt().minus(Duration.ofMinutes(lookbackMinutes));
+        int inserted = reconcileRange(new Watermark(lookbackFrom, MIN_UUID), current.createdAt(), false);
+        inserted += reconcileRange(current, Instant.now().minusSeconds(settleSeconds), true);
+        return inserted;
+    }
+
+    /**
+     * Insert missing rows for posts after {@code from} up to {@code until}, at most
+     * {@code maxBatchesPerRun} batches.
+     */
+    private int reconcileRange(Watermark from, Instant until, boolean advanceWatermark) {
+        int inserted = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<Object[]> rows = timelineRepository.findPostsAfterWatermark(
+                    from.createdAt(), from.postId(), until, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<UUID> missing = new ArrayList<>();
+            for (Object[] row : rows) {
+                if (Boolean.TRUE.equals(row[2])) {
+                    missing.add((UUID) row[0]);
+                }
+            }
+            if (!missing.isEmpty()) {
+                inserted += insertMissing(missing);
+            }
+            Object[] last = rows.get(rows.size() - 1);
+            from = new Watermark(SqlValues.toInstant(last[1]), (UUID) last[0]);
+            if (advanceWatermark) {
+                watermark.set(from);
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        return inserted;
+    }
+
+    private int insertMissing(List<UUID> postIds) {
+        Integer inserted = tx.execute(status -> {
+            int count = 0;
+            for (Post post : postRepository.findAllById(postIds)) {
+                timelineService.insertPostToTimeline(post);
+                count++;
+            }
+            return count;
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    private int removeOrphans() {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<UUID> orphaned = timelineRepository.findOrphanedPostIds(batchSize);
+            orphaned.forEach(timelineService::deletePostFromTimeline);
+            total += orphaned.size();
+            if (orphaned.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private Watermark currentWatermark() {
+        Watermark current = watermark.get();
+        if (current != null) {
+            return current;
+        }
+        List<Object[]> newest = timelineRepository.findNewestLiveEntry();
+        // Everything before the start is covered by the lookback and the startup backfill
+        Watermark start = newest.isEmpty()
+                ? new Watermark(Instant.now(), MIN_UUID)
+                : new Watermark(SqlValues.toInstant(newest.get(0)[0]), (UUID) newest.get(0)[1]);
+        watermark.compareAndSet(null, start);
+        return watermark.get();
+    }
+
+    private Map<String, Object> measure() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Object[] row = timelineRepository.findMaintenanceStats().get(0);
+        Instant newestEntry = SqlValues.toInstant(row[2]);
+        Instant newestPost = SqlValues.toInstant(row[3]);
+        stats.put("liveRows", ((Number) row[0]).longValue());
+        stats.put("softDeletedRows", ((Number) row[1]).longValue());
+        stats.put("hotWindowRows", timelineService.getHotWindowSize());
+        // How far the newest timeline row trails the newest post
+        stats.put("timelineLagMs", newestPost != null && newestEntry != null
+                ? Math.max(0L, Duration.between(newestEntry, newestPost).toMillis())
+                : 0L);
+        Watermark current = watermark.get();
+        stats.put("reconcileWatermark", current != null ? current.createdAt().toString() : null);
+        // How far reconciliation trails wall clock (never below the settle delay once caught up)
+        stats.put("reconcileLagMs", current != null
+                ? Math.max(0L, Duration.between(current.createdAt(), Instant.now()).toMillis())
+                : null);
+        return stats;
+    }
+
+    private record Watermark(Instant createdAt, UUID postId) {
+    }
+}
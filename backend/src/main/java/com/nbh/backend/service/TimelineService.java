@@ -13,16 +13,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for managing the timeline hot window.
  * Implements Instagram-style optimization: only last 1000 posts are kept.
  * 
  * Fan-out strategy:
- * - Since no follow system exists, we use a global timeline
- * - All posts are inserted into the single timeline
- * - Timeline is pruned every 100 inserts (not every insert)
+ * - All posts are inserted into the single global timeline
+ * - Posts are also fanned out to follower inboxes (see TimelineInboxService)
+ * - Timeline is pruned in batches by TimelineMaintenanceJob, off the request path
+ * - Every write is mirrored into the in-process HotTimelineWindow once it commits
  */
 @Service
 @RequiredArgsConstructor
@@ -31,13 +31,10 @@ public class TimelineService {
 
     private final TimelineRepository timelineRepository;
     private final PostRepository postRepository;
+    private final TimelineInboxService timelineInboxService;
+    private final HotTimelineWindow hotTimelineWindow;
     
-    private static final int HOT_WINDOW_SIZE = 1000;
-    private static final int PRUNE_INTERVAL = 100;
     private static final int BACKFILL_BATCH_SIZE = 100;
-    
-    // Counter for prune interval
-    private final AtomicInteger insertCounter = new AtomicInteger(0);
 
     /**
      * Insert a post into the timeline (synchronous for create, async for updates).
@@ -75,13 +72,27 @@ public class TimelineService {
                     post.getShareCount()
             );
             
-            log.debug("Inserted post {} to timeline", post.getId());
+            PostTimeline windowEntry = PostTimeline.builder()
+                    .postId(post.getId())
+                    .createdAt(post.getCreatedAt())
+                    .authorId(author.getId())
+                    .authorName(authorName)
+                    .authorAvatarUrl(author.getAvatarUrl())
+                    .authorRole(author.getRole().name())
+                    .authorVerifiedHost(author.isVerifiedHost())
+                    .textContent(post.getTextContent())
+                    .homestayId(post.getHomestay() != null ? post.getHomestay().getId() : null)
+                    .homestayName(homestayName)
+                    .originalPostId(post.getOriginalPost() != null ? post.getOriginalPost().getId() : null)
+                    .likeCount(post.getLoveCount())
+                    .shareCount(post.getShareCount())
+                    .build();
+            AfterCommit.run(() -> hotTimelineWindow.upsert(windowEntry));
             
-            // Prune every 100 inserts, not every insert
-            if (insertCounter.incrementAndGet() >= PRUNE_INTERVAL) {
-                insertCounter.set(0);
-                pruneTimeline();
-            }
+            log.debug("Inserted post {} to timeline", post.getId());
+
+            // Fan-out to follower inboxes for the following scope
+            timelineInboxService.fanOutPost(post);
         } catch (Exception e) {
             log.error("Failed to insert post {} to timeline: {}", post.getId(), e.getMessage());
         }
@@ -107,6 +118,8 @@ public class TimelineService {
         
         try {
             timelineRepository.softDeleteByPostId(postId);
+            AfterCommit.run(() -> hotTimelineWindow.remove(postId));
+            timelineInboxService.removePost(postId);
             log.debug("Soft deleted post {} from timeline", postId);
         } catch (Exception e) {
             log.error("Failed to delete post {} from timeline: {}", postId, e.getMessage());
@@ -124,6 +137,7 @@ public class TimelineService {
         
         try {
             timelineRepository.updateLikeCount(postId, likeCount);
+            AfterCommit.run(() -> hotTimelineWindow.updateLikeCount(postId, likeCount));
             log.debug("Updated like count for post {} to {}", postId, likeCount);
         } catch (Exception e) {
             log.error("Failed to update like count for post {}: {}", postId, e.getMessage());
@@ -141,6 +155,7 @@ public class TimelineService {
         
         try {
             timelineRepository.updateShareCount(postId, shareCount);
+            AfterCommit.run(() -> hotTimelineWindow.updateShareCount(postId, shareCount));
             log.debug("Updated share count for post {} to {}", postId, shareCount);
         } catch (Exception e) {
             log.error("Failed to update share count for post {}: {}", postId, e.getMessage());
@@ -148,20 +163,15 @@ public class TimelineService {
     }
 
     /**
-     * Prune timeline to hot window size.
-     * Keeps only the newest 1000 posts.
+     * Reload the in-process hot window from the table.
+     * Called after bulk statements that bypass this service.
      */
-    @Transactional
-    public void pruneTimeline() {
-        try {
-            long count = timelineRepository.countByIsDeletedFalse();
-            if (count > HOT_WINDOW_SIZE) {
-                timelineRepository.pruneToHotWindow();
-                log.debug("Pruned timeline from {} to {} entries", count, HOT_WINDOW_SIZE);
-            }
-        } catch (Exception e) {
-            log.error("Failed to prune timeline: {}", e.getMessage());
-        }
+    public void reloadHotWindow() {
+        hotTimelineWindow.rebuild();
+    }
+
+    public int getHotWindowSize() {
+        return hotTimelineWindow.size();
     }
 
     /**
@@ -261,6 +271,7 @@ public class TimelineService {
     public void clearAll() {
         try {
             timelineRepository.deleteAll();
+            AfterCommit.run(hotTimelineWindow::clear);
             log.info("[DEEP WIPE] Cleared all timeline entries");
         } catch (Exception e) {
             log.error("Failed to clear timeline: {}", e.getMessage());
@@ -278,6 +289,7 @@ public class TimelineService {
         
         try {
             timelineRepository.deleteByPostIdIn(postIds);
+            AfterCommit.run(() -> hotTimelineWindow.removeAll(postIds));
             log.debug("[BATCH WIPE] Deleted {} posts from timeline", postIds.size());
         } catch (Exception e) {
             log.error("Failed to delete {} posts from timeline: {}", postIds.size(), e.getMessage());
@@ -0,0 +1,169 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.dto.TrendingHistoryDto;
+import com.nbh.backend.repository.PostTrendingHistoryRepository;
+import com.nbh.backend.repository.TrendingHistoryStorageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Storage lifecycle of post_trending_history.
+ *
+ * Raw snapshots go to daily partitions. Each maintenance run:
+ * - creates partitions for the next {@code partitions-ahead-days} days
+ * - rolls every day older than {@code raw-retention-days} up into hourly buckets and drops its partition
+ * - rolls hourly buckets older than {@code hourly-retention-days} up into daily buckets
+ * - deletes daily buckets older than {@code daily-retention-days}
+ */
+@Service
+@Slf4j
+public class TrendingHistoryService {
+
+    private static final int MAX_TRAJECTORY_POINTS = 2000;
+
+    private final TrendingHistoryStorageRepository storageRepository;
+    private final PostTrendingHistoryRepository historyRepository;
+    private final TransactionTemplate tx;
+
+    @Value("${trending.history.partitions-ahead-days:3}")
+    private int partitionsAheadDays;
+
+    @Value("${trending.history.raw-retention-days:2}")
+    private int rawRetentionDays;
+
+    @Value("${trending.history.hourly-retention-days:30}")
+    private int hourlyRetentionDays;
+
+    @Value("${trending.history.daily-retention-days:365}")
+    private int dailyRetentionDays;
+
+    private final AtomicReference<Map<String, Object>> lastRun = new AtomicReference<>(Map.of());
+
+    public TrendingHistoryService(TrendingHistoryStorageRepository storageRepository,
+                                  PostTrendingHistoryRepository historyRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.storageRepository = storageRepository;
+        this.historyRepository = historyRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        try {
+            ensurePartitions(LocalDate.now(ZoneOffset.UTC));
+        } catch (Exception e) {
+            // Rows land in the default partition until the job succeeds
+            log.error("Failed to create trending history partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One maintenance run. Each step commits on its own.
+     */
+    public void runMaintenance() {
+        long startNs = System.nanoTime();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int created = ensurePartitions(today);
+
+        LocalDate rawCutoff = today.minusDays(rawRetentionDays);
+        int rolledDays = 0;
+        int hourlyBuckets = 0;
+        for (String partition : storageRepository.findDayPartitions()) {
+            LocalDate day = TrendingHistoryStorageRepository.partitionDay(partition);
+            if (day.isBefore(rawCutoff)) {
+                Integer buckets = tx.execute(status -> {
+                    int written = storageRepository.rollUpPartitionToHourly(day);
+                    storageRepository.dropDayPartition(day);
+                    return written;
+                });
+                hourlyBuckets += buckets != null ? buckets : 0;
+                rolledDays++;
+            }
+        }
+        Integer strays = tx.execute(status -> storageRepository.rollUpDefaultPartitionToHourly(startOf(rawCutoff)));
+        hourlyBuckets += strays != null ? strays : 0;
+
+        Integer dailyBuckets = tx.execute(status ->
+                storageRepository.rollUpHourlyToDaily(startOf(today.minusDays(hourlyRetentionDays))));
+        Integer expired = tx.execute(status ->
+                storageRepository.deleteDailyBefore(startOf(today.minusDays(dailyRetentionDays))));
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("completedAt", Instant.now().toString());
+        run.put("durationMs", (System.nanoTime() - startNs) / 1_000_000);
+        run.put("partitionsCreated", created);
+        run.put("partitionsRolledUp", rolledDays);
+        run.put("hourlyBucketsWritten", hourlyBuckets);
+        run.put("dailyBucketsWritten", dailyBuckets != null ? dailyBuckets : 0);
+        run.put("dailyBucketsExpired", expired != null ? expired : 0);
+        run.put("dayPartitions", storageRepository.findDayPartitions().size());
+        lastRun.set(run);
+        log.debug("Trending history maintenance: {}", run);
+    }
+
+    /**
+     * Figures from the last completed run.
+     */
+    public Map<String, Object> getStats() {
+        return lastRun.get();
+    }
+
+    @Transactional(readOnly = true)
+    public TrendingHistoryDto getTrajectory(UUID postId, Instant from, Instant to) {
+        List<TrendingHistoryDto.Point> points = historyRepository
+                .findTrajectory(postId, from, to, MAX_TRAJECTORY_POINTS).stream()
+                .map(row -> TrendingHistoryDto.Point.builder()
+                        .at(SqlValues.toInstant(row[0]))
+                        .score(((Number) row[1]).doubleValue())
+                        .minScore(((Number) row[2]).doubleValue())
+                        .maxScore(((Number) row[3]).doubleValue())
+                        .samples(((Number) row[4]).intValue())
+                        .resolution((String) row[5])
+                        .build())
+                .toList()
+                .reversed(); // oldest first for the chart
+        return TrendingHistoryDto.builder()
+                .postId(postId)
+                .from(from)
+                .to(to)
+                .points(points)
+                .build();
+    }
+
+    private int ensurePartitions(LocalDate today) {
+        List<String> existing = storageRepository.findDayPartitions();
+        int created = 0;
+        for (int i = 0; i <= partitionsAheadDays; i++) {
+            LocalDate day = today.plusDays(i);
+            if (!existing.contains(TrendingHistoryStorageRepository.partitionName(day))) {
+                try {
+                    storageRepository.createDayPartition(day);
+                    created++;
+                } catch (RuntimeException e) {
+                    // The default partition already holds rows of this day; they are rolled up from there
+                    log.warn("Could not create trending history partition for {}: {}", day, e.getMessage());
+                }
+            }
+        }
+        return created;
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
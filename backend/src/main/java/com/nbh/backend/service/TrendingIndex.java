@@ -0,0 +1,299 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.model.Post;
+import com.nbh.backend.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Live in-process index of the top trending posts, ordered like the trending
+ * SQL (score DESC, created_at DESC, id DESC).
+ *
+ * Scores are computed from engagement counters fed in by like, comment, share
+ * and view events, and re-decayed in memory as time passes. The database copy
+ * of the scores is written in bulk by the trending refresh, which also reloads
+ * this index so its top-K boundary is corrected periodically.
+ *
+ * Readers iterate a concurrent skip list and never block; writers serialise on
+ * the index. Rebuilds and re-decays fill a new skip list off to the side and
+ * publish it in one write, and a single re-rank inserts the new position before
+ * removing the old one, so readers never see a post missing or a half-filled index.
+ * A page is served from memory only when the index holds enough rows for it;
+ * otherwise callers fall back to SQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingIndex {
+
+    private static final Comparator<Entry> HOTTEST_FIRST = Comparator
+            .comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::createdAt, Comparator.reverseOrder())
+            .thenComparing(Entry::postId, SqlValues.PG_UUID_ORDER.reversed());
+
+    private final PostRepository postRepository;
+
+    @Value("${trending.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trending.index.size:1000}")
+    private int capacity;
+
+    // Replaced wholesale by rebuild and redecay; writers hold the monitor
+    private volatile NavigableSet<Entry> ranked = new ConcurrentSkipListSet<>(HOTTEST_FIRST);
+    private volatile Map<UUID, Entry> byPostId = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // True while the index holds every post with a score, not just the top K
+    private volatile boolean complete;
+
+    /**
+     * Score of a post: engagement plus a recency boost that decays with whole hours of age.
+     * Mirrored in SQL by PostRepository.TRENDING_SCORE_SQL.
+     */
+    public static double score(int loveCount, int commentCount, int shareCount, int viewCount,
+                               Instant createdAt, Instant now) {
+        Instant created = createdAt == null ? now : createdAt;
+        double ageHours = Math.max(1.0, Duration.between(created, now).toHours());
+        double engagement = (loveCount * 3.0)
+                + (commentCount * 4.0)
+                + (shareCount * 5.0)
+                + (viewCount * 0.2);
+        double recencyBoost = 24.0 / ageHours;
+        return Math.max(0d, engagement + recencyBoost);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reload the top K posts by stored score and re-score them with live counters.
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Object[]> rows = postRepository.findTrendingIndexRows(capacity);
+            Instant now = Instant.now();
+            List<Entry> entries = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                entries.add(new Entry((UUID) row[0], SqlValues.toInstant(row[1]),
+                        toInt(row[2]), toInt(row[3]), toInt(row[4]), toInt(row[5]), 0d).rescored(now));
+            }
+            publish(entries, rows.size() < capacity);
+            ready = true;
+            log.info("Trending index rebuilt with {} entries", rows.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild trending index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Apply fresh counters of a post (like, comment or share event).
+     *
+     * @return whether the post entered, left or moved within the ranking, i.e. trending pages changed order
+     */
+    public synchronized boolean upsert(Post post) {
+        if (!enabled || !ready || post == null || post.getId() == null) {
+            return false;
+        }
+        Entry entry = new Entry(post.getId(), post.getCreatedAt(), post.getLoveCount(), post.getCommentCount(),
+                post.getShareCount(), post.getViewCount(), 0d).rescored(Instant.now());
+        return place(entry);
+    }
+
+    /**
+     * Count a view of an indexed post. Views of posts outside the index are picked up by the refresh.
+     */
+    public synchronized void recordView(UUID postId) {
+        if (!enabled || postId == null) {
+            return;
+        }
+        Entry current = byPostId.get(postId);
+        if (current != null) {
+            place(new Entry(postId, current.createdAt(), current.loveCount(), current.commentCount(),
+                    current.shareCount(), current.viewCount() + 1, 0d).rescored(Instant.now()));
+        }
+    }
+
+    /**
+     * Apply a live love count to an indexed post. Posts outside the index are picked up by the refresh.
+     *
+     * @return whether the post moved within the ranking, i.e. trending pages changed order
+     */
+    public synchronized boolean updateLoveCount(UUID postId, int loveCount) {
+        if (!enabled || postId == null) {
+            return false;
+        }
+        Entry current = byPostId.get(postId);
+        if (current == null || current.loveCount() == loveCount) {
+            return false;
+        }
+        return place(new Entry(postId, current.createdAt(), loveCount, current.commentCount(),
+                current.shareCount(), current.viewCount(), 0d).rescored(Instant.now()));
+    }
+
+    public synchronized void remove(UUID postId) {
+        Entry current = byPostId.remove(postId);
+        if (current != null) {
+            ranked.remove(current);
+        }
+    }
+
+    /**
+     * Apply the passage of time to every score.
+     */
+    public synchronized void redecay() {
+        if (!enabled || !ready) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<Entry> entries = new ArrayList<>(byPostId.size());
+        boolean moved = false;
+        for (Entry entry : byPostId.values()) {
+            Entry next = entry.rescored(now);
+            moved |= next.score() != entry.score();
+            entries.add(next);
+        }
+        if (moved) {
+            publish(entries, complete);
+        }
+    }
+
+    /**
+     * Hottest-first entries strictly after the cursor (or from the top when any cursor part is null).
+     *
+     * @return up to {@code fetchLimit} entries, or empty when the index cannot answer
+     *         this page on its own and the caller must query the database
+     */
+    public Optional<List<Entry>> page(Double cursorScore, Instant cursorCreatedAt, UUID cursorId, int fetchLimit) {
+        if (!enabled || !ready) {
+            return Optional.empty();
+        }
+        NavigableSet<Entry> from = ranked;
+        if (cursorScore != null && cursorCreatedAt != null && cursorId != null) {
+            from = from.tailSet(new Entry(cursorId, cursorCreatedAt, 0, 0, 0, 0, cursorScore), false);
+        }
+        List<Entry> page = new ArrayList<>(fetchLimit);
+        Set<UUID> seen = new HashSet<>();
+        if (cursorId != null) {
+            // The cursor post may have been re-scored in place and now sort after its old position
+            seen.add(cursorId);
+        }
+        for (Entry entry : from) {
+            // A concurrent re-rank can briefly expose both positions of a post
+            if (seen.add(entry.postId())) {
+                page.add(entry);
+                if (page.size() == fetchLimit) {
+                    break;
+                }
+            }
+        }
+        if (page.size() < fetchLimit && !complete) {
+            // Page runs past the lowest score we hold; the rest only exists in SQL
+            return Optional.empty();
+        }
+        return Optional.of(page);
+    }
+
+    public int size() {
+        return byPostId.size();
+    }
+
+    /**
+     * Insert or re-rank an entry.
+     *
+     * @return whether the ranking order changed: the post entered or left the index, or now
+     *         follows a different post than before
+     */
+    private boolean place(Entry entry) {
+        Entry current = byPostId.get(entry.postId());
+        if (current == null && !complete && ranked.size() >= capacity
+                && HOTTEST_FIRST.compare(entry, ranked.last()) > 0) {
+            // Below the top K we track
+            return false;
+        }
+        if (current != null && HOTTEST_FIRST.compare(current, entry) == 0) {
+            // Same position; readers only take the id and score from the ranked set
+            byPostId.put(entry.postId(), entry);
+            return false;
+        }
+        UUID hotterBefore = current == null ? null : postIdOf(ranked.lower(current));
+        // Add before removing so a concurrent reader never misses the post
+        ranked.add(entry);
+        byPostId.put(entry.postId(), entry);
+        if (current != null) {
+            ranked.remove(current);
+        }
+        while (ranked.size() > capacity) {
+            Entry evicted = ranked.pollLast();
+            if (evicted != null) {
+                byPostId.remove(evicted.postId());
+                complete = false;
+            }
+        }
+        boolean indexed = byPostId.containsKey(entry.postId());
+        if (current == null || !indexed) {
+            // Entered or fell out of the top K
+            return indexed || current != null;
+        }
+        return !Objects.equals(hotterBefore, postIdOf(ranked.lower(entry)));
+    }
+
+    /**
+     * Swap in a freshly built ranking. Readers see either the old or the new one, never a mix.
+     * A complete flag is only raised after the entries it describes are visible.
+     */
+    private void publish(List<Entry> entries, boolean nowComplete) {
+        NavigableSet<Entry> nextRanked = new ConcurrentSkipListSet<>(HOTTEST_FIRST);
+        Map<UUID, Entry> nextById = new ConcurrentHashMap<>();
+        for (Entry entry : entries) {
+            nextRanked.add(entry);
+            nextById.put(entry.postId(), entry);
+        }
+        if (!nowComplete) {
+            complete = false;
+        }
+        byPostId = nextById;
+        ranked = nextRanked;
+        complete = nowComplete;
+    }
+
+    private static UUID postIdOf(Entry entry) {
+        return entry == null ? null : entry.postId();
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    public record Entry(UUID postId, Instant createdAt, int loveCount, int commentCount,
+                        int shareCount, int viewCount, double score) {
+
+        Entry rescored(Instant now) {
+            return new Entry(postId, createdAt, loveCount, commentCount, shareCount, viewCount,
+                    TrendingIndex.score(loveCount, commentCount, shareCount, viewCount, createdAt, now));
+        }
+    }
+}
@@ -1,59 +1,110 @@
 package com.nbh.backend.service;
 
 import com.nbh.backend.model.Post;
-import com.nbh.backend.model.PostTrendingHistory;
 import com.nbh.backend.repository.PostRepository;
-import com.nbh.backend.repository.PostTrendingHistoryRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Duration;
 import java.time.Instant;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Incremental trending engine.
+ *
+ * Each refresh is a handful of set-based statements instead of a pass over every post:
+ * - posts marked dirty by engagement events are re-scored from their counters
+ * - every other post only ages (the recency term is a function of time), so it is
+ *   re-scored in SQL and written only when the score moved by at least the epsilon
+ * - history rows are written only for posts whose score moved
+ * - the top-N trending flag is updated only where it changes
+ *
+ * The dirty set lives in memory, so the first refresh after startup scores every post.
+ * Between refreshes, engagement events re-rank posts live in the {@link TrendingIndex}.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class TrendingService {
 
     private static final int TRENDING_LIMIT = 20;
+    // Largest id list bound into a single statement
+    private static final int DIRTY_BATCH_SIZE = 1000;
 
     private final PostRepository postRepository;
-    private final PostTrendingHistoryRepository postTrendingHistoryRepository;
     private final FeedCacheService feedCacheService;
+    private final TrendingIndex trendingIndex;
+
+    @Value("${trending.score-epsilon:0.05}")
+    private double scoreEpsilon;
+
+    private final Set<UUID> dirtyPosts = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean fullRescorePending = new AtomicBoolean(true);
+
+    /**
+     * Record that a post's engagement changed; it is re-scored on the next refresh.
+     */
+    public void markDirty(UUID postId) {
+        if (postId != null) {
+            dirtyPosts.add(postId);
+        }
+    }
 
     @Transactional
     public void refreshTrendingScores() {
-        List<Post> posts = postRepository.findAll();
         Instant now = Instant.now();
-        List<PostTrendingHistory> snapshots = new java.util.ArrayList<>(posts.size());
-
-        for (Post post : posts) {
-            int comments = postRepository.countCommentsByPostId(post.getId());
-            double score = calculateScore(post, comments, now);
-            post.setTrendingScore(score);
-            post.setTrendingComputedAt(now);
-            post.setTrending(score > 0);
-            snapshots.add(PostTrendingHistory.builder()
-                    .postId(post.getId())
-                    .trendingScore(score)
-                    .computedAt(now)
-                    .build());
-        }
+        List<UUID> dirty = drainDirty();
+        boolean fullScan = fullRescorePending.getAndSet(false);
+        try {
+            int snapshots = 0;
+            for (int from = 0; from < dirty.size(); from += DIRTY_BATCH_SIZE) {
+                List<UUID> batch = dirty.subList(from, Math.min(dirty.size(), from + DIRTY_BATCH_SIZE));
+                snapshots += postRepository.recomputeTrendingScores(batch, now, scoreEpsilon);
+            }
+            int aged = postRepository.ageTrendingScores(now, scoreEpsilon, agingHorizonHours(), fullScan);
+            int flagged = postRepository.refreshTrendingFlags(TRENDING_LIMIT);
+            log.info("Trending refresh: {} dirty posts ({} moved), {} aged, {} flag changes{}",
+                    dirty.size(), snapshots, aged, flagged, fullScan ? " (full scan)" : "");
 
-        List<Post> ranked = posts.stream()
-                .sorted(Comparator.comparingDouble(Post::getTrendingScore).reversed()
-                        .thenComparing(Post::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-                .toList();
+            // Stored scores are current again; reload the index to correct its top-K boundary
+            trendingIndex.rebuild();
 
-        for (int i = 0; i < ranked.size(); i++) {
-            ranked.get(i).setTrending(i < TRENDING_LIMIT && ranked.get(i).getTrendingScore() > 0);
+            if (!dirty.isEmpty() || aged > 0 || flagged > 0) {
+                // Ordering changes across the whole trending scope; other scopes keep their pages
+                feedCacheService.bumpScopes(FeedCacheService.SCOPE_TRENDING);
+            }
+        } catch (RuntimeException e) {
+            // Nothing was written; retry the same work next time
+            dirtyPosts.addAll(dirty);
+            if (fullScan) {
+                fullRescorePending.set(true);
+            }
+            throw e;
         }
+    }
 
-        postRepository.saveAll(posts);
-        postTrendingHistoryRepository.saveAll(snapshots);
-        feedCacheService.invalidateAll();
+    /**
+     * Age beyond which 24 / age can no longer move by the epsilon: 24 / h &lt; epsilon.
+     */
+    private int agingHorizonHours() {
+        return (int) Math.ceil(24.0 / Math.max(scoreEpsilon, 0.001)) + 1;
+    }
+
+    private List<UUID> drainDirty() {
+        List<UUID> drained = new ArrayList<>();
+        for (UUID postId : dirtyPosts) {
+            if (dirtyPosts.remove(postId)) {
+                drained.add(postId);
+            }
+        }
+        return drained;
     }
 
     /**
@@ -61,33 +112,64 @@ public class TrendingService {
      * Prevents stale state from memory.
      */
     @Transactional
-    public void updateTrendingScoreByPostId(java.util.UUID postId) {
+    public void updateTrendingScoreByPostId(UUID postId) {
         Post post = postRepository.findById(postId).orElseThrow();
         updatePostTrendingScore(post);
     }
 
     /**
-     * Update trending score for a single post (called on engagement events).
-     * Uses stored comment_count from post entity.
+     * Apply an engagement event (like, comment, share) to a post.
+     * The live index re-ranks it immediately; the stored score is written in bulk by the next refresh.
+     * Engagement counters are patched into cached feed pages; the trending scope is bumped
+     * only when the post changes position in the ranking.
      */
     @Transactional
     public void updatePostTrendingScore(Post post) {
-        Instant now = Instant.now();
-        int commentCount = post.getCommentCount();
-        double score = calculateScore(post, commentCount, now);
-        
-        postRepository.updateTrendingData(post.getId(), score, now, score > 0);
-        feedCacheService.invalidateAll();
+        markDirty(post.getId());
+        feedCacheService.patchCounters(post.getId(), post.getLoveCount(), post.getShareCount(), post.getCommentCount());
+        if (trendingIndex.upsert(post)) {
+            feedCacheService.bumpScopes(FeedCacheService.SCOPE_TRENDING);
+        }
+    }
+
+    /**
+     * The live love count of a post changed; its stored counter is written later by LikeCounterService.
+     * Cached pages get the count patched in; the trending scope is bumped only on a rank change.
+     */
+    public void onLoveCountChanged(UUID postId, int loveCount) {
+        markDirty(postId);
+        feedCacheService.patchCounters(postId, loveCount, null, null);
+        if (trendingIndex.updateLoveCount(postId, loveCount)) {
+            feedCacheService.bumpScopes(FeedCacheService.SCOPE_TRENDING);
+        }
     }
 
-    private double calculateScore(Post post, int commentCount, Instant now) {
-        Instant createdAt = post.getCreatedAt() == null ? now : post.getCreatedAt();
-        double ageHours = Math.max(1.0, Duration.between(createdAt, now).toHours());
-        double engagement = (post.getLoveCount() * 3.0)
-                + (commentCount * 4.0)
-                + (post.getShareCount() * 5.0)
-                + (post.getViewCount() * 0.2);
-        double recencyBoost = 24.0 / ageHours;
-        return Math.max(0d, engagement + recencyBoost);
+    /**
+     * A view was recorded for a post.
+     */
+    public void recordView(UUID postId) {
+        markDirty(postId);
+        trendingIndex.recordView(postId);
+    }
+
+    /**
+     * A post was created or reposted: it enters the index with its recency boost.
+     */
+    public void onPostCreated(Post post) {
+        if (post != null && post.getId() != null) {
+            markDirty(post.getId());
+            trendingIndex.upsert(post);
+        }
+    }
+
+    public void onPostDeleted(UUID postId) {
+        trendingIndex.remove(postId);
+    }
+
+    /**
+     * Reload the live index after bulk statements that bypass the event hooks.
+     */
+    public void reloadIndex() {
+        trendingIndex.rebuild();
     }
 }
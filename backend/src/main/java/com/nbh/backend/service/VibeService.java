@@ -7,6 +7,7 @@ import com.nbh.backend.repository.ReviewRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +23,7 @@ public class VibeService {
     private final HomestayRepository homestayRepository;
     private final ReviewRepository reviewRepository;
     private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Async
     @Transactional
@@ -38,9 +40,8 @@ public class VibeService {
         if (homestayCache != null)
             homestayCache.evict(homestayId);
 
-        var searchCache = cacheManager.getCache("homestaysSearch");
-        if (searchCache != null)
-            searchCache.clear();
+        // The vibe score feeds the search rank and suggestions; both re-read the listing after commit
+        eventPublisher.publishEvent(new HomestaySearchEngine.HomestayChangedEvent(homestayId));
 
         log.info("Evicted homestay caches after vibeScore update for {}", homestayId);
     }
@@ -0,0 +1,148 @@
+package com.nbh.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nbh.backend.repository.ViewCounterRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Write-behind view counters for posts and homestays.
+ *
+ * Views are added to an in-memory LongAdder per entity (no row lock, no cache
+ * eviction) and applied to the database by {@link #flush()} in one transaction
+ * of batched UPDATEs per table. Until then, {@link #livePostViews(UUID, long)} lets responses
+ * include the views that have not been written yet. The count each flush stored
+ * is kept in an overlay, so cached pages built before the flush do not drop back
+ * to their older view_count once the pending delta is gone.
+ *
+ * A flush moves the deltas into an in-flight batch that stays counted as pending
+ * until the UPDATE succeeds, so responses never dip while a write is running.
+ * A failed flush puts its deltas back; views still pending at shutdown are flushed
+ * on close. Views are lost only if the process dies between flushes.
+ */
+@Service
+@Slf4j
+public class ViewCounterService {
+
+    private final ViewCounterRepository viewCounterRepository;
+
+    private final Map<UUID, LongAdder> postViews = new ConcurrentHashMap<>();
+    private final Map<UUID, LongAdder> homestayViews = new ConcurrentHashMap<>();
+    // Deltas of the flush being written, still counted as pending
+    private final Map<UUID, Long> postViewsInFlight = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> homestayViewsInFlight = new ConcurrentHashMap<>();
+    // view_count stored by the last flush; must outlive the cached pages and listings that hold older counts
+    private final Cache<UUID, Long> flushedPostViews;
+    private final Cache<UUID, Long> flushedHomestayViews;
+
+    public ViewCounterService(ViewCounterRepository viewCounterRepository,
+                              @Value("${counters.views.overlay-ttl-minutes:15}") long overlayTtlMinutes) {
+        this.viewCounterRepository = viewCounterRepository;
+        this.flushedPostViews = overlay(overlayTtlMinutes);
+        this.flushedHomestayViews = overlay(overlayTtlMinutes);
+    }
+
+    public void recordPostView(UUID postId) {
+        if (postId != null) {
+            postViews.computeIfAbsent(postId, id -> new LongAdder()).increment();
+        }
+    }
+
+    public void recordHomestayView(UUID homestayId) {
+        if (homestayId != null) {
+            homestayViews.computeIfAbsent(homestayId, id -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * View count to show for a post whose copy holds {@code storedViews}: the newer of that copy
+     * and the last flushed count, plus the views not yet written.
+     */
+    public long livePostViews(UUID postId, long storedViews) {
+        return live(postViews, postViewsInFlight, flushedPostViews, postId, storedViews);
+    }
+
+    public long liveHomestayViews(UUID homestayId, long storedViews) {
+        return live(homestayViews, homestayViewsInFlight, flushedHomestayViews, homestayId, storedViews);
+    }
+
+    /**
+     * Apply all pending deltas. Called by ViewCounterFlushJob.
+     */
+    public synchronized void flush() {
+        flush(postViews, postViewsInFlight, flushedPostViews, viewCounterRepository::addPostViews, "post");
+        flush(homestayViews, homestayViewsInFlight, flushedHomestayViews, viewCounterRepository::addHomestayViews,
+                "homestay");
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Failed to flush pending view counters on shutdown: {}", e.getMessage());
+        }
+    }
+
+    private static Cache<UUID, Long> overlay(long ttlMinutes) {
+        return Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    private static long live(Map<UUID, LongAdder> counters, Map<UUID, Long> inFlight, Cache<UUID, Long> flushed,
+                             UUID id, long storedViews) {
+        if (id == null) {
+            return storedViews;
+        }
+        LongAdder pending = counters.get(id);
+        Long lastFlushed = flushed.getIfPresent(id);
+        // Views only grow, so the larger stored count is the newer one
+        long stored = lastFlushed == null ? storedViews : Math.max(storedViews, lastFlushed);
+        return stored + (pending == null ? 0L : pending.sum()) + inFlight.getOrDefault(id, 0L);
+    }
+
+    private void flush(Map<UUID, LongAdder> counters, Map<UUID, Long> inFlight, Cache<UUID, Long> flushed,
+                       Function<Map<UUID, Long>, Map<UUID, Long>> writer, String kind) {
+        Map<UUID, Long> deltas = new HashMap<>();
+        counters.forEach((id, adder) -> {
+            long delta = adder.sum();
+            if (delta > 0) {
+                // Counted in flight before it leaves the adder, so readers never see it missing;
+                // subtracting what was read keeps views added meanwhile for the next flush
+                inFlight.put(id, delta);
+                adder.add(-delta);
+                deltas.put(id, delta);
+            } else {
+                // Idle counter; a view racing this removal can be dropped, which views tolerate
+                counters.computeIfPresent(id, (k, a) -> a.sum() == 0 ? null : a);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            Map<UUID, Long> stored = writer.apply(deltas);
+            // Before the in-flight deltas are cleared, so the shown count never dips
+            flushed.putAll(stored);
+            log.debug("Flushed {} {} view deltas ({} rows updated)", deltas.size(), kind, stored.size());
+        } catch (RuntimeException e) {
+            deltas.forEach((id, delta) -> counters.computeIfAbsent(id, k -> new LongAdder()).add(delta));
+            log.warn("Failed to flush {} {} view deltas, will retry: {}", deltas.size(), kind, e.getMessage());
+        } finally {
+            inFlight.clear();
+        }
+    }
+}
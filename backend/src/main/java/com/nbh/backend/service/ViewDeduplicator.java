@@ -0,0 +1,206 @@
+package com.nbh.backend.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory "has this client viewed this item recently" check for post and homestay views.
+ *
+ * Two Bloom filters rotate every half window: a view is a repeat if either filter
+ * contains it, and is always added to the current one. A (kind, id, client) triple is
+ * therefore remembered for between half a window and a full window, and memory
+ * never grows past two filters sized from the configured views-per-window and
+ * false-positive rate. A false positive drops a genuine first view; it never
+ * double-counts one.
+ */
+@Component
+@Slf4j
+public class ViewDeduplicator {
+
+    public enum Kind { POST, HOMESTAY }
+
+    private final long rotationMillis;
+    private final int numBits;
+    private final int numHashes;
+    private final double targetFalsePositiveRate;
+    private final long expectedViewsPerRotation;
+    private final AtomicReference<Generations> generations;
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public ViewDeduplicator(
+            @Value("${views.dedup.window-minutes:60}") long windowMinutes,
+            @Value("${views.dedup.expected-views-per-window:1000000}") long expectedViewsPerWindow,
+            @Value("${views.dedup.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.rotationMillis = Math.max(1L, windowMinutes) * 60_000L / 2;
+        // Each filter covers half a window of views
+        this.expectedViewsPerRotation = Math.max(1_000L, expectedViewsPerWindow / 2);
+        this.targetFalsePositiveRate = Math.min(0.5, Math.max(1e-6, falsePositiveRate));
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedViewsPerRotation * Math.log(targetFalsePositiveRate) / (ln2 * ln2));
+        // Rounded up to whole 64-bit words, capped to what an array can index
+        this.numBits = (int) Math.min((long) Integer.MAX_VALUE - 63, ((bits + 63) / 64) * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedViewsPerRotation * ln2));
+        long now = System.currentTimeMillis();
+        this.generations = new AtomicReference<>(new Generations(new Filter(numBits), new Filter(numBits), now));
+        log.info("View de-duplication: {} KiB for 2 filters, {} hashes, rotation every {} s",
+                (2L * numBits / 8) / 1024, numHashes, rotationMillis / 1000);
+    }
+
+    /**
+     * Record a view and report whether it should be counted.
+     *
+     * @return false when this client viewed the same item within the window
+     */
+    public boolean firstView(Kind kind, UUID id, HttpServletRequest request) {
+        String client = clientKey(request);
+        if (id == null || client == null) {
+            // Cannot identify the client; count the view as before
+            return true;
+        }
+        checked.increment();
+        long[] hashes = hash(kind.name() + '|' + id + '|' + client);
+        Generations current = rotateIfDue();
+        boolean seen = current.current.mightContain(hashes) || current.previous.mightContain(hashes);
+        current.current.put(hashes);
+        if (seen) {
+            suppressed.increment();
+        }
+        return !seen;
+    }
+
+    public Map<String, Object> getStats() {
+        Generations current = generations.get();
+        long total = checked.sum();
+        long dropped = suppressed.sum();
+        double fill = current.current.fillRatio();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("heapBytes", 2L * numBits / 8);
+        stats.put("bitsPerFilter", numBits);
+        stats.put("hashFunctions", numHashes);
+        stats.put("expectedViewsPerRotation", expectedViewsPerRotation);
+        stats.put("targetFalsePositiveRate", targetFalsePositiveRate);
+        // Chance that an unseen view is wrongly suppressed by the current filter right now
+        stats.put("currentFalsePositiveRate", Math.pow(fill, numHashes));
+        stats.put("currentFillRatio", fill);
+        stats.put("rotationSeconds", rotationMillis / 1000);
+        stats.put("checked", total);
+        stats.put("suppressed", dropped);
+        stats.put("suppressionRate", total == 0 ? 0.0 : (double) dropped / total);
+        return stats;
+    }
+
+    private Generations rotateIfDue() {
+        while (true) {
+            Generations current = generations.get();
+            long now = System.currentTimeMillis();
+            if (now - current.startedAt < rotationMillis) {
+                return current;
+            }
+            // Two rotations overdue means both filters are stale
+            Filter previous = now - current.startedAt >= 2 * rotationMillis ? new Filter(numBits) : current.current;
+            Generations next = new Generations(new Filter(numBits), previous, now);
+            if (generations.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long[] hash(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h1 = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h1 ^= b;
+            h1 *= 0x100000001b3L;
+        }
+        h1 = mix(h1);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        long[] positions = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            positions[i] = Long.remainderUnsigned(h1 + i * h2, numBits);
+        }
+        return positions;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+        String ip = request.getHeader("X-Forwarded-For");
+        if (ip == null || ip.isBlank()) {
+            ip = request.getRemoteAddr();
+        } else {
+            // First IP in X-Forwarded-For is the client
+            int comma = ip.indexOf(',');
+            if (comma > -1) {
+                ip = ip.substring(0, comma).trim();
+            }
+        }
+        return ip == null || ip.isBlank() ? null : ip;
+    }
+
+    private record Generations(Filter current, Filter previous, long startedAt) {
+    }
+
+    private static final class Filter {
+
+        private final AtomicLongArray words;
+
+        private Filter(int numBits) {
+            this.words = new AtomicLongArray(numBits / 64);
+        }
+
+        boolean mightContain(long[] positions) {
+            for (long position : positions) {
+                if ((words.get((int) (position >>> 6)) & (1L << position)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long[] positions) {
+            for (long position : positions) {
+                int index = (int) (position >>> 6);
+                long mask = 1L << position;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        double fillRatio() {
+            // Sampled so the metrics call stays cheap on large filters
+            int length = words.length();
+            int step = Math.max(1, length / 4096);
+            long set = 0;
+            long sampled = 0;
+            for (int i = 0; i < length; i += step) {
+                set += Long.bitCount(words.get(i));
+                sampled += 64;
+            }
+            return sampled == 0 ? 0.0 : (double) set / sampled;
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.nbh.backend.service;
 
-import com.nbh.backend.repository.PostRepository;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
@@ -11,12 +10,18 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class ViewTrackingService {
 
-    private final PostRepository postRepository;
+    private final ViewCounterService viewCounterService;
+    private final TrendingService trendingService;
+    private final ViewDeduplicator viewDeduplicator;
 
-    @Transactional
-    public void incrementPostView(UUID postId) {
-        if (postId != null) {
-            postRepository.incrementViewCount(postId);
+    /**
+     * Count a post view, once per client per de-duplication window. The counter is
+     * written behind in batches; no row lock is taken here.
+     */
+    public void incrementPostView(UUID postId, HttpServletRequest request) {
+        if (postId != null && viewDeduplicator.firstView(ViewDeduplicator.Kind.POST, postId, request)) {
+            viewCounterService.recordPostView(postId);
+            trendingService.recordView(postId);
         }
     }
 }
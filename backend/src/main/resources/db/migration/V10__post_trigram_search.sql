@@ -0,0 +1,13 @@
+-- Trigram indexes for post search on location_name and text_content.
+-- Serve ILIKE '%q%' as well as the fuzzy % (similarity) and <% (word similarity) operators,
+-- so a search no longer scans every post.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_posts_location_name_trgm
+    ON posts USING GIN (location_name gin_trgm_ops)
+    WHERE is_deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_posts_text_content_trgm
+    ON posts USING GIN (text_content gin_trgm_ops)
+    WHERE is_deleted = false;
@@ -0,0 +1,32 @@
+-- Per-follower timeline inboxes for the "following" feed scope (fan-out-on-write).
+-- Authors with very large audiences are recorded in post_timeline_pull_authors and
+-- their posts are merged in at read time instead (fan-out-on-read).
+
+CREATE TABLE IF NOT EXISTS post_timeline_inboxes (
+    follower_user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    author_id UUID NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (follower_user_id, post_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_timeline_inbox_follower_created_at_post_id
+    ON post_timeline_inboxes(follower_user_id, created_at DESC, post_id DESC);
+CREATE INDEX IF NOT EXISTS idx_timeline_inbox_follower_author
+    ON post_timeline_inboxes(follower_user_id, author_id);
+CREATE INDEX IF NOT EXISTS idx_timeline_inbox_post_id
+    ON post_timeline_inboxes(post_id);
+
+CREATE TABLE IF NOT EXISTS post_timeline_pull_authors (
+    author_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    follower_count BIGINT NOT NULL,
+    marked_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Seed inboxes from existing follow edges with every live post of each followed author,
+-- matching the uncapped backfill a new follow gets.
+INSERT INTO post_timeline_inboxes (follower_user_id, post_id, author_id, created_at)
+SELECT uf.follower_user_id, p.id, p.user_id, p.created_at
+FROM user_follows uf
+INNER JOIN posts p ON p.user_id = uf.followed_user_id AND p.is_deleted = FALSE
+ON CONFLICT (follower_user_id, post_id) DO NOTHING;
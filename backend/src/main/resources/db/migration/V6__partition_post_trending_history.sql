@@ -0,0 +1,74 @@
+-- post_trending_history becomes a daily range-partitioned table, with hourly and daily
+-- rollup tables beside it. TrendingHistoryMaintenanceJob creates partitions ahead of time,
+-- rolls whole days of raw rows up into hourly buckets (then hourly into daily) and drops
+-- the emptied partitions. Each point in time lives in exactly one of the three tables.
+
+ALTER TABLE post_trending_history RENAME TO post_trending_history_legacy;
+ALTER INDEX idx_post_trending_history_post_id_computed_at RENAME TO idx_post_trending_history_legacy_post_id;
+ALTER INDEX idx_post_trending_history_computed_at RENAME TO idx_post_trending_history_legacy_computed_at;
+
+CREATE TABLE post_trending_history (
+    id BIGSERIAL NOT NULL,
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    trending_score DOUBLE PRECISION NOT NULL,
+    computed_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (id, computed_at)
+) PARTITION BY RANGE (computed_at);
+
+CREATE INDEX idx_post_trending_history_post_id_computed_at ON post_trending_history(post_id, computed_at DESC);
+
+-- Catches rows outside every day partition (clock skew, a stalled partition job)
+CREATE TABLE post_trending_history_default PARTITION OF post_trending_history DEFAULT;
+
+CREATE TABLE post_trending_history_hourly (
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    avg_score DOUBLE PRECISION NOT NULL,
+    min_score DOUBLE PRECISION NOT NULL,
+    max_score DOUBLE PRECISION NOT NULL,
+    samples INTEGER NOT NULL,
+    PRIMARY KEY (post_id, bucket_start)
+);
+
+CREATE INDEX idx_post_trending_history_hourly_bucket ON post_trending_history_hourly(bucket_start);
+
+CREATE TABLE post_trending_history_daily (
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    avg_score DOUBLE PRECISION NOT NULL,
+    min_score DOUBLE PRECISION NOT NULL,
+    max_score DOUBLE PRECISION NOT NULL,
+    samples INTEGER NOT NULL,
+    PRIMARY KEY (post_id, bucket_start)
+);
+
+CREATE INDEX idx_post_trending_history_daily_bucket ON post_trending_history_daily(bucket_start);
+
+-- Day partitions for the last two days (kept raw) and the next three
+DO $$
+DECLARE
+    d DATE;
+BEGIN
+    FOR d IN SELECT generate_series((now() AT TIME ZONE 'UTC')::date - 2, (now() AT TIME ZONE 'UTC')::date + 3, interval '1 day')::date LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF post_trending_history FOR VALUES FROM (%L) TO (%L)',
+            'post_trending_history_p' || to_char(d, 'YYYYMMDD'),
+            d::timestamp AT TIME ZONE 'UTC',
+            (d + 1)::timestamp AT TIME ZONE 'UTC');
+    END LOOP;
+END $$;
+
+-- Recent rows stay raw; older ones go straight to hourly buckets
+INSERT INTO post_trending_history (post_id, trending_score, computed_at)
+SELECT post_id, trending_score, computed_at
+FROM post_trending_history_legacy
+WHERE computed_at >= ((now() AT TIME ZONE 'UTC')::date - 2)::timestamp AT TIME ZONE 'UTC';
+
+INSERT INTO post_trending_history_hourly (post_id, bucket_start, avg_score, min_score, max_score, samples)
+SELECT post_id, date_trunc('hour', computed_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC',
+       AVG(trending_score), MIN(trending_score), MAX(trending_score), COUNT(*)
+FROM post_trending_history_legacy
+WHERE computed_at < ((now() AT TIME ZONE 'UTC')::date - 2)::timestamp AT TIME ZONE 'UTC'
+GROUP BY 1, 2;
+
+DROP TABLE post_trending_history_legacy;
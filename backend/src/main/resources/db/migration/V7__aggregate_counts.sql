@@ -0,0 +1,103 @@
+-- Maintained cardinalities read instead of COUNT(*). Row triggers adjust them in the
+-- transaction that creates, deletes or soft-deletes the row, so every write path
+-- (services, seeders, bulk wipes) is covered; AggregateCountReconcileJob corrects any
+-- drift from statements that bypass triggers (TRUNCATE, manual fixes).
+-- Keys: users, posts, homestays, homestays:featured, homestays:status:<STATUS>,
+-- homestays:destination:<destination id>
+
+CREATE TABLE IF NOT EXISTS aggregate_counts (
+    counter_key VARCHAR(128) PRIMARY KEY,
+    value BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO aggregate_counts (counter_key, value)
+SELECT 'users', COUNT(*) FROM users WHERE is_deleted = FALSE
+UNION ALL
+SELECT 'posts', COUNT(*) FROM posts WHERE is_deleted = FALSE
+UNION ALL
+SELECT 'homestays', COUNT(*) FROM homestays WHERE is_deleted = FALSE
+UNION ALL
+SELECT 'homestays:featured', COUNT(*) FROM homestays WHERE is_deleted = FALSE AND featured = TRUE
+UNION ALL
+SELECT 'homestays:status:' || status, COUNT(*) FROM homestays
+WHERE is_deleted = FALSE AND status IS NOT NULL GROUP BY status
+UNION ALL
+SELECT 'homestays:destination:' || destination_id, COUNT(*) FROM homestays
+WHERE is_deleted = FALSE AND destination_id IS NOT NULL GROUP BY destination_id
+ON CONFLICT (counter_key) DO UPDATE SET value = EXCLUDED.value, updated_at = NOW();
+
+-- Keys are locked in sorted order so concurrent writers cannot deadlock on them
+CREATE OR REPLACE FUNCTION adjust_aggregate_counts(keys TEXT[], delta BIGINT)
+RETURNS VOID
+LANGUAGE sql
+AS $$
+    INSERT INTO aggregate_counts (counter_key, value, updated_at)
+    SELECT k, delta, NOW() FROM unnest(keys) AS k ORDER BY k
+    ON CONFLICT (counter_key) DO UPDATE
+        SET value = aggregate_counts.value + EXCLUDED.value, updated_at = NOW();
+$$;
+
+CREATE OR REPLACE FUNCTION homestay_count_keys(p_status VARCHAR, p_featured BOOLEAN, p_destination_id UUID)
+RETURNS TEXT[]
+LANGUAGE sql
+IMMUTABLE
+AS $$
+    SELECT ARRAY['homestays']
+        || CASE WHEN p_status IS NOT NULL THEN ARRAY['homestays:status:' || p_status] ELSE ARRAY[]::TEXT[] END
+        || CASE WHEN p_featured THEN ARRAY['homestays:featured'] ELSE ARRAY[]::TEXT[] END
+        || CASE WHEN p_destination_id IS NOT NULL THEN ARRAY['homestays:destination:' || p_destination_id] ELSE ARRAY[]::TEXT[] END;
+$$;
+
+CREATE OR REPLACE FUNCTION maintain_homestay_counts()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    -- JPA rewrites every column on save; only real changes move counters
+    IF TG_OP = 'UPDATE' AND (OLD.is_deleted, OLD.status, OLD.featured, OLD.destination_id)
+            IS NOT DISTINCT FROM (NEW.is_deleted, NEW.status, NEW.featured, NEW.destination_id) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.is_deleted = FALSE THEN
+        PERFORM adjust_aggregate_counts(homestay_count_keys(OLD.status, OLD.featured, OLD.destination_id), -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.is_deleted = FALSE THEN
+        PERFORM adjust_aggregate_counts(homestay_count_keys(NEW.status, NEW.featured, NEW.destination_id), 1);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trigger_maintain_homestay_counts
+AFTER INSERT OR DELETE OR UPDATE OF is_deleted, status, featured, destination_id ON homestays
+FOR EACH ROW
+EXECUTE FUNCTION maintain_homestay_counts();
+
+-- Shared by posts and users: one key counting rows that are not soft-deleted
+CREATE OR REPLACE FUNCTION maintain_live_row_count()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    was_live BOOLEAN := TG_OP IN ('UPDATE', 'DELETE') AND OLD.is_deleted = FALSE;
+    is_live BOOLEAN := TG_OP IN ('INSERT', 'UPDATE') AND NEW.is_deleted = FALSE;
+BEGIN
+    IF was_live AND NOT is_live THEN
+        PERFORM adjust_aggregate_counts(ARRAY[TG_ARGV[0]], -1);
+    ELSIF is_live AND NOT was_live THEN
+        PERFORM adjust_aggregate_counts(ARRAY[TG_ARGV[0]], 1);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trigger_maintain_post_count
+AFTER INSERT OR DELETE OR UPDATE OF is_deleted ON posts
+FOR EACH ROW
+EXECUTE FUNCTION maintain_live_row_count('posts');
+
+CREATE TRIGGER trigger_maintain_user_count
+AFTER INSERT OR DELETE OR UPDATE OF is_deleted ON users
+FOR EACH ROW
+EXECUTE FUNCTION maintain_live_row_count('users');
@@ -0,0 +1,13 @@
+-- Stored, weighted full-text vector for homestay search: name (A), address (B), description (C).
+-- Maintained by Postgres on every write; searched through the GIN index instead of
+-- re-evaluating to_tsvector for each candidate row.
+
+ALTER TABLE homestays
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', COALESCE(name, '')), 'A')
+        || setweight(to_tsvector('english', COALESCE(address, '')), 'B')
+        || setweight(to_tsvector('english', COALESCE(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_homestays_search_vector ON homestays USING GIN (search_vector);
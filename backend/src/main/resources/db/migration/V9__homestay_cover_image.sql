@@ -0,0 +1,20 @@
+-- Cover image denormalised onto homestays: the first media row by id, as the search
+-- cards used to look up with a correlated subquery per result. HomestayService refreshes
+-- it (HomestayRepository.refreshCoverImages) whenever a listing's media is written.
+
+ALTER TABLE homestays
+    ADD COLUMN IF NOT EXISTS cover_image_url VARCHAR(255),
+    ADD COLUMN IF NOT EXISTS cover_image_width INTEGER,
+    ADD COLUMN IF NOT EXISTS cover_image_height INTEGER;
+
+UPDATE homestays h
+SET cover_image_url = cover.url,
+    cover_image_width = cover.width,
+    cover_image_height = cover.height
+FROM (
+    SELECT DISTINCT ON (mr.homestay_id) mr.homestay_id, mr.url, mr.width, mr.height
+    FROM media_resources mr
+    WHERE mr.homestay_id IS NOT NULL
+    ORDER BY mr.homestay_id, mr.id ASC
+) cover
+WHERE cover.homestay_id = h.id;
@@ -0,0 +1,85 @@
+package com.nbh.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GeoGridTest {
+
+    @Test
+    void collectsPointsInsideTheBoxAcrossCells() {
+        double[] lat = { 27.33, 27.05, 26.72, 27.49 };
+        double[] lng = { 88.61, 88.26, 88.43, 88.95 };
+        GeoGrid grid = new GeoGrid(lat, lng, 0.05);
+
+        assertEquals(List.of(0, 1), collect(grid, lat.length, 27.0, 27.4, 88.2, 88.7));
+        assertEquals(List.of(0, 1, 2, 3), collect(grid, lat.length, 26.0, 28.0, 88.0, 89.0));
+        assertEquals(List.of(), collect(grid, lat.length, 10.0, 11.0, 70.0, 71.0));
+    }
+
+    @Test
+    void skipsSlotsWithoutCoordinates() {
+        double[] lat = { Double.NaN, 27.33 };
+        double[] lng = { 88.61, 88.61 };
+        GeoGrid grid = new GeoGrid(lat, lng, 0.05);
+
+        assertEquals(1, grid.cells());
+        assertEquals(List.of(1), collect(grid, lat.length, -90.0, 90.0, -180.0, 180.0));
+    }
+
+    @Test
+    void invertedBoxMatchesNothing() {
+        double[] lat = { 27.33 };
+        double[] lng = { 88.61 };
+        GeoGrid grid = new GeoGrid(lat, lng, 0.05);
+
+        assertEquals(List.of(), collect(grid, lat.length, 27.4, 27.3, 88.5, 88.7));
+    }
+
+    @Test
+    void boundsAreInclusiveAtTheBoxEdges() {
+        // Corners and edge midpoints of [27.00, 27.50] x [88.25, 88.75], which lie on cell boundaries
+        double[] lat = { 27.0, 27.5, 27.0, 27.5, 27.25, 27.25, 27.0 - 1e-9, 27.25 };
+        double[] lng = { 88.25, 88.75, 88.75, 88.25, 88.25, 88.75, 88.5, 88.75 + 1e-9 };
+        GeoGrid grid = new GeoGrid(lat, lng, 0.05);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), collect(grid, lat.length, 27.0, 27.5, 88.25, 88.75));
+    }
+
+    @Test
+    void collectsPointsOnTheWorldEdges() {
+        double[] lat = { 90.0, -90.0, 0.0, 0.0 };
+        double[] lng = { 0.0, 0.0, 180.0, -180.0 };
+        GeoGrid grid = new GeoGrid(lat, lng, 0.05);
+
+        assertEquals(List.of(0, 1, 2, 3), collect(grid, lat.length, -90.0, 90.0, -180.0, 180.0));
+        // Boxes reaching past the poles or the antimeridian are clamped, not wrapped
+        assertEquals(List.of(0), collect(grid, lat.length, 89.0, 95.0, -1.0, 1.0));
+        assertEquals(List.of(2), collect(grid, lat.length, -1.0, 1.0, 170.0, 190.0));
+    }
+
+    @Test
+    void rejectsCellSizesThatOverflowTheCellIndex() {
+        double[] none = {};
+        assertThrows(IllegalArgumentException.class, () -> new GeoGrid(none, none, 0.001));
+        assertThrows(IllegalArgumentException.class, () -> new GeoGrid(none, none, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new GeoGrid(none, none, Double.NaN));
+        assertEquals(0, new GeoGrid(none, none, 0.01).cells());
+    }
+
+    static List<Integer> collect(GeoGrid grid, int slots, double minLat, double maxLat, double minLng, double maxLng) {
+        long[] bits = new long[(slots + 63) >>> 6];
+        grid.collect(minLat, maxLat, minLng, maxLng, bits);
+        List<Integer> found = new ArrayList<>();
+        for (int slot = 0; slot < slots; slot++) {
+            if ((bits[slot >>> 6] & (1L << slot)) != 0) {
+                found.add(slot);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,77 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.repository.HomestayRepositoryCustom.SearchFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HomestaySearchCacheTest {
+
+    private final HomestaySearchCache cache = new HomestaySearchCache(10, 1000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void evictsOnlyEntriesWhoseFilterTheListingMatches() {
+        SearchFilter pine = query("pine");
+        SearchFilter lodge = query("lodge");
+        cache.get("pine", pine, loads::incrementAndGet);
+        cache.get("lodge", lodge, loads::incrementAndGet);
+
+        int evicted = cache.evict(Set.of(), tag -> false, filter -> "pine".equals(filter.query()));
+
+        assertEquals(1, evicted);
+        cache.get("pine", pine, loads::incrementAndGet);
+        cache.get("lodge", lodge, loads::incrementAndGet);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void scopeEvictedEntriesIgnoreTheMatchPredicate() {
+        SearchFilter sikkim = state("sikkim");
+        SearchFilter bengal = state("west-bengal");
+        cache.getScopeEvicted("sikkim", sikkim, loads::incrementAndGet);
+        cache.getScopeEvicted("bengal", bengal, loads::incrementAndGet);
+
+        // The engine thinks nothing matches; the SQL-computed entry in scope goes anyway
+        int evicted = cache.evict(Set.of("sikkim"), tag -> false, filter -> false);
+
+        assertEquals(1, evicted);
+        cache.getScopeEvicted("sikkim", sikkim, loads::incrementAndGet);
+        cache.getScopeEvicted("bengal", bengal, loads::incrementAndGet);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void tagScopedEntriesAreVisitedOnlyWhenTheTagApplies() {
+        SearchFilter riverside = new SearchFilter(null, Map.of(), "riverside", null, null, null, null, null, null);
+        cache.getScopeEvicted("riverside", riverside, loads::incrementAndGet);
+
+        assertEquals(0, cache.evict(List.of(), tag -> false, filter -> true));
+        assertEquals(1, cache.evict(List.of(), "riverside"::equals, filter -> false));
+    }
+
+    @Test
+    void resultLoadedAcrossAnEvictionIsNotStored() {
+        SearchFilter pine = query("pine");
+        cache.get("pine", pine, () -> {
+            cache.evict(Set.of(), tag -> false, filter -> true);
+            return loads.incrementAndGet();
+        });
+        cache.get("pine", pine, loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    private static SearchFilter query(String query) {
+        return new SearchFilter(query, Map.of(), null, null, null, null, null, null, null);
+    }
+
+    private static SearchFilter state(String stateSlug) {
+        return new SearchFilter(null, Map.of(), null, stateSlug, null, null, null, null, null);
+    }
+}
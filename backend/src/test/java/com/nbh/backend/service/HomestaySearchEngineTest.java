@@ -0,0 +1,199 @@
+package com.nbh.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nbh.backend.dto.SearchCardDto;
+import com.nbh.backend.repository.HomestayRepository;
+import com.nbh.backend.repository.HomestayRepositoryCustom.SearchDocument;
+import com.nbh.backend.repository.HomestayRepositoryCustom.SearchFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HomestaySearchEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final HomestayRepository repository = mock(HomestayRepository.class);
+    private final HomestaySearchCache searchCache = new HomestaySearchCache(10, 1000);
+
+    @Test
+    void combinesStateAmenityAndFeaturedFilters() {
+        SearchDocument match = doc("Pine Cottage", "Gangtok", "sikkim", true, "[]", "{\"wifi\": true}", 0);
+        SearchDocument otherState = doc("Tea Estate Stay", "Kurseong", "west-bengal", true, "[]", "{\"wifi\": true}", 1);
+        SearchDocument noWifi = doc("River Camp", "Pelling", "sikkim", true, "[]", "{\"wifi\": false}", 2);
+        SearchDocument notFeatured = doc("Hill Home", "Namchi", "sikkim", false, "[]", "{\"wifi\": true}", 3);
+        HomestaySearchEngine engine = engine(List.of(match, otherState, noWifi, notFeatured));
+
+        assertEquals(List.of(match.card().getId()),
+                ids(engine, filter(null, Map.of("wifi", true), null, "sikkim", true), 0, 10));
+        assertEquals(List.of(notFeatured.card().getId()),
+                ids(engine, filter(null, Map.of("wifi", true), null, "sikkim", false), 0, 10));
+    }
+
+    @Test
+    void queryTermsAreStemmedAndAllRequired() {
+        SearchDocument cottages = doc("Pine Cottages", "Gangtok", "sikkim", false, "[]", "{}", 0);
+        SearchDocument lodge = doc("Pine Lodge", "Gangtok", "sikkim", false, "[]", "{}", 1);
+        HomestaySearchEngine engine = engine(List.of(cottages, lodge));
+
+        assertEquals(List.of(cottages.card().getId()), ids(engine, filter("cottage pine", null, null, null, null), 0, 10));
+        assertEquals(2, ids(engine, filter("pine", null, null, null, null), 0, 10).size());
+        // Only stop words: nothing matches, as with an empty tsquery
+        assertTrue(ids(engine, filter("the of", null, null, null, null), 0, 10).isEmpty());
+    }
+
+    @Test
+    void tagMatchesTagElementOrAddress() {
+        SearchDocument tagged = doc("Cloud Nest", "Mirik", "west-bengal", false, "[\"darjeeling\"]", "{}", 0);
+        SearchDocument inAddress = doc("Mall Road Rooms", "Darjeeling Town", "west-bengal", false, "[]", "{}", 1);
+        SearchDocument neither = doc("Lake View", "Mirik", "west-bengal", false, "[]", "{}", 2);
+        HomestaySearchEngine engine = engine(List.of(tagged, inAddress, neither));
+
+        assertEquals(List.of(tagged.card().getId(), inAddress.card().getId()),
+                ids(engine, filter(null, null, "darjeeling", null, null), 0, 10));
+    }
+
+    @Test
+    void pagesWalkSetBitsAcrossWordBoundaries() {
+        List<SearchDocument> docs = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            docs.add(doc("Stay " + i, "Gangtok", "sikkim", false, "[]", "{}", i));
+        }
+        HomestaySearchEngine engine = engine(docs);
+
+        // Newest first: doc i sits in slot i
+        List<UUID> second = ids(engine, filter(null, null, null, null, null), 1, 64);
+        assertEquals(docs.subList(64, 128).stream().map(d -> d.card().getId()).toList(), second);
+        List<UUID> third = ids(engine, filter(null, null, null, null, null), 2, 64);
+        assertEquals(docs.subList(128, 150).stream().map(d -> d.card().getId()).toList(), third);
+
+        Page<SearchCardDto> page = engine.search(filter(null, null, null, null, null), PageRequest.of(0, 10)).orElseThrow();
+        assertEquals(150, page.getTotalElements());
+    }
+
+    @Test
+    void boundingBoxUsesTheGrid() {
+        SearchDocument inside = doc("Inside", "Gangtok", "sikkim", false, "[]", "{}", 0, 27.33, 88.61);
+        SearchDocument outside = doc("Outside", "Siliguri", "west-bengal", false, "[]", "{}", 1, 26.72, 88.43);
+        HomestaySearchEngine engine = engine(List.of(inside, outside));
+
+        SearchFilter box = new SearchFilter(null, Map.of(), null, null, null, 27.0, 27.5, 88.5, 88.7);
+        assertEquals(List.of(inside.card().getId()), ids(engine, box, 0, 10));
+    }
+
+    @Test
+    void refreshEvictsOnlyPagesTheListingEntersOrLeaves() {
+        SearchDocument gangtok = doc("Pine Cottage", "Gangtok", "sikkim", false, "[]", "{}", 0);
+        SearchDocument kurseong = doc("Tea Estate Stay", "Kurseong", "west-bengal", false, "[]", "{}", 1);
+        HomestaySearchEngine engine = engine(List.of(gangtok, kurseong));
+
+        SearchFilter sikkim = filter(null, null, null, "sikkim", null);
+        SearchFilter bengal = filter(null, null, null, "west-bengal", null);
+        AtomicInteger loads = new AtomicInteger();
+        searchCache.get("sikkim", sikkim, loads::incrementAndGet);
+        searchCache.get("bengal", bengal, loads::incrementAndGet);
+
+        SearchDocument renamed = withName(gangtok, "Pine Cottage Deluxe");
+        when(repository.findSearchDocuments(List.of(gangtok.card().getId()))).thenReturn(List.of(renamed));
+        engine.refresh(gangtok.card().getId());
+
+        searchCache.get("sikkim", sikkim, loads::incrementAndGet);
+        searchCache.get("bengal", bengal, loads::incrementAndGet);
+        // Initial two loads plus the evicted Sikkim page
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void mapQueriesDoNotWaitForTheFirstLoad() throws InterruptedException {
+        SearchDocument pine = doc("Pine Cottage", "Gangtok", "sikkim", false, "[]", "{}", 0);
+        SearchDocument tea = doc("Tea Estate Stay", "Gangtok", "sikkim", false, "[]", "{}", 1);
+        HomestaySearchEngine engine = unloadedEngine(List.of(pine, tea));
+
+        // Not loaded yet: the caller answers 503 while the load runs in the background
+        assertTrue(engine.nearby(pine.card().getId(), 5, 10).isEmpty());
+        for (int i = 0; i < 200 && !Boolean.TRUE.equals(engine.getStats().get("ready")); i++) {
+            Thread.sleep(10);
+        }
+        List<UUID> nearby = engine.nearby(pine.card().getId(), 5, 10).orElseThrow().stream()
+                .map(SearchCardDto::getId).toList();
+        assertEquals(List.of(tea.card().getId()), nearby);
+    }
+
+    private HomestaySearchEngine engine(List<SearchDocument> docs) {
+        HomestaySearchEngine engine = unloadedEngine(docs);
+        engine.rebuild();
+        return engine;
+    }
+
+    private HomestaySearchEngine unloadedEngine(List<SearchDocument> docs) {
+        when(repository.findSearchDocuments(null)).thenReturn(docs);
+        HomestaySearchEngine engine = new HomestaySearchEngine(repository, new ObjectMapper(), searchCache);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "gridCellDegrees", 0.05);
+        ReflectionTestUtils.setField(engine, "popularInquiryThreshold", 5L);
+        ReflectionTestUtils.setField(engine, "highDemandViewThreshold", 200L);
+        return engine;
+    }
+
+    private static List<UUID> ids(HomestaySearchEngine engine, SearchFilter filter, int page, int size) {
+        return engine.search(filter, PageRequest.of(page, size)).orElseThrow()
+                .getContent().stream().map(SearchCardDto::getId).toList();
+    }
+
+    private static SearchFilter filter(String query, Map<String, Boolean> amenities, String tag, String stateSlug,
+                                       Boolean featured) {
+        return new SearchFilter(query, amenities == null ? Map.of() : amenities, tag, stateSlug, featured,
+                null, null, null, null);
+    }
+
+    private static SearchDocument doc(String name, String location, String stateSlug, boolean featured,
+                                      String tagsJson, String amenitiesJson, int age) {
+        return doc(name, location, stateSlug, featured, tagsJson, amenitiesJson, age, 27.3 + age * 0.001, 88.6);
+    }
+
+    // Older by {@code age} minutes, so a higher age sorts later among equal buckets and ratings
+    private static SearchDocument doc(String name, String location, String stateSlug, boolean featured,
+                                      String tagsJson, String amenitiesJson, int age, double lat, double lng) {
+        SearchCardDto card = SearchCardDto.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .locationName(location)
+                .destinationStateSlug(stateSlug)
+                .featured(featured)
+                .latitude(lat)
+                .longitude(lng)
+                .avgValueRating(4.0)
+                .vibeScore(5.0)
+                .build();
+        return new SearchDocument(card, NOW.minusMinutes(age), 0, 0, tagsJson, amenitiesJson);
+    }
+
+    private static SearchDocument withName(SearchDocument source, String name) {
+        SearchCardDto card = SearchCardDto.builder()
+                .id(source.card().getId())
+                .name(name)
+                .locationName(source.card().getLocationName())
+                .destinationStateSlug(source.card().getDestinationStateSlug())
+                .featured(source.card().getFeatured())
+                .latitude(source.card().getLatitude())
+                .longitude(source.card().getLongitude())
+                .avgValueRating(source.card().getAvgValueRating())
+                .vibeScore(source.card().getVibeScore())
+                .build();
+        return new SearchDocument(card, source.createdAt(), source.viewCount(), source.inquiryCount(),
+                source.tagsJson(), source.amenitiesJson());
+    }
+}
@@ -0,0 +1,117 @@
+package com.nbh.backend.service;
+
+import com.nbh.backend.dto.SuggestionDto;
+import com.nbh.backend.repository.DestinationRepository;
+import com.nbh.backend.repository.HomestayRepository;
+import com.nbh.backend.repository.PostRepository;
+import com.nbh.backend.repository.StateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchSuggestIndexTest {
+
+    private final HomestayRepository homestayRepository = mock(HomestayRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+
+    @Test
+    void matchesWordStartsBestFirst() {
+        UUID garden = UUID.randomUUID();
+        UUID gate = UUID.randomUUID();
+        when(homestayRepository.findSuggestionRows()).thenReturn(List.of(
+                homestayRow(garden, "Tea Garden Retreat", 10),
+                homestayRow(gate, "Golden Gate Stay", 500)));
+        SearchSuggestIndex index = index(10);
+
+        assertEquals(List.of("Golden Gate Stay", "Tea Garden Retreat"), labels(index.suggest("g", 10)));
+        assertEquals(List.of("Tea Garden Retreat"), labels(index.suggest("gar", 10)));
+        assertEquals(List.of("Golden Gate Stay"), labels(index.suggest("Gate s", 10)));
+        assertTrue(index.suggest("retreats", 10).isEmpty());
+    }
+
+    @Test
+    void refreshingOneListingReplacesOnlyItsKeys() {
+        UUID id = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        when(homestayRepository.findSuggestionRows()).thenReturn(List.of(
+                homestayRow(id, "River Camp", 10),
+                homestayRow(other, "Riverside Rooms", 20)));
+        SearchSuggestIndex index = index(10);
+
+        when(homestayRepository.findSuggestionRowsById(id)).thenReturn(List.<Object[]>of(homestayRow(id, "Lake Camp", 10)));
+        index.refreshHomestay(id);
+        assertEquals(List.of("Riverside Rooms"), labels(index.suggest("riv", 10)));
+        assertEquals(List.of("Lake Camp"), labels(index.suggest("la", 10)));
+
+        when(homestayRepository.findSuggestionRowsById(id)).thenReturn(List.of());
+        index.refreshHomestay(id);
+        assertTrue(index.suggest("camp", 10).isEmpty());
+        assertEquals(1, index.getStats().get("entries"));
+    }
+
+    @Test
+    void tagCapKeepsCountsOfTagsLeftOut() {
+        when(postRepository.findTagUses()).thenReturn(List.of(
+                new Object[] { "trek", 5L },
+                new Object[] { "tea", 3L },
+                new Object[] { "temple", 2L }));
+        SearchSuggestIndex index = index(2);
+        assertEquals(List.of("trek", "tea"), labels(index.suggest("t", 10)));
+
+        // temple reaches 4 uses counting the 2 it had while left out, and pushes tea out
+        index.onPostTagsChanged(List.of(), List.of("temple"));
+        index.onPostTagsChanged(List.of(), List.of("temple"));
+        assertEquals(List.of("trek", "temple"), labels(index.suggest("t", 10)));
+
+        // trek's last uses go; the free slot returns to tea with its 3 uses
+        for (int i = 0; i < 5; i++) {
+            index.onPostTagsChanged(List.of("trek"), List.of());
+        }
+        assertEquals(List.of("temple", "tea"), labels(index.suggest("t", 10)));
+        assertEquals(2, index.getStats().get("trackedTags"));
+    }
+
+    @Test
+    void histogramReportsTheBucketHoldingTheQuantile() {
+        SearchSuggestIndex.LatencyHistogram histogram = new SearchSuggestIndex.LatencyHistogram();
+        assertEquals(0, histogram.percentileMicros(0.99));
+        for (int i = 0; i < 98; i++) {
+            histogram.record(3_000); // 3 us
+        }
+        histogram.record(100_000); // 100 us
+        histogram.record(1_500_000); // 1.5 ms
+        assertEquals(4, histogram.percentileMicros(0.50));
+        long p99 = histogram.percentileMicros(0.99);
+        assertTrue(p99 >= 100 && p99 <= 112, "p99 bucket bound " + p99);
+        long max = histogram.percentileMicros(1.0);
+        assertTrue(max >= 1500 && max <= 1500 * 9 / 8 + 1, "max bucket bound " + max);
+    }
+
+    private SearchSuggestIndex index(int maxTags) {
+        SearchSuggestIndex index = new SearchSuggestIndex(homestayRepository, mock(DestinationRepository.class),
+                mock(StateRepository.class), postRepository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "inquiryWeight", 10.0);
+        ReflectionTestUtils.setField(index, "maxTags", maxTags);
+        index.rebuild();
+        return index;
+    }
+
+    private static Object[] homestayRow(UUID id, String name, long views) {
+        return new Object[] { id, name, "Darjeeling", views, 0L };
+    }
+
+    private static List<String> labels(List<SuggestionDto> suggestions) {
+        List<String> labels = new ArrayList<>();
+        suggestions.forEach(suggestion -> labels.add(suggestion.label()));
+        return labels;
+    }
+}
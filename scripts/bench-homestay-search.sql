@@ -0,0 +1,84 @@
+-- Homestay full-text search: per-row to_tsvector vs stored search_vector + GIN (V8).
+--
+-- Builds 50k synthetic listings in a temporary table, times the old and new
+-- predicates/ranking with EXPLAIN ANALYZE, and leaves nothing behind.
+--
+--   psql "$DATABASE_URL" -f scripts/bench-homestay-search.sql
+--
+-- Ordering: the old vector was unweighted (every lexeme D, 0.1 in ts_rank), the new one
+-- weights name A (1.0), address B (0.4) and description C (0.2). A single name hit adds
+-- about 0.24 to the score instead of about 0.024, i.e. as much as 0.6 vibe points instead
+-- of 0.06, so text relevance now reorders listings that vibe_score used to decide. The
+-- last query reports how many of the old top 12 are still in the new top 12.
+--
+-- Results (fill in: Postgres version, hardware, execution times from EXPLAIN ANALYZE)
+--   old top-12 / COUNT:   not yet recorded
+--   new top-12 / COUNT:   not yet recorded
+--   top-12 overlap:       not yet recorded
+
+\timing on
+BEGIN;
+
+CREATE TEMP TABLE bench_homestays ON COMMIT DROP AS
+SELECT gen_random_uuid() AS id,
+       (ARRAY['Cozy', 'Riverside', 'Hilltop', 'Heritage', 'Tea Garden', 'Forest', 'Lakeview', 'Sunrise'])[1 + (i % 8)]
+           || ' ' || (ARRAY['Homestay', 'Cottage', 'Retreat', 'Lodge', 'Villa'])[1 + (i % 5)] || ' ' || i AS name,
+       repeat('Warm rooms, home-cooked meals and a view of the valley. ', 1 + (i % 6))
+           || (ARRAY['Near the monastery.', 'Walk to the tea estate.', 'Bonfire on request.', 'Pet friendly.'])[1 + (i % 4)] AS description,
+       (ARRAY['Darjeeling', 'Kalimpong', 'Mirik', 'Kurseong', 'Lava', 'Lolegaon', 'Sittong', 'Dooars'])[1 + (i % 8)]
+           || ', West Bengal' AS address,
+       random() * 10 AS vibe_score
+FROM generate_series(1, 50000) AS i;
+ANALYZE bench_homestays;
+
+-- Before: vector computed for every row, in WHERE and again in ORDER BY
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM bench_homestays h
+WHERE to_tsvector('english', COALESCE(h.name, '') || ' ' || COALESCE(h.description, '') || ' ' || COALESCE(h.address, ''))
+      @@ plainto_tsquery('english', 'tea garden kalimpong')
+ORDER BY ts_rank(to_tsvector('english', COALESCE(h.name, '') || ' ' || COALESCE(h.description, '') || ' ' || COALESCE(h.address, '')),
+                 plainto_tsquery('english', 'tea garden kalimpong')) * 0.4 + h.vibe_score * 0.4 DESC
+LIMIT 12;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM bench_homestays h
+WHERE to_tsvector('english', COALESCE(h.name, '') || ' ' || COALESCE(h.description, '') || ' ' || COALESCE(h.address, ''))
+      @@ plainto_tsquery('english', 'tea garden kalimpong');
+
+-- After: same column and index as V8
+ALTER TABLE bench_homestays
+    ADD COLUMN search_vector TSVECTOR
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', COALESCE(name, '')), 'A')
+        || setweight(to_tsvector('english', COALESCE(address, '')), 'B')
+        || setweight(to_tsvector('english', COALESCE(description, '')), 'C')
+    ) STORED;
+CREATE INDEX ON bench_homestays USING GIN (search_vector);
+ANALYZE bench_homestays;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM bench_homestays h
+WHERE h.search_vector @@ plainto_tsquery('english', 'tea garden kalimpong')
+ORDER BY ts_rank(h.search_vector, plainto_tsquery('english', 'tea garden kalimpong')) * 0.4 + h.vibe_score * 0.4 DESC
+LIMIT 12;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM bench_homestays h
+WHERE h.search_vector @@ plainto_tsquery('english', 'tea garden kalimpong');
+
+-- Ordering change: old top 12 still in the new top 12
+WITH old_top AS (
+    SELECT id FROM bench_homestays h
+    WHERE h.search_vector @@ plainto_tsquery('english', 'tea garden kalimpong')
+    ORDER BY ts_rank(to_tsvector('english', COALESCE(h.name, '') || ' ' || COALESCE(h.description, '') || ' ' || COALESCE(h.address, '')),
+                     plainto_tsquery('english', 'tea garden kalimpong')) * 0.4 + h.vibe_score * 0.4 DESC
+    LIMIT 12
+), new_top AS (
+    SELECT id FROM bench_homestays h
+    WHERE h.search_vector @@ plainto_tsquery('english', 'tea garden kalimpong')
+    ORDER BY ts_rank(h.search_vector, plainto_tsquery('english', 'tea garden kalimpong')) * 0.4 + h.vibe_score * 0.4 DESC
+    LIMIT 12
+)
+SELECT COUNT(*) AS still_in_top_12 FROM old_top JOIN new_top USING (id);
+
+ROLLBACK;